@@ -3,9 +3,11 @@ package com.example.easycache;
 import com.alibaba.fastjson2.JSON;
 import com.example.easycache.core.BroadcastManager;
 import com.example.easycache.core.CacheManager;
+import com.example.easycache.core.EasyCacheExecutor;
 import com.example.easycache.core.EasyCacheProperties;
 import com.example.easycache.core.SimpleCacheManager;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.boot.autoconfigure.cache.CacheProperties;
 import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -24,7 +26,7 @@ import java.util.List;
  * <p>Spring Boot自动配置，初始化缓存相关Bean</p>
  */
 @Configuration
-public class EasyCacheAutoConfiguration {
+public class EasyCacheAutoConfiguration implements DisposableBean {
 
     /**
      * 创建Redis配置属性
@@ -161,14 +163,24 @@ public class EasyCacheAutoConfiguration {
      *
      * @return 缓存管理器
      */
-    @Bean
+    @Bean(destroyMethod = "close")
     CacheManager cacheManager(){
+        EasyCacheExecutor.configure(easyCacheProperties());
         RedisTemplate<String,byte[]> redisTemplate = cacheRedisTemplate();
-        CacheManager cacheManager = new  SimpleCacheManager(redisTemplate);
+        SimpleCacheManager cacheManager = new SimpleCacheManager(redisTemplate);
+        cacheManager.setParallelThreshold(easyCacheProperties().getMultiGetParallelThreshold());
         BroadcastManager broadcastManager = new BroadcastManager(cacheManager,easyCacheProperties(),redisTemplate);
         cacheManager.setBroadcastManager(broadcastManager);
         broadcastManager.startSubscribe();
         return cacheManager;
     }
 
+    /**
+     * 关闭缓存执行器，释放后台线程
+     */
+    @Override
+    public void destroy() {
+        EasyCacheExecutor.shutdown();
+    }
+
 }
@@ -3,6 +3,8 @@ package com.example.easycache.core;
 import org.springframework.util.CollectionUtils;
 
 import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 /**
@@ -21,6 +23,15 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
     /** 缓存配置 */
     protected final CacheConfig<K,V> config;
 
+    /** 是否已关闭，关闭后公开的读取方法返回null或空映射，写入和移除被忽略 */
+    protected volatile boolean closed;
+
+    /** 计算操作的分段锁数量 */
+    private static final int COMPUTE_LOCK_SHARDS = 64;
+
+    /** 计算操作的分段锁，保证本节点内同一个键的计算串行执行 */
+    private final ReentrantLock[] computeLocks = new ReentrantLock[COMPUTE_LOCK_SHARDS];
+
     /**
      * 构造函数
      *
@@ -30,6 +41,9 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         this.config = config;
         valueDecoder = config.valueDecoder;
         valueEncoder = config.valueEncoder;;
+        for (int i = 0; i < COMPUTE_LOCK_SHARDS; i++) {
+            computeLocks[i] = new ReentrantLock();
+        }
     }
 
     /**
@@ -51,6 +65,7 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 
     @Override
     public V get(K key)  throws CacheInvokeException {
+        if (closed) return null;
         String newKey = buildKey(key);
         return do_GET(key,newKey);
     }
@@ -67,6 +82,7 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 
     @Override
     public  Map<K, V> getAll(Set<K> keys) throws CacheInvokeException {
+        if (closed) return Collections.emptyMap();
         Map<String,K> keyMap = new HashMap<>(keys.size());
         keys.forEach(key -> keyMap.put(buildKey(key),key));
         return do_GET_ALL(keyMap);
@@ -80,13 +96,45 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      */
     protected abstract Map<K, V> do_GET_ALL(Map<String,K>  keys);
 
+    @Override
+    public Map<K, V> getAllLazy(Set<K> keys) throws CacheInvokeException {
+        if (closed) return Collections.emptyMap();
+        Map<String,K> keyMap = new HashMap<>(keys.size());
+        keys.forEach(key -> keyMap.put(buildKey(key),key));
+        return do_GET_ALL_LAZY(keyMap);
+    }
+
+    /**
+     * 执行延迟解码的批量获取操作
+     * <p>默认直接解码，保存编码后的值的实现可以返回{@link LazyValueMap}</p>
+     *
+     * @param keys 转换后的键与原始键的映射
+     * @return 键值对映射
+     */
+    protected Map<K, V> do_GET_ALL_LAZY(Map<String,K> keys) {
+        return do_GET_ALL(keys);
+    }
+
 
     @Override
-    public final void put(K key, V value) {
+    public void put(K key, V value) {
+        if (closed) return;
         String newKey = buildKey(key);
+        do_WRITE(key,value);
         do_PUT(newKey,value);
     }
 
+    /**
+     * 把写入同步到数据源，在更新缓存之前调用
+     * <p>默认不同步，配置了缓存写入器的实现写入数据源。子类覆盖{@link #put(Object, Object)}等公开方法时应调用父类方法，
+     * 否则不会经过数据源同步的钩子</p>
+     *
+     * @param key 原始键
+     * @param value 值
+     */
+    protected void do_WRITE(K key, V value) {
+    }
+
     /**
      * 执行添加操作
      *
@@ -96,15 +144,26 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
     protected abstract void do_PUT(String stringKey, V value);
 
     @Override
-    public final void putAll(Map<K, V> map) {
+    public void putAll(Map<K, V> map) {
+        if (closed) return;
         Map<String,V> newMap = new HashMap<>();
         map.entrySet().stream()
                 .filter(entry -> entry.getValue() != null || config.cacheNullValue != null)
                 .forEach(entry -> newMap.put(buildKey(entry.getKey()), entry.getValue()));
         if(CollectionUtils.isEmpty(newMap)) return;
+        do_WRITE_ALL(map);
         do_PUT_ALL(newMap);
     }
 
+    /**
+     * 把批量写入同步到数据源，在更新缓存之前调用
+     * <p>默认不同步，配置了缓存写入器的实现写入数据源</p>
+     *
+     * @param map 原始键值对映射
+     */
+    protected void do_WRITE_ALL(Map<K, V> map) {
+    }
+
     /**
      * 执行批量添加操作
      *
@@ -113,11 +172,22 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
     protected abstract void do_PUT_ALL(Map<String,V> map);
 
     @Override
-    public final boolean remove(K key) {
+    public boolean remove(K key) {
+        if (closed) return false;
         String newKey = buildKey(key);
+        do_DELETE(key);
         return do_REMOVE(newKey);
     }
 
+    /**
+     * 把删除同步到数据源，在移除缓存之前调用
+     * <p>默认不同步，配置了缓存写入器的实现从数据源删除</p>
+     *
+     * @param key 原始键
+     */
+    protected void do_DELETE(K key) {
+    }
+
     /**
      * 执行移除操作
      *
@@ -127,12 +197,23 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
     protected abstract boolean do_REMOVE(String key);
 
     @Override
-    public final void removeAll(Set<K> keys) {
+    public void removeAll(Set<K> keys) {
+       if (closed) return;
        Set<String> keySet = new HashSet<>(keys.size());
        keys.forEach(key -> keySet.add(buildKey(key)));
+       do_DELETE_ALL(keys);
        do_REMOVE_ALL(keySet);
     }
 
+    /**
+     * 把批量删除同步到数据源，在移除缓存之前调用
+     * <p>默认不同步，配置了缓存写入器的实现从数据源删除</p>
+     *
+     * @param keys 原始键集合
+     */
+    protected void do_DELETE_ALL(Set<K> keys) {
+    }
+
     /**
      * 执行批量移除操作
      *
@@ -140,9 +221,101 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      */
     protected abstract void do_REMOVE_ALL(Set<String> keys);
 
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        if (closed) return null;
+        return do_COMPUTE(key, buildKey(key), (k, old) -> old != null ? old : mappingFunction.apply(k));
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        if (closed) return null;
+        return do_COMPUTE(key, buildKey(key), remappingFunction);
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remappingFunction);
+        if (closed) return null;
+        return do_COMPUTE(key, buildKey(key), (k, old) -> old == null ? value : remappingFunction.apply(old, value));
+    }
+
+    /**
+     * 执行计算操作
+     * <p>默认在分段锁内读取当前值、计算并写入，只保证本节点内的原子性。计算结果与当前值是同一个对象时不写入</p>
+     *
+     * @param key 原始键
+     * @param newKey 转换后的键
+     * @param remappingFunction 计算函数，当前值不存在时传入null
+     * @return 新值，移除时返回null
+     */
+    protected V do_COMPUTE(K key, String newKey, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        ReentrantLock lock = computeLock(newKey);
+        lock.lock();
+        try {
+            V old = absentIfNullValue(do_GET(key, newKey));
+            V value = remappingFunction.apply(key, old);
+            if (value == old) return value;
+            if (value == null) {
+                do_DELETE(key);
+                do_REMOVE(newKey);
+            } else {
+                do_WRITE(key, value);
+                do_PUT(newKey, value);
+            }
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取键对应的计算操作分段锁
+     *
+     * @param key 转换后的键
+     * @return 分段锁
+     */
+    protected final ReentrantLock computeLock(String key) {
+        return computeLocks[(key.hashCode() & 0x7fffffff) % COMPUTE_LOCK_SHARDS];
+    }
+
+    /**
+     * 把空值对象转换为null
+     *
+     * @param value 缓存值
+     * @return 值为空值对象时返回null，否则返回原值
+     */
+    protected final V absentIfNullValue(V value) {
+        if (value == null || config.cacheNullValue == null) return value;
+        return value == config.cacheNullValue || config.cacheNullValue.equals(value) ? null : value;
+    }
+
+    /**
+     * 清空本节点持有的缓存数据
+     * <p>用于丢失失效消息后的重新同步，只需丢弃可能过期的数据，不影响其他节点</p>
+     */
+    protected abstract void do_CLEAR();
+
     @Override
     public final CacheConfig<K,V> config(){
         return config;
     }
 
+    @Override
+    public final synchronized void close() {
+        if (closed) return;
+        closed = true;
+        do_CLOSE();
+    }
+
+    /**
+     * 执行关闭操作
+     * <p>默认不需要释放资源，由持有堆外内存等资源的实现覆盖</p>
+     */
+    protected void do_CLOSE() {
+    }
+
 }
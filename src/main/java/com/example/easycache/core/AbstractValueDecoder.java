@@ -1,5 +1,6 @@
 package com.example.easycache.core;
 
+import java.nio.ByteBuffer;
 import java.util.function.Function;
 
 /**
@@ -20,6 +21,20 @@ public abstract class AbstractValueDecoder implements Function<byte[], Object> {
      */
     protected abstract Object doApply(byte[] buffer) throws Exception;
 
+    /**
+     * 执行ByteBuffer解码操作
+     * <p>默认拷贝为字节数组后解码，子类可以直接读取缓冲区</p>
+     *
+     * @param buffer 缓冲区，从当前位置读取到limit
+     * @return 解码后的对象
+     * @throws Exception 解码异常
+     */
+    protected Object doApply(ByteBuffer buffer) throws Exception {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return doApply(bytes);
+    }
+
     /**
      * 解码字节数组
      *
@@ -35,5 +50,18 @@ public abstract class AbstractValueDecoder implements Function<byte[], Object> {
         }
     }
 
+    /**
+     * 解码ByteBuffer
+     *
+     * @param buffer 缓冲区，从当前位置读取到limit
+     * @return 解码后的对象
+     */
+    public Object decode(ByteBuffer buffer) {
+        try {
+            return doApply(buffer);
+        } catch (Throwable e) {
+            throw new CacheEncodeException("decode error", e);
+        }
+    }
 
 }
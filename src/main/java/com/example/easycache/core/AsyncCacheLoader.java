@@ -0,0 +1,114 @@
+package com.example.easycache.core;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 异步缓存加载器接口
+ * <p>返回{@link CompletableFuture}的加载器，缓存未命中时请求线程最多等待配置的加载超时时间，
+ * 并发加载数受配置的并发上限限制，超时、被拒绝或失败时可以回退到最近一次加载的旧值。
+ * 同一个键的并发加载只调用一次加载器，不再使用加载锁</p>
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public interface AsyncCacheLoader<K, V> extends CacheLoader<K, V> {
+
+    /**
+     * 异步加载单个值
+     *
+     * @param key 键
+     * @return 加载结果
+     */
+    CompletableFuture<V> loadAsync(K key);
+
+    /**
+     * 异步批量加载值
+     * <p>默认逐个调用{@link #loadAsync(Object)}并合并结果</p>
+     *
+     * @param keys 键集合
+     * @return 键值对映射
+     */
+    default CompletableFuture<Map<K, V>> loadAllAsync(Set<K> keys) {
+        Map<K, CompletableFuture<V>> futures = new HashMap<>(keys.size() * 4 / 3 + 1);
+        for (K key : keys) {
+            futures.put(key, loadAsync(key));
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            Map<K, V> result = new HashMap<>(futures.size() * 4 / 3 + 1);
+            futures.forEach((key, future) -> result.put(key, future.join()));
+            return result;
+        });
+    }
+
+    /**
+     * 同步加载单个值，等待{@link #loadAsync(Object)}完成
+     *
+     * @param key 键
+     * @return 加载的值
+     * @throws Throwable 加载异常
+     */
+    @Override
+    default V load(K key) throws Throwable {
+        try {
+            return loadAsync(key).get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 同步批量加载值，等待{@link #loadAllAsync(Set)}完成
+     *
+     * @param keys 键集合
+     * @return 键值对映射
+     * @throws Throwable 加载异常
+     */
+    @Override
+    default Map<K, V> loadAll(Set<K> keys) throws Throwable {
+        try {
+            return loadAllAsync(keys).get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 把同步加载器包装为异步加载器，在{@link EasyCacheExecutor#LOADER}执行器上加载
+     * <p>阻塞的加载器包装后同样受加载超时和并发上限保护，慢加载不会占住请求线程</p>
+     *
+     * @param loader 同步加载器
+     * @param <K> 键类型
+     * @param <V> 值类型
+     * @return 异步加载器
+     */
+    static <K, V> AsyncCacheLoader<K, V> of(CacheLoader<K, V> loader) {
+        return new AsyncCacheLoader<K, V>() {
+            @Override
+            public CompletableFuture<V> loadAsync(K key) {
+                return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return loader.load(key);
+                    } catch (Throwable e) {
+                        throw new CompletionException(e);
+                    }
+                }, EasyCacheExecutor.executor(EasyCacheExecutor.LOADER));
+            }
+
+            @Override
+            public CompletableFuture<Map<K, V>> loadAllAsync(Set<K> keys) {
+                return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return loader.loadAll(keys);
+                    } catch (Throwable e) {
+                        throw new CompletionException(e);
+                    }
+                }, EasyCacheExecutor.executor(EasyCacheExecutor.LOADER));
+            }
+        };
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.easycache.core;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 异步加载器调用器
+ * <p>为{@link AsyncCacheLoader}加上超时、并发上限和旧值回退：</p>
+ * <ul>
+ *     <li>请求线程最多等待加载超时时间，超时后加载继续在后台完成，结果只用于旧值回退，不写入缓存</li>
+ *     <li>并发上限按进行中的加载计数，直到加载真正完成才释放，拿不到许可时立即失败，不排队等待</li>
+ *     <li>同一个键的并发加载共享一个结果</li>
+ *     <li>开启旧值回退时保存最近一次加载成功的值，加载失败时返回</li>
+ * </ul>
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+final class AsyncLoaderInvoker<K, V> {
+
+    /** 未配置本地缓存上限时旧值的最大条目数 */
+    static final int DEFAULT_STALE_LIMIT = 10_000;
+
+    /** 异步加载器 */
+    private final AsyncCacheLoader<K, V> loader;
+
+    /** 加载超时（纳秒），为0时不限制 */
+    private final long timeoutNanos;
+
+    /** 并发许可，为null时不限制 */
+    private final Semaphore permits;
+
+    /** 进行中的单键加载 */
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /** 最近一次加载成功的值，为null时不回退 */
+    private final Cache<K, V> staleValues;
+
+    /**
+     * 构造函数
+     *
+     * @param loader 异步加载器
+     * @param timeout 加载超时，为null时不限制
+     * @param concurrency 并发上限，为null时不限制
+     * @param staleTtl 旧值保留时间，为null时不回退
+     * @param staleLimit 旧值的最大条目数
+     */
+    AsyncLoaderInvoker(AsyncCacheLoader<K, V> loader, Duration timeout, Integer concurrency, Duration staleTtl, int staleLimit) {
+        this.loader = loader;
+        this.timeoutNanos = timeout == null ? 0 : Math.max(0, timeout.toNanos());
+        this.permits = concurrency == null ? null : new Semaphore(Math.max(1, concurrency));
+        this.staleValues = staleTtl == null ? null
+                : Caffeine.newBuilder().maximumSize(staleLimit).expireAfterWrite(staleTtl).executor(Runnable::run).build();
+    }
+
+    /**
+     * 按配置创建调用器
+     *
+     * @param config 缓存配置
+     * @param <K> 键类型
+     * @param <V> 值类型
+     * @return 加载器不是异步加载器时返回null
+     */
+    static <K, V> AsyncLoaderInvoker<K, V> create(CacheConfig<K, V> config) {
+        if (!(config.getLoader() instanceof AsyncCacheLoader)) return null;
+        int staleLimit = config.getLocalLimit() != null ? config.getLocalLimit() : DEFAULT_STALE_LIMIT;
+        return new AsyncLoaderInvoker<>((AsyncCacheLoader<K, V>) config.getLoader(), config.getLoadTimeout(),
+                config.getLoadConcurrency(), config.getStaleTtl(), staleLimit);
+    }
+
+    /**
+     * 加载单个值
+     *
+     * @param key 键
+     * @return 加载的值
+     * @throws CacheInvokeException 加载失败、超时或超过并发上限
+     */
+    V load(K key) {
+        CompletableFuture<V> future = inFlight.get(key);
+        if (future == null) {
+            acquire();
+            CompletableFuture<V> created = new CompletableFuture<>();
+            future = inFlight.putIfAbsent(key, created);
+            if (future == null) {
+                future = created;
+                start(key, created);
+            } else {
+                release();
+            }
+        }
+        return await(future);
+    }
+
+    /**
+     * 批量加载值
+     *
+     * @param keys 键集合
+     * @return 键值对映射
+     * @throws CacheInvokeException 加载失败、超时或超过并发上限
+     */
+    Map<K, V> loadAll(Set<K> keys) {
+        acquire();
+        CompletableFuture<Map<K, V>> future;
+        try {
+            future = loader.loadAllAsync(keys);
+        } catch (Throwable e) {
+            release();
+            throw new CacheInvokeException(e);
+        }
+        if (future == null) {
+            release();
+            return null;
+        }
+        future = future.whenComplete((result, e) -> {
+            release();
+            if (e == null && result != null && staleValues != null) {
+                result.forEach((key, value) -> {
+                    if (value != null) staleValues.put(key, value);
+                });
+            }
+        });
+        return await(future);
+    }
+
+    /**
+     * 获取旧值
+     *
+     * @param key 键
+     * @return 最近一次加载成功的值，没有或未开启回退时返回null
+     */
+    V stale(K key) {
+        return staleValues == null ? null : staleValues.getIfPresent(key);
+    }
+
+    /**
+     * 获取当前可用的并发许可数
+     *
+     * @return 许可数，不限制时返回-1
+     */
+    int availablePermits() {
+        return permits == null ? -1 : permits.availablePermits();
+    }
+
+    private void start(K key, CompletableFuture<V> target) {
+        CompletableFuture<V> future;
+        try {
+            future = loader.loadAsync(key);
+        } catch (Throwable e) {
+            future = null;
+            finish(key, target, null, e);
+        }
+        if (future == null) {
+            if (!target.isDone()) finish(key, target, null, null);
+            return;
+        }
+        future.whenComplete((value, e) -> finish(key, target, value, e));
+    }
+
+    private void finish(K key, CompletableFuture<V> target, V value, Throwable e) {
+        inFlight.remove(key, target);
+        release();
+        if (e != null) {
+            target.completeExceptionally(e);
+            return;
+        }
+        if (value != null && staleValues != null) staleValues.put(key, value);
+        target.complete(value);
+    }
+
+    private void acquire() {
+        if (permits != null && !permits.tryAcquire()) {
+            throw new CacheInvokeException("too many concurrent loads", null);
+        }
+    }
+
+    private void release() {
+        if (permits != null) permits.release();
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return timeoutNanos > 0 ? future.get(timeoutNanos, TimeUnit.NANOSECONDS) : future.get();
+        } catch (TimeoutException e) {
+            throw new CacheInvokeException("load timed out after " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + "ms", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CacheInvokeException) throw (CacheInvokeException) cause;
+            throw new CacheInvokeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheInvokeException(e);
+        }
+    }
+}
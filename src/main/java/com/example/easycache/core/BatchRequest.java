@@ -5,12 +5,29 @@ import java.util.Set;
 /**
  * 批量请求对象
  * <p>用于批量获取缓存数据的请求</p>
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
  */
-public class BatchRequest{
+public class BatchRequest<K, V> {
     /** 缓存名称 */
     private String cacheName;
     /** 键集合 */
-    private Set keys;
+    private Set<K> keys;
+
+    public BatchRequest() {
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param cacheName 缓存名称
+     * @param keys 键集合
+     */
+    public BatchRequest(String cacheName, Set<K> keys) {
+        this.cacheName = cacheName;
+        this.keys = keys;
+    }
 
     public String getCacheName() {
         return cacheName;
@@ -20,11 +37,11 @@ public class BatchRequest{
         this.cacheName = cacheName;
     }
 
-    public Set getKeys() {
+    public Set<K> getKeys() {
         return keys;
     }
 
-    public void setKeys(Set keys) {
+    public void setKeys(Set<K> keys) {
         this.keys = keys;
     }
 
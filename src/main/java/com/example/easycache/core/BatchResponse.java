@@ -1,16 +1,34 @@
 package com.example.easycache.core;
 
 import java.util.Collection;
+import java.util.Map;
 
 /**
  * 批量响应对象
  * <p>用于批量获取缓存数据的响应</p>
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
  */
-public class BatchResponse{
+public class BatchResponse<K, V> {
     /** 缓存名称 */
     private String cacheName;
-    /** 值集合 */
-    private Collection values;
+    /** 键值对映射，未命中的键不包含在其中 */
+    private Map<K, V> result;
+
+    public BatchResponse() {
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param cacheName 缓存名称
+     * @param result 键值对映射
+     */
+    public BatchResponse(String cacheName, Map<K, V> result) {
+        this.cacheName = cacheName;
+        this.result = result;
+    }
 
     public String getCacheName() {
         return cacheName;
@@ -20,11 +38,20 @@ public class BatchResponse{
         this.cacheName = cacheName;
     }
 
-    public Collection getValues() {
-        return values;
+    public Map<K, V> getResult() {
+        return result;
+    }
+
+    public void setResult(Map<K, V> result) {
+        this.result = result;
     }
 
-    public void setValues(Collection values) {
-        this.values = values;
+    /**
+     * 获取命中的值
+     *
+     * @return 值集合
+     */
+    public Collection<V> getValues() {
+        return result == null ? null : result.values();
     }
 }
@@ -1,22 +1,30 @@
 package com.example.easycache.core;
 
 
-import com.alibaba.fastjson2.JSON;
 import io.lettuce.core.RedisCommandInterruptedException;
+import io.lettuce.core.cluster.SlotHash;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.connection.stream.MapRecord;
 import org.springframework.data.redis.connection.stream.ReadOffset;
 import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamInfo;
 import org.springframework.data.redis.connection.stream.StreamReadOptions;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StreamOperations;
 
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * 广播管理器
@@ -36,8 +44,24 @@ public class BroadcastManager implements AutoCloseable {
     private final RedisTemplate<String, byte[]> redisTemplate;
     /** 流键名 */
     private static final String STREAM_KEY = "easy-cache-stream";
-    /** 当前记录ID */
-    private String currentRecordId = null;
+    /** 各个流已消费的记录ID */
+    private final Map<String, String> streamOffsets = new ConcurrentHashMap<>();
+    /** 各个流上次检查消费断档的时间 */
+    private final Map<String, Long> gapCheckTimes = new ConcurrentHashMap<>();
+    /** 是否正在订阅 */
+    private volatile boolean running;
+    /** 消费线程，未在消费时为null */
+    private volatile Thread readerThread;
+    /** 消费线程退出信号 */
+    private volatile CountDownLatch readerStopped = new CountDownLatch(0);
+    /** 清理流的定时任务 */
+    private ScheduledFuture<?> trimTask;
+    /** 消费线程缓存的订阅流，只在消费线程中使用 */
+    private Map<String, String> currentStreams;
+    /** 订阅流按一次读取分组，同一组的流用一条XREAD读取，只在消费线程中使用 */
+    private List<StreamOffset<String>[]> streamGroups;
+    /** 计算订阅流时的缓存数量，缓存数量变化时重新计算 */
+    private int streamsCacheCount = -1;
 
     /**
      * 构造函数
@@ -60,53 +84,177 @@ public class BroadcastManager implements AutoCloseable {
     public void publish(CacheMessage cacheMessage) {
         cacheMessage.setSourceId(sourceId);
         StreamOperations<String, String, CacheMessage> streamOps = redisTemplate.opsForStream();
-        Map<String, CacheMessage> message = new HashMap<>();
-        message.put("message", cacheMessage);
-        streamOps.add(STREAM_KEY, message);
+        partition(cacheMessage).forEach((streamKey, partitionMessage) -> {
+            Map<String, CacheMessage> message = new HashMap<>();
+            message.put("message", partitionMessage);
+            streamOps.add(streamKey, message);
+        });
+    }
+
+    /**
+     * 按分区类型拆分缓存消息
+     *
+     * @param cacheMessage 缓存消息
+     * @return 流键名与消息的映射
+     */
+    Map<String, CacheMessage> partition(CacheMessage cacheMessage) {
+        String[] keys = cacheMessage.getKeys();
+        if (easyCacheProperties.getStreamPartitionType() != StreamPartitionType.KEY_HASH || keys == null || keys.length <= 1) {
+            String key = keys == null || keys.length == 0 ? null : keys[0];
+            return Collections.singletonMap(streamKey(cacheMessage.getCacheName(), key), cacheMessage);
+        }
+        Map<String, List<String>> keysByStream = new LinkedHashMap<>();
+        Map<String, Integer> keyIndexes = new HashMap<>(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            keysByStream.computeIfAbsent(streamKey(cacheMessage.getCacheName(), keys[i]), n -> new ArrayList<>()).add(keys[i]);
+            keyIndexes.put(keys[i], i);
+        }
+        if (keysByStream.size() == 1) {
+            return Collections.singletonMap(keysByStream.keySet().iterator().next(), cacheMessage);
+        }
+        Map<String, CacheMessage> messages = new LinkedHashMap<>();
+        keysByStream.forEach((streamKey, streamKeys) -> {
+            CacheMessage partitionMessage = new CacheMessage();
+            partitionMessage.setSourceId(cacheMessage.getSourceId());
+            partitionMessage.setCacheName(cacheMessage.getCacheName());
+            partitionMessage.setType(cacheMessage.getType());
+            partitionMessage.setKeys(streamKeys.toArray(new String[0]));
+            partitionMessage.setVersion(cacheMessage.getVersion());
+            if (cacheMessage.getValues() != null) {
+                byte[][] values = new byte[streamKeys.size()][];
+                for (int i = 0; i < streamKeys.size(); i++) {
+                    values[i] = cacheMessage.getValues()[keyIndexes.get(streamKeys.get(i))];
+                }
+                partitionMessage.setValues(values);
+            }
+            messages.put(streamKey, partitionMessage);
+        });
+        return messages;
+    }
+
+    /**
+     * 计算缓存键所属的流键名
+     *
+     * @param cacheName 缓存名称
+     * @param key 缓存键
+     * @return 流键名
+     */
+    String streamKey(String cacheName, String key) {
+        switch (easyCacheProperties.getStreamPartitionType()) {
+            case CACHE_NAME:
+                return STREAM_KEY + ":" + cacheName;
+            case KEY_HASH:
+                int partition = key == null ? 0 : Math.floorMod(key.hashCode(), easyCacheProperties.getStreamPartitions());
+                return STREAM_KEY + ":" + cacheName + ":" + partition;
+            default:
+                return STREAM_KEY;
+        }
+    }
+
+    /**
+     * 计算当前节点需要订阅的流
+     * <p>分区模式下只订阅本节点已创建且有本地缓存的缓存所对应的流</p>
+     *
+     * @return 流键名与缓存名称的映射，缓存名称为null表示所有缓存共用的流
+     */
+    Map<String, String> subscribedStreams() {
+        StreamPartitionType partitionType = easyCacheProperties.getStreamPartitionType();
+        if (partitionType == StreamPartitionType.NONE) {
+            return Collections.singletonMap(STREAM_KEY, null);
+        }
+        Map<String, String> streams = new LinkedHashMap<>();
+        for (String cacheName : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (!(cache instanceof MultiLevelCache) || !((MultiLevelCache) cache).hasLocalCache()) continue;
+            if (partitionType == StreamPartitionType.CACHE_NAME) {
+                streams.put(STREAM_KEY + ":" + cacheName, cacheName);
+            } else {
+                for (int i = 0; i < easyCacheProperties.getStreamPartitions(); i++) {
+                    streams.put(STREAM_KEY + ":" + cacheName + ":" + i, cacheName);
+                }
+            }
+        }
+        return streams;
     }
 
     /**
      * 开始订阅消息
      */
-    public void startSubscribe() {
-        EasyCacheExecutor.defaultExecutor().execute(this::processNotification);
-        EasyCacheExecutor.defaultExecutor().scheduleAtFixedRate(this::trimCacheMessages, easyCacheProperties.getTaskInitDelay(),easyCacheProperties.getTaskPeriod(), TimeUnit.SECONDS);
+    public synchronized void startSubscribe() {
+        if (running) return;
+        running = true;
+        readerStopped = new CountDownLatch(1);
+        EasyCacheExecutor.executor(EasyCacheExecutor.STREAM_READER).execute(() -> {
+            readerThread = Thread.currentThread();
+            try {
+                processNotification();
+            } finally {
+                readerThread = null;
+                // 清除关闭时设置的中断标记，避免影响线程池中的后续任务
+                Thread.interrupted();
+                readerStopped.countDown();
+            }
+        });
+        trimTask = EasyCacheExecutor.scheduleBlocking(EasyCacheExecutor.MAINTENANCE, this::trimCacheMessages, easyCacheProperties.getTaskInitDelay(),easyCacheProperties.getTaskPeriod(), TimeUnit.SECONDS);
     }
 
+    /**
+     * 停止订阅
+     * <p>停止清理任务，中断阻塞中的读取并等待消费线程退出，最多等待一个阻塞时长</p>
+     */
     @Override
-    public void close() throws Exception {
+    public synchronized void close() {
+        if (!running) return;
+        running = false;
+        if (trimTask != null) trimTask.cancel(false);
+        Thread reader = readerThread;
+        if (reader != null) reader.interrupt();
+        try {
+            if (!readerStopped.await(easyCacheProperties.getBlockDuration() + easyCacheProperties.getPollInterval(), TimeUnit.MILLISECONDS)) {
+                logger.warn("stream reader did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 判断是否正在订阅
+     *
+     * @return 消费线程是否仍在运行
+     */
+    boolean isSubscribing() {
+        return readerStopped.getCount() > 0;
     }
 
     /**
      * 处理通知消息
+     * <p>所有订阅的流用一条阻塞的XREAD读取，任一流有新消息时返回。集群模式下XREAD的多个键必须在同一个slot，
+     * 按slot分组后每组一条读取，只有一组时阻塞读取，否则逐组非阻塞读取后等待轮询间隔</p>
      */
     protected void processNotification() {
 
         StreamOperations<String, String, CacheMessage> streamOps = redisTemplate.opsForStream();
 
-        StreamOffset<String> streamOffset = StreamOffset.create(STREAM_KEY, ReadOffset.latest());
-
-        while (true) { // 循环消费（实际项目建议用线程池或定时任务，避免死循环）
+        while (running) {
             try {
-                // COUNT 1：每次消费 1 条消息；BLOCK 5000：阻塞 5 秒（单位：毫秒）；>：表示消费组内未分配的消息
-                if (null != currentRecordId) {
-                    streamOffset = StreamOffset.create(STREAM_KEY, ReadOffset.from(currentRecordId));
+                Map<String, String> streams = currentStreams();
+                if (streams.isEmpty()) {
+                    Thread.sleep(easyCacheProperties.getPollInterval());
+                    continue;
                 }
-                List<MapRecord<String, String, CacheMessage>> records = streamOps.read(
-                        StreamReadOptions.empty().count(easyCacheProperties.getConsumeCount()).block(Duration.ofMillis(easyCacheProperties.getBlockDuration())), streamOffset);
-                // 4. 处理消息（若有消息）
-                if (records != null && !records.isEmpty()) {
-                    for (MapRecord<String, String, CacheMessage> record : records) {
-                        // 获取消息 ID 和内容
-                        String messageId = record.getId().getValue();
-                        Map<String, CacheMessage> messageContent = record.getValue();
-                        currentRecordId = record.getId().getValue();
-                        // 业务处理（示例：打印订单信息）
-                        logger.info("Message：ID=" + messageId + ", Content=" + JSON.toJSONString(messageContent));
-                        processCacheMessage(messageContent.get("message"));
-                    }
+                boolean blocking = streamGroups.size() == 1;
+                List<CacheMessage> cacheMessages = new ArrayList<>();
+                for (StreamOffset<String>[] group : streamGroups) {
+                    consume(streamOps, group, streams, blocking, cacheMessages);
+                }
+                if (!cacheMessages.isEmpty()) {
+                    processCacheMessages(cacheMessages);
+                } else if (!blocking) {
+                    Thread.sleep(easyCacheProperties.getPollInterval());
                 }
             } catch (Exception e) {
+                if (!running) break;
                 if(e.getCause() instanceof RedisCommandInterruptedException){
                     try {
                         Thread.sleep(2000);
@@ -121,48 +269,290 @@ public class BroadcastManager implements AutoCloseable {
     }
 
     /**
-     * 处理缓存消息
+     * 获取当前订阅的流，缓存数量不变时复用上次的计算结果
+     * <p>缓存只会新增，关闭缓存管理器时才全部移除，数量不变即订阅的流不变</p>
      *
-     * @param cacheMessage 缓存消息
+     * @return 流键名与缓存名称的映射
      */
-    private void processCacheMessage(CacheMessage cacheMessage) {
-        if (sourceId.equals(cacheMessage.getSourceId())) {
-            return;
+    private Map<String, String> currentStreams() {
+        int cacheCount = easyCacheProperties.getStreamPartitionType() == StreamPartitionType.NONE ? 0 : cacheManager.getCacheNames().size();
+        if (currentStreams == null || cacheCount != streamsCacheCount) {
+            currentStreams = subscribedStreams();
+            streamGroups = groupStreams(currentStreams.keySet());
+            streamsCacheCount = cacheCount;
+        }
+        return currentStreams;
+    }
+
+    /**
+     * 把流按一次读取分组，非集群模式下所有流为一组，集群模式下按slot分组
+     *
+     * @param streamKeys 流键名
+     * @return 分组，流的消费位置在读取时设置
+     */
+    List<StreamOffset<String>[]> groupStreams(Collection<String> streamKeys) {
+        Map<Integer, List<StreamOffset<String>>> groups = new LinkedHashMap<>();
+        boolean cluster = isCluster();
+        for (String streamKey : streamKeys) {
+            int slot = cluster ? SlotHash.getSlot(streamKey) : 0;
+            groups.computeIfAbsent(slot, n -> new ArrayList<>()).add(StreamOffset.create(streamKey, ReadOffset.lastConsumed()));
+        }
+        List<StreamOffset<String>[]> result = new ArrayList<>(groups.size());
+        for (List<StreamOffset<String>> group : groups.values()) {
+            result.add(group.toArray(new StreamOffset[0]));
+        }
+        return result;
+    }
+
+    private boolean isCluster() {
+        RedisConnectionFactory connectionFactory = redisTemplate == null ? null : redisTemplate.getConnectionFactory();
+        return connectionFactory instanceof LettuceConnectionFactory && ((LettuceConnectionFactory) connectionFactory).isClusterAware();
+    }
+
+    /**
+     * 用一条XREAD从一组流读取一批消息
+     *
+     * @param streamOps 流操作
+     * @param group 流分组
+     * @param streams 流键名与缓存名称的映射
+     * @param blocking 是否阻塞读取
+     * @param cacheMessages 读取到的消息
+     */
+    private void consume(StreamOperations<String, String, CacheMessage> streamOps, StreamOffset<String>[] group, Map<String, String> streams,
+                         boolean blocking, List<CacheMessage> cacheMessages) {
+        long now = System.currentTimeMillis();
+        Map<String, String> readOffsets = new HashMap<>(group.length * 4 / 3 + 1);
+        for (int i = 0; i < group.length; i++) {
+            String streamKey = group[i].getKey();
+            String offset = streamOffsets.computeIfAbsent(streamKey, k -> initialOffset(streamOps, k));
+            if (now - gapCheckTimes.getOrDefault(streamKey, 0L) >= easyCacheProperties.getGapCheckInterval()) {
+                gapCheckTimes.put(streamKey, now);
+                offset = checkGap(streamOps, streamKey, streams.get(streamKey), offset);
+            }
+            readOffsets.put(streamKey, offset);
+            group[i] = StreamOffset.create(streamKey, ReadOffset.from(offset));
+        }
+        StreamReadOptions readOptions = StreamReadOptions.empty().count(easyCacheProperties.getConsumeCount());
+        if (blocking) {
+            // BLOCK：阻塞等待任一流的新消息（单位：毫秒）
+            readOptions = readOptions.block(Duration.ofMillis(easyCacheProperties.getBlockDuration()));
+        }
+        List<MapRecord<String, String, CacheMessage>> records = streamOps.read(readOptions, group);
+        if (records == null || records.isEmpty()) return;
+        // COUNT对每个流分别生效，按流统计读取数量和最后的记录ID
+        Map<String, Integer> counts = new HashMap<>();
+        Map<String, String> lastRecordIds = new HashMap<>();
+        for (MapRecord<String, String, CacheMessage> record : records) {
+            CacheMessage cacheMessage = record.getValue().get("message");
+            if (cacheMessage != null) cacheMessages.add(cacheMessage);
+            counts.merge(record.getStream(), 1, Integer::sum);
+            lastRecordIds.put(record.getStream(), record.getId().getValue());
         }
-        Cache cache = cacheManager.getCache(cacheMessage.getCacheName());
+        lastRecordIds.forEach((streamKey, lastRecordId) -> {
+            streamOffsets.put(streamKey, lastRecordId);
+            logger.debug("consumed {} messages from {}, last id: {}", counts.get(streamKey), streamKey, lastRecordId);
+            // 读满一批说明消费落后，可能在两次检查之间越过了被裁剪的区间，按读取前的位置再检查一次
+            if (counts.get(streamKey) >= easyCacheProperties.getConsumeCount()) {
+                gapCheckTimes.put(streamKey, now);
+                checkGap(streamOps, streamKey, streams.get(streamKey), readOffsets.get(streamKey));
+            }
+        });
+    }
+
+    /**
+     * 检查消费位置之后的消息是否已被裁剪
+     * <p>消费位置早于流中已删除的最大记录ID时，说明有失效消息丢失，清空受影响的本地缓存。
+     * Redis 7以下没有max-deleted-entry-id，退化为与第一条记录比较</p>
+     *
+     * @param streamOps 流操作
+     * @param streamKey 流键名
+     * @param cacheName 流对应的缓存名称，为null表示所有缓存
+     * @param offset 消费位置
+     * @return 检查后的消费位置
+     */
+    String checkGap(StreamOperations<String, String, CacheMessage> streamOps, String streamKey, String cacheName, String offset) {
+        StreamInfo.XInfoStream info;
+        try {
+            info = streamOps.info(streamKey);
+        } catch (Exception e) {
+            // 流尚未创建
+            logger.debug("failed to get stream info: {}", streamKey, e);
+            return offset;
+        }
+        if (info == null) return offset;
+        Object maxDeletedEntryId = info.getRaw().get("max-deleted-entry-id");
+        if (maxDeletedEntryId != null) {
+            String deletedId = maxDeletedEntryId.toString();
+            // 0-0表示启动时流为空，之前删除的记录早于本节点启动，不需要重新同步
+            if ("0-0".equals(offset) || compareRecordId(offset, deletedId) >= 0) return offset;
+            logger.warn("stream {} was trimmed past offset {}, max deleted id: {}", streamKey, offset, deletedId);
+            resyncLocalCaches(cacheName);
+            streamOffsets.merge(streamKey, deletedId, (current, deleted) -> compareRecordId(current, deleted) >= 0 ? current : deleted);
+            return streamOffsets.get(streamKey);
+        }
+        String firstEntryId = info.firstEntryId();
+        if ("0-0".equals(offset) || firstEntryId == null || compareRecordId(offset, firstEntryId) >= 0) return offset;
+        logger.warn("stream {} was trimmed past offset {}, first id: {}", streamKey, offset, firstEntryId);
+        resyncLocalCaches(cacheName);
+        return offset;
+    }
+
+    /**
+     * 清空本地缓存，用于丢失失效消息后的重新同步
+     *
+     * @param cacheName 缓存名称，为null表示所有缓存
+     */
+    private void resyncLocalCaches(String cacheName) {
+        Collection<String> cacheNames = cacheName == null ? cacheManager.getCacheNames() : Collections.singleton(cacheName);
+        for (String name : cacheNames) {
+            Cache cache = cacheManager.getCache(name);
+            if (!(cache instanceof MultiLevelCache) || !((MultiLevelCache) cache).hasLocalCache()) continue;
+            try {
+                ((MultiLevelCache) cache).clearLocal();
+                logger.warn("clear local cache after losing invalidation messages: {}", name);
+            } catch (Exception e) {
+                logger.error("failed to clear local cache: {}", name, e);
+            }
+        }
+    }
+
+    /**
+     * 比较两个Stream记录ID
+     *
+     * @param id1 记录ID
+     * @param id2 记录ID
+     * @return 比较结果
+     */
+    static int compareRecordId(String id1, String id2) {
+        int index1 = id1.indexOf('-');
+        int index2 = id2.indexOf('-');
+        long time1 = Long.parseLong(index1 < 0 ? id1 : id1.substring(0, index1));
+        long time2 = Long.parseLong(index2 < 0 ? id2 : id2.substring(0, index2));
+        if (time1 != time2) return Long.compare(time1, time2);
+        long sequence1 = index1 < 0 ? 0 : Long.parseLong(id1.substring(index1 + 1));
+        long sequence2 = index2 < 0 ? 0 : Long.parseLong(id2.substring(index2 + 1));
+        return Long.compare(sequence1, sequence2);
+    }
+
+    /**
+     * 计算流的初始消费位置
+     * <p>从流中最后一条消息之后开始消费，流不存在时从头开始</p>
+     *
+     * @param streamOps 流操作
+     * @param streamKey 流键名
+     * @return 记录ID
+     */
+    private String initialOffset(StreamOperations<String, String, CacheMessage> streamOps, String streamKey) {
+        List<MapRecord<String, String, CacheMessage>> lastRecords = streamOps.reverseRange(streamKey, Range.unbounded(), Limit.limit().count(1));
+        if (lastRecords == null || lastRecords.isEmpty()) return "0-0";
+        return lastRecords.get(0).getId().getValue();
+    }
+
+    /**
+     * 批量处理缓存消息
+     * <p>按缓存名称分组并对键去重，每个缓存只执行一次批量操作。同一个键以版本最大的消息为准，
+     * 该消息带有值时更新本地缓存，否则失效本地缓存</p>
+     *
+     * @param cacheMessages 缓存消息列表
+     */
+    protected void processCacheMessages(List<CacheMessage> cacheMessages) {
+        Map<String, Map<String, Long>> keysByCache = new LinkedHashMap<>();
+        Map<String, Map<String, byte[]>> valuesByCache = new HashMap<>();
+        for (CacheMessage cacheMessage : cacheMessages) {
+            if (sourceId.equals(cacheMessage.getSourceId()) || cacheMessage.getKeys() == null) {
+                continue;
+            }
+            Map<String, Long> keyVersions = keysByCache.computeIfAbsent(cacheMessage.getCacheName(), n -> new HashMap<>());
+            Map<String, byte[]> keyValues = valuesByCache.computeIfAbsent(cacheMessage.getCacheName(), n -> new HashMap<>());
+            String[] keys = cacheMessage.getKeys();
+            byte[][] values = cacheMessage.getValues();
+            for (int i = 0; i < keys.length; i++) {
+                Long version = keyVersions.get(keys[i]);
+                if (version != null && version > cacheMessage.getVersion()) continue;
+                keyVersions.put(keys[i], cacheMessage.getVersion());
+                if (values != null && values[i] != null) {
+                    keyValues.put(keys[i], values[i]);
+                } else {
+                    keyValues.remove(keys[i]);
+                }
+            }
+        }
+        if (keysByCache.size() > 1 && easyCacheProperties.isParallelApply()) {
+            // 在解码线程池上并行执行，不占用公共ForkJoinPool，第一个缓存在消费线程上执行
+            ForkJoinPool pool = EasyCacheExecutor.decodePool();
+            List<ForkJoinTask<?>> futures = new ArrayList<>(keysByCache.size() - 1);
+            Map.Entry<String, Map<String, Long>> first = null;
+            for (Map.Entry<String, Map<String, Long>> entry : keysByCache.entrySet()) {
+                if (first == null) {
+                    first = entry;
+                    continue;
+                }
+                futures.add(pool.submit(() -> applyLocalCache(entry.getKey(), entry.getValue(), valuesByCache.get(entry.getKey()))));
+            }
+            applyLocalCache(first.getKey(), first.getValue(), valuesByCache.get(first.getKey()));
+            futures.forEach(ForkJoinTask::join);
+        } else {
+            keysByCache.forEach((cacheName, keyVersions) -> applyLocalCache(cacheName, keyVersions, valuesByCache.get(cacheName)));
+        }
+    }
+
+    /**
+     * 更新或失效本地缓存中的键
+     *
+     * @param cacheName 缓存名称
+     * @param keyVersions 去重后的键与消息版本的映射
+     * @param keyValues 随消息广播的键与编码后的值的映射
+     */
+    private void applyLocalCache(String cacheName, Map<String, Long> keyVersions, Map<String, byte[]> keyValues) {
+        Cache cache = cacheManager.getCache(cacheName);
         if (cache == null) {
-            logger.warn("Cache instance not exists: {}", cacheMessage.getCacheName());
+            logger.warn("Cache instance not exists: {}", cacheName);
             return;
         }
 
         if (!(cache instanceof MultiLevelCache)) {
-            logger.error("Cache instance is not MultiLevelCache: {}", cacheMessage.getCacheName());
+            logger.error("Cache instance is not MultiLevelCache: {}", cacheName);
             return;
         }
         MultiLevelCache multiLevelCache = (MultiLevelCache) cache;
-        Set<String> keys = Stream.of(cacheMessage.getKeys()).collect(Collectors.toSet());
-        multiLevelCache.getLocalCache().do_REMOVE_ALL(keys);
-        logger.info("remove keys from local cache : {} {}", cache.config().name, JSON.toJSONString(keys));
+        if (!multiLevelCache.hasLocalCache()) return;
+        try {
+            multiLevelCache.applyRemote(keyVersions, keyValues);
+            logger.debug("apply {} keys to local cache : {}, {} with values", keyVersions.size(), cacheName, keyValues.size());
+        } catch (Exception e) {
+            logger.error("failed to apply keys to local cache : {}", cacheName, e);
+        }
     }
 
     /**
      * 清理缓存消息
      */
     private void trimCacheMessages() {
+        for (String streamKey : subscribedStreams().keySet()) {
+            trimCacheMessages(streamKey);
+        }
+    }
+
+    /**
+     * 清理指定流的缓存消息
+     *
+     * @param streamKey 流键名
+     */
+    private void trimCacheMessages(String streamKey) {
         DistributedLock distributedLock = new DistributedLock(redisTemplate);
         // 生成唯一value（防止释放其他线程的锁）
         String lockValue = UUID.randomUUID().toString();
         boolean locked = false;
         try {
-            locked = distributedLock.tryLock(STREAM_KEY+"-lock", lockValue, Duration.ofMillis(2000));
+            locked = distributedLock.tryLock(streamKey+"-lock", lockValue, Duration.ofMillis(2000));
             if(!locked) return;
             StreamOperations<String, String, CacheMessage> streamOps = redisTemplate.opsForStream();
-            streamOps.trim(STREAM_KEY,easyCacheProperties.getCacheMessageSize(),true);
-            logger.debug("succeed to trim cache messages");
+            streamOps.trim(streamKey,easyCacheProperties.getCacheMessageSize(),true);
+            logger.debug("succeed to trim cache messages: {}", streamKey);
         }catch (Exception ex){
             logger.error("failed to trim cache message",ex);
         } finally {
-            if(locked) distributedLock.unlock(STREAM_KEY+"-lock");
+            if(locked) distributedLock.unlock(streamKey+"-lock");
         }
     }
 
@@ -1,8 +1,12 @@
 package com.example.easycache.core;
 
 
+import java.io.Closeable;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * 缓存接口
@@ -11,7 +15,7 @@ import java.util.Set;
  * @param <K> 键类型
  * @param <V> 值类型
  */
-public interface Cache<K, V> {
+public interface Cache<K, V> extends Closeable {
 
     /**
      * 根据键获取缓存值
@@ -31,6 +35,18 @@ public interface Cache<K, V> {
      */
     Map<K, V> getAll(Set<K> keys) throws CacheInvokeException;
 
+    /**
+     * 批量获取缓存值，值在第一次访问时才解码
+     * <p>适合只判断是否命中或只使用部分结果的大批量查询，不支持延迟解码的实现与{@link #getAll(Set)}相同</p>
+     *
+     * @param keys 键集合
+     * @return 键值对映射，与HashMap一样不是线程安全的
+     * @throws CacheInvokeException 缓存调用异常
+     */
+    default Map<K, V> getAllLazy(Set<K> keys) throws CacheInvokeException {
+        return getAll(keys);
+    }
+
     /**
      * 添加缓存
      *
@@ -61,6 +77,67 @@ public interface Cache<K, V> {
      */
     void removeAll(Set<K> keys);
 
+    /**
+     * 键不存在时计算并写入值
+     * <p>缓存中不存在时先通过配置的缓存加载器读取当前值，都不存在时才调用计算函数，没有配置加载器时可以代替加载器为单次调用指定加载逻辑。
+     * 键存在时直接返回已有的值，计算结果为null时不写入</p>
+     * <p>默认实现先读取再写入，不是原子的，内置的缓存实现覆盖为原子操作</p>
+     *
+     * @param key 键
+     * @param mappingFunction 计算函数
+     * @return 已有的值或计算的值
+     * @throws CacheException 并发更新导致多次重试后仍未成功
+     */
+    default V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        V value = get(key);
+        if (value != null) return value;
+        value = mappingFunction.apply(key);
+        if (value != null) put(key, value);
+        return value;
+    }
+
+    /**
+     * 根据当前值原子地计算新值
+     * <p>当前值不存在或为空值对象时传入null，计算结果为null时移除键。远程缓存使用比较并交换写入，
+     * 与其他节点并发更新时重新读取当前值后重试，计算函数可能被调用多次，不应有副作用</p>
+     * <p>默认实现先读取再写入，不是原子的，内置的缓存实现覆盖为原子操作</p>
+     *
+     * @param key 键
+     * @param remappingFunction 计算函数
+     * @return 新值，移除时返回null
+     * @throws CacheException 并发更新导致多次重试后仍未成功
+     */
+    default V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        V old = get(key);
+        V value = remappingFunction.apply(key, old);
+        if (value == old) return value;
+        if (value == null) {
+            remove(key);
+        } else {
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * 把值与当前值原子地合并
+     * <p>当前值不存在时写入给定的值，否则写入合并函数的结果，结果为null时移除键</p>
+     * <p>默认实现基于{@link #compute(Object, BiFunction)}</p>
+     *
+     * @param key 键
+     * @param value 值，不能为null
+     * @param remappingFunction 合并函数，参数为当前值和给定的值
+     * @return 新值，移除时返回null
+     * @throws CacheException 并发更新导致多次重试后仍未成功
+     */
+    default V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remappingFunction);
+        return compute(key, (k, old) -> old == null ? value : remappingFunction.apply(old, value));
+    }
+
     /**
      * 获取缓存配置
      *
@@ -68,4 +145,12 @@ public interface Cache<K, V> {
      */
     CacheConfig<K,V> config();
 
+    /**
+     * 关闭缓存，释放占用的资源（如堆外内存）
+     * <p>关闭后读取返回null，写入被忽略，重复关闭不产生影响。默认不需要释放资源</p>
+     */
+    @Override
+    default void close() {
+    }
+
 }
@@ -2,6 +2,7 @@
 package com.example.easycache.core;
 
 import java.time.Duration;
+import java.util.Map;
 import java.util.function.Function;
 
 /**
@@ -49,6 +50,54 @@ public class CacheConfig<K,V> {
     /** 缓冲区释放延迟时间 */
     protected Long bufReleaseDelay;
 
+    /** 随失效消息广播的值的最大字节数 */
+    protected Integer syncValueMaxSize;
+    /** 注册到Kryo类注册表的值类型 */
+    protected Map<Integer, Class<?>> registeredClasses;
+    /** 值压缩类型 */
+    protected CompressionType compressionType;
+    /** 值压缩阈值 */
+    protected Integer compressionThreshold;
+    /** 值压缩级别 */
+    protected Integer compressionLevel;
+    /** Zstd压缩字典 */
+    protected byte[] compressionDictionary;
+    /** 热点对象缓存的最大条目数 */
+    protected Integer hotLimit;
+    /** 远程缓存单键读取的批量上限，为null时不合并 */
+    protected Integer remoteBatchSize;
+    /** 远程缓存单键读取的合并等待窗口 */
+    protected Duration remoteBatchWindow;
+    /** 加载器单键加载的批量上限，为null时不合并 */
+    protected Integer loaderBatchSize;
+    /** 加载器单键加载的合并等待窗口 */
+    protected Duration loaderBatchWindow;
+    /** 异步加载器的加载超时，为null时不限制 */
+    protected Duration loadTimeout;
+    /** 异步加载器的并发上限，为null时不限制 */
+    protected Integer loadConcurrency;
+    /** 异步加载器旧值的保留时间，为null时不回退 */
+    protected Duration staleTtl;
+    /** 已存在键的布隆过滤器的预期键数量，为null时不使用过滤器 */
+    protected Integer bloomFilterKeys;
+    /** 已存在键的布隆过滤器的误判率 */
+    protected Double bloomFilterFpp;
+    /** 是否把空值写入远程缓存 */
+    protected Boolean remoteNullValue;
+    /** 延迟写队列的容量，为null时同步写入远程缓存 */
+    protected Integer writeBehindCapacity;
+    /** 延迟写队列的刷新周期 */
+    protected Duration writeBehindDelay;
+    /** 缓存写入器，为null时不同步到数据源 */
+    protected CacheWriter<K,V> writer;
+    /** 缓存写入器的异步队列容量，为null时同步写入数据源 */
+    protected Integer writerQueueCapacity;
+    /** 缓存写入器异步队列的刷新周期 */
+    protected Duration writerDelay;
+    /** 延迟写队列已满时写入线程的最长等待时间 */
+    protected Duration writeBehindTimeout;
+    /** 缓存写入器的异步队列已满时写入线程的最长等待时间 */
+    protected Duration writerTimeout;
 
     protected CacheConfig() {
     }
@@ -139,4 +188,100 @@ public class CacheConfig<K,V> {
     public void setLocalExpireType(ExpireType localExpireType) {
         this.localExpireType = localExpireType;
     }
+
+    public Integer getSyncValueMaxSize() {
+        return syncValueMaxSize;
+    }
+
+    public Map<Integer, Class<?>> getRegisteredClasses() {
+        return registeredClasses;
+    }
+
+    public CompressionType getCompressionType() {
+        return compressionType;
+    }
+
+    public Integer getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public Integer getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public byte[] getCompressionDictionary() {
+        return compressionDictionary;
+    }
+
+    public Integer getHotLimit() {
+        return hotLimit;
+    }
+
+    public Integer getRemoteBatchSize() {
+        return remoteBatchSize;
+    }
+
+    public Duration getRemoteBatchWindow() {
+        return remoteBatchWindow;
+    }
+
+    public Integer getLoaderBatchSize() {
+        return loaderBatchSize;
+    }
+
+    public Duration getLoaderBatchWindow() {
+        return loaderBatchWindow;
+    }
+
+    public Duration getLoadTimeout() {
+        return loadTimeout;
+    }
+
+    public Integer getLoadConcurrency() {
+        return loadConcurrency;
+    }
+
+    public Duration getStaleTtl() {
+        return staleTtl;
+    }
+
+    public Integer getBloomFilterKeys() {
+        return bloomFilterKeys;
+    }
+
+    public Double getBloomFilterFpp() {
+        return bloomFilterFpp;
+    }
+
+    public Boolean getRemoteNullValue() {
+        return remoteNullValue;
+    }
+
+    public Integer getWriteBehindCapacity() {
+        return writeBehindCapacity;
+    }
+
+    public Duration getWriteBehindDelay() {
+        return writeBehindDelay;
+    }
+
+    public CacheWriter<K,V> getWriter() {
+        return writer;
+    }
+
+    public Integer getWriterQueueCapacity() {
+        return writerQueueCapacity;
+    }
+
+    public Duration getWriterDelay() {
+        return writerDelay;
+    }
+
+    public Duration getWriteBehindTimeout() {
+        return writeBehindTimeout;
+    }
+
+    public Duration getWriterTimeout() {
+        return writerTimeout;
+    }
 }
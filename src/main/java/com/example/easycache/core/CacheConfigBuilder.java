@@ -1,6 +1,9 @@
 package com.example.easycache.core;
 
 import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.function.Function;
 
@@ -48,6 +51,54 @@ public class CacheConfigBuilder<K,V> {
     private Boolean offHeap =false;
     /** 缓冲区释放延迟 */
     private Long bufReleaseDelay = 5000L;
+    /** 随失效消息广播的值的最大字节数 */
+    private Integer syncValueMaxSize;
+    /** 注册到Kryo类注册表的值类型 */
+    private final Map<Integer, Class<?>> registeredClasses = new LinkedHashMap<>();
+    /** 值压缩类型 */
+    private CompressionType compressionType;
+    /** 值压缩阈值 */
+    private Integer compressionThreshold;
+    /** 值压缩级别 */
+    private Integer compressionLevel;
+    /** Zstd压缩字典 */
+    private byte[] compressionDictionary;
+    /** 热点对象缓存的最大条目数 */
+    private Integer hotLimit;
+    /** 远程缓存单键读取的批量上限，为null时不合并 */
+    private Integer remoteBatchSize;
+    /** 远程缓存单键读取的合并等待窗口 */
+    private Duration remoteBatchWindow = Duration.ofNanos(200_000);
+    /** 加载器单键加载的批量上限，为null时不合并 */
+    private Integer loaderBatchSize;
+    /** 加载器单键加载的合并等待窗口 */
+    private Duration loaderBatchWindow = Duration.ofMillis(1);
+    /** 异步加载器的加载超时，为null时不限制 */
+    private Duration loadTimeout;
+    /** 异步加载器的并发上限，为null时不限制 */
+    private Integer loadConcurrency;
+    /** 异步加载器旧值的保留时间，为null时不回退 */
+    private Duration staleTtl;
+    /** 已存在键的布隆过滤器的预期键数量，为null时不使用过滤器 */
+    private Integer bloomFilterKeys;
+    /** 已存在键的布隆过滤器的误判率 */
+    private Double bloomFilterFpp = 0.01;
+    /** 是否把空值写入远程缓存 */
+    private Boolean remoteNullValue = false;
+    /** 延迟写队列的容量，为null时同步写入远程缓存 */
+    private Integer writeBehindCapacity;
+    /** 延迟写队列的刷新周期 */
+    private Duration writeBehindDelay = Duration.ofMillis(100);
+    /** 缓存写入器，为null时不同步到数据源 */
+    private CacheWriter<K,V> writer;
+    /** 缓存写入器的异步队列容量，为null时同步写入数据源 */
+    private Integer writerQueueCapacity;
+    /** 缓存写入器异步队列的刷新周期 */
+    private Duration writerDelay = Duration.ofMillis(100);
+    /** 延迟写队列已满时写入线程的最长等待时间 */
+    private Duration writeBehindTimeout = Duration.ofSeconds(5);
+    /** 缓存写入器的异步队列已满时写入线程的最长等待时间 */
+    private Duration writerTimeout = Duration.ofSeconds(5);
 
     /**
      * 构造函数
@@ -84,6 +135,51 @@ public class CacheConfigBuilder<K,V> {
         c.localCacheType = localCacheType==null ? LocalCacheType.CAFFEINE : localCacheType;
         c.offHeap = offHeap;
         c.bufReleaseDelay = bufReleaseDelay;
+        c.syncValueMaxSize = syncValueMaxSize;
+        c.registeredClasses = Collections.unmodifiableMap(new LinkedHashMap<>(registeredClasses));
+        c.compressionType = compressionType;
+        c.compressionThreshold = compressionThreshold;
+        c.compressionLevel = compressionLevel;
+        c.compressionDictionary = compressionDictionary;
+        if (compressionType != null) {
+            if (compressionType != CompressionType.NONE) {
+                c.valueEncoder = new CompressingValueEncoder(c.valueEncoder, compressionType, compressionLevel,
+                        compressionDictionary, compressionThreshold);
+            }
+            c.valueDecoder = new CompressingValueDecoder(c.valueDecoder, compressionDictionary);
+        }
+        c.hotLimit = hotLimit;
+        c.remoteBatchSize = remoteBatchSize;
+        c.remoteBatchWindow = remoteBatchWindow;
+        c.loaderBatchSize = loaderBatchSize;
+        c.loaderBatchWindow = loaderBatchWindow;
+        c.loadTimeout = loadTimeout;
+        c.loadConcurrency = loadConcurrency;
+        c.staleTtl = staleTtl;
+        if (bloomFilterKeys != null && (cacheType == CacheType.REMOTE || !Boolean.TRUE.equals(syncLocal))) {
+            // 其他节点写入的键只能通过本地缓存的同步消息加入过滤器，收不到消息时过滤器会漏掉已存在的键
+            throw new CacheException("bloomFilterKeys requires a local cache with syncLocal enabled: " + name);
+        }
+        c.bloomFilterKeys = bloomFilterKeys;
+        c.bloomFilterFpp = bloomFilterFpp;
+        c.remoteNullValue = remoteNullValue;
+        if (Boolean.TRUE.equals(remoteNullValue)) {
+            if (cacheNullValue == null) {
+                throw new CacheException("remoteNullValue requires cacheNullValue: " + name);
+            }
+            // 空值标记在压缩之外处理，不会被压缩，读取时也不需要解压
+            c.valueEncoder = new NullValueEncoder(c.valueEncoder, cacheNullValue);
+            c.valueDecoder = new NullValueDecoder(c.valueDecoder, cacheNullValue);
+        }
+        c.writeBehindCapacity = writeBehindCapacity;
+        c.writeBehindDelay = writeBehindDelay;
+        c.writeBehindTimeout = writeBehindTimeout;
+        c.writer = writer;
+        c.writerQueueCapacity = writerQueueCapacity;
+        c.writerDelay = writerDelay;
+        c.writerTimeout = writerTimeout;
+        //校验全部通过后才占用注册表中的类ID，校验失败的配置不影响之后的配置
+        KryoClassRegistry.registerAll(c.registeredClasses);
         return c;
     }
 
@@ -259,4 +355,296 @@ public class CacheConfigBuilder<K,V> {
         return this;
     }
 
-}
\ No newline at end of file
+    /**
+     * 设置随失效消息广播的值的最大字节数
+     * <p>值编码后不超过该大小时随消息一起广播，其他节点直接更新本地缓存，不需要再读取Redis</p>
+     *
+     * @param syncValueMaxSize 最大字节数，为null时只广播失效
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> syncValueMaxSize(Integer syncValueMaxSize) {
+        this.syncValueMaxSize = syncValueMaxSize;
+        return this;
+    }
+
+    /**
+     * 注册值类型到Kryo类注册表
+     * <p>注册后Kryo编码时写入类ID而不是完整类名，ID在所有节点上必须一致，未注册的类仍按类名编码。
+     * 构建配置时注册，ID冲突时抛出异常</p>
+     *
+     * @param id 类ID，不小于{@link KryoClassRegistry#MIN_ID}
+     * @param type 值类型
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> registerClass(int id, Class<?> type) {
+        Objects.requireNonNull(type);
+        this.registeredClasses.put(id, type);
+        return this;
+    }
+
+    /**
+     * 设置值压缩类型
+     * <p>压缩作用于写入Redis和堆外内存的值，为null时不压缩也不识别压缩格式。设置为NONE时不再压缩但仍能读取已压缩的值，用于关闭压缩
+     *
+     * @param compressionType 压缩类型
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> compressionType(CompressionType compressionType) {
+        this.compressionType = compressionType;
+        return this;
+    }
+
+    /**
+     * 设置值压缩阈值
+     * <p>编码后小于该字节数的值不压缩
+     *
+     * @param compressionThreshold 压缩阈值，为null时使用默认阈值
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> compressionThreshold(Integer compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+        return this;
+    }
+
+    /**
+     * 设置值压缩级别
+     * <p>LZ4设置后使用高压缩率模式，Zstd为压缩级别
+     *
+     * @param compressionLevel 压缩级别，为null时使用默认级别
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> compressionLevel(Integer compressionLevel) {
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    /**
+     * 设置Zstd压缩字典
+     * <p>使用预先训练的字典压缩，更换字典后已写入的值无法读取，需要同时更换缓存名称
+     *
+     * @param compressionDictionary 字典内容
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> compressionDictionary(byte[] compressionDictionary) {
+        this.compressionDictionary = compressionDictionary;
+        return this;
+    }
+
+    /**
+     * 设置热点对象缓存的最大条目数
+     * <p>堆外本地缓存前面保存访问最频繁的键解码后的对象，命中时不需要反序列化，为null或0时不启用
+     *
+     * @param hotLimit 最大条目数
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> hotLimit(Integer hotLimit) {
+        this.hotLimit = hotLimit;
+        return this;
+    }
+
+    /**
+     * 设置远程缓存单键读取的批量上限
+     * <p>开启后并发的单键读取在等待窗口内合并为一次MGET，窗口内请求数达到上限时立即执行</p>
+     *
+     * @param remoteBatchSize 批量上限，为null时不合并
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> remoteBatchSize(Integer remoteBatchSize) {
+        this.remoteBatchSize = remoteBatchSize;
+        return this;
+    }
+
+    /**
+     * 设置远程缓存单键读取的合并等待窗口
+     * <p>为0时不等待，只合并上一次MGET执行期间到达的读取</p>
+     *
+     * @param remoteBatchWindow 等待窗口
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> remoteBatchWindow(Duration remoteBatchWindow) {
+        this.remoteBatchWindow = remoteBatchWindow;
+        return this;
+    }
+
+    /**
+     * 设置加载器单键加载的批量上限
+     * <p>开启后并发的单键未命中在等待窗口内合并为一次{@link CacheLoader#loadAll(java.util.Set)}调用，窗口内请求数达到上限时立即执行</p>
+     *
+     * @param loaderBatchSize 批量上限，为null时不合并
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> loaderBatchSize(Integer loaderBatchSize) {
+        this.loaderBatchSize = loaderBatchSize;
+        return this;
+    }
+
+    /**
+     * 设置加载器单键加载的合并等待窗口
+     * <p>为0时不等待，只合并上一次批量加载执行期间到达的请求</p>
+     *
+     * @param loaderBatchWindow 等待窗口
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> loaderBatchWindow(Duration loaderBatchWindow) {
+        this.loaderBatchWindow = loaderBatchWindow;
+        return this;
+    }
+
+    /**
+     * 设置异步加载器的加载超时
+     * <p>仅对{@link AsyncCacheLoader}生效，请求线程最多等待该时间，超时后抛出{@link CacheInvokeException}或返回旧值</p>
+     *
+     * @param loadTimeout 加载超时，为null时不限制
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> loadTimeout(Duration loadTimeout) {
+        this.loadTimeout = loadTimeout;
+        return this;
+    }
+
+    /**
+     * 设置异步加载器的并发上限
+     * <p>仅对{@link AsyncCacheLoader}生效，进行中的加载达到上限时新的加载立即失败，不占用请求线程排队</p>
+     *
+     * @param loadConcurrency 并发上限，为null时不限制
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> loadConcurrency(Integer loadConcurrency) {
+        this.loadConcurrency = loadConcurrency;
+        return this;
+    }
+
+    /**
+     * 设置异步加载器旧值的保留时间
+     * <p>仅对{@link AsyncCacheLoader}生效，加载失败、超时或超过并发上限时返回保留时间内最近一次加载成功的值，旧值不会写回缓存</p>
+     *
+     * @param staleTtl 保留时间，为null时不回退
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> staleTtl(Duration staleTtl) {
+        this.staleTtl = staleTtl;
+        return this;
+    }
+
+    /**
+     * 设置已存在键的布隆过滤器的预期键数量
+     * <p>开启后本地缓存未命中时先查询过滤器，一定不存在的键直接返回null，不访问Redis和加载器。过滤器重建或从快照恢复前不过滤，见{@link KeyBloomFilter}</p>
+     * <p>其他节点写入的键通过本地缓存的同步消息加入过滤器，只能用于有本地缓存且开启同步的缓存</p>
+     *
+     * @param bloomFilterKeys 预期键数量，为null时不使用过滤器
+     * @return this
+     * @see #syncLocal(Boolean)
+     */
+    public CacheConfigBuilder<K,V> bloomFilterKeys(Integer bloomFilterKeys) {
+        this.bloomFilterKeys = bloomFilterKeys;
+        return this;
+    }
+
+    /**
+     * 设置已存在键的布隆过滤器的误判率
+     *
+     * @param bloomFilterFpp 误判率
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> bloomFilterFpp(Double bloomFilterFpp) {
+        this.bloomFilterFpp = bloomFilterFpp;
+        return this;
+    }
+
+    /**
+     * 设置是否把空值写入远程缓存
+     * <p>开启后加载器返回null时，远程缓存写入1字节的空值标记，过期时间使用空值过期时间，所有节点读到后还原为空值对象，不再重复访问数据源。需要同时配置空值对象</p>
+     *
+     * @param remoteNullValue 是否写入远程缓存
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> remoteNullValue(Boolean remoteNullValue) {
+        this.remoteNullValue = remoteNullValue;
+        return this;
+    }
+
+    /**
+     * 设置延迟写队列的容量
+     * <p>开启后写入和删除立即更新本地缓存，远程缓存的写入按键合并后由后台任务分批写入，待写入的键数达到容量时写入线程等待。仅在同时使用本地缓存和远程缓存时生效</p>
+     *
+     * @param writeBehindCapacity 队列容量，为null时同步写入
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> writeBehindCapacity(Integer writeBehindCapacity) {
+        this.writeBehindCapacity = writeBehindCapacity;
+        return this;
+    }
+
+    /**
+     * 设置延迟写队列的刷新周期
+     * <p>待写入的键数达到一批时立即刷新，不等待周期</p>
+     *
+     * @param writeBehindDelay 刷新周期
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> writeBehindDelay(Duration writeBehindDelay) {
+        this.writeBehindDelay = writeBehindDelay;
+        return this;
+    }
+
+    /**
+     * 设置延迟写队列已满时写入线程的最长等待时间
+     * <p>远程缓存不可用时刷新持续失败，超时后写入和删除抛出{@link CacheException}，写入的值不保留在本地缓存</p>
+     *
+     * @param writeBehindTimeout 最长等待时间
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> writeBehindTimeout(Duration writeBehindTimeout) {
+        this.writeBehindTimeout = writeBehindTimeout;
+        return this;
+    }
+
+    /**
+     * 设置缓存写入器
+     * <p>写入和删除缓存时同步到数据源，加载器加载的值不会写回数据源</p>
+     *
+     * @param writer 缓存写入器
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> writer(CacheWriter<K,V> writer) {
+        this.writer = writer;
+        return this;
+    }
+
+    /**
+     * 设置缓存写入器的异步队列容量
+     * <p>开启后先更新缓存，数据源的写入和删除按键合并后由后台任务分批调用{@link CacheWriter#writeAll(java.util.Map)}和{@link CacheWriter#deleteAll(java.util.Set)}，失败的批次重试，待写入的键数达到容量时写入线程等待</p>
+     *
+     * @param writerQueueCapacity 队列容量，为null时同步写入
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> writerQueueCapacity(Integer writerQueueCapacity) {
+        this.writerQueueCapacity = writerQueueCapacity;
+        return this;
+    }
+
+    /**
+     * 设置缓存写入器异步队列的刷新周期
+     * <p>待写入的键数达到一批时立即刷新，不等待周期</p>
+     *
+     * @param writerDelay 刷新周期
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> writerDelay(Duration writerDelay) {
+        this.writerDelay = writerDelay;
+        return this;
+    }
+
+    /**
+     * 设置缓存写入器的异步队列已满时写入线程的最长等待时间
+     * <p>数据源不可用时刷新持续失败，超时后写入和删除抛出{@link CacheException}</p>
+     *
+     * @param writerTimeout 最长等待时间
+     * @return this
+     */
+    public CacheConfigBuilder<K,V> writerTimeout(Duration writerTimeout) {
+        this.writerTimeout = writerTimeout;
+        return this;
+    }
+
+}
@@ -1,12 +1,15 @@
 package com.example.easycache.core;
 
+import java.io.Closeable;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 缓存管理器接口
  * <p>负责缓存的创建、获取和管理</p>
  */
-public interface CacheManager {
+public interface CacheManager extends Closeable {
     /**
      * 根据缓存名称获取缓存实例
      *
@@ -27,13 +30,24 @@ public interface CacheManager {
      */
     <K, V> Cache<K, V> getOrCreateCache(CacheConfig<K,V> config);
 
+    /**
+     * 获取已创建的缓存名称
+     * <p>默认返回空集合，兼容没有实现该方法的外部实现</p>
+     *
+     * @return 缓存名称集合
+     */
+    default Set<String> getCacheNames() {
+        return Collections.emptySet();
+    }
+
     /**
      * 批量获取多个缓存的值
+     * <p>响应与请求一一对应，顺序相同，每个响应的键值对类型与对应请求一致</p>
      *
      * @param requests 批量请求集合
      * @return 批量响应集合
      */
-    List<BatchResponse> multiGet(List<BatchRequest> requests);
+    List<BatchResponse<?, ?>> multiGet(List<? extends BatchRequest<?, ?>> requests);
 
     /**
      * 设置广播管理器，用于集群间的缓存同步
@@ -41,4 +55,12 @@ public interface CacheManager {
      * @param broadcastManager 广播管理器
      */
     void setBroadcastManager(BroadcastManager broadcastManager);
+
+    /**
+     * 关闭缓存管理器，停止广播订阅并关闭所有缓存
+     * <p>默认不做任何操作，兼容没有实现该方法的外部实现</p>
+     */
+    @Override
+    default void close() {
+    }
 }
@@ -30,6 +30,12 @@ public class CacheMessage implements Serializable {
     /** 键数组 */
     private String[] keys;
 
+    /** 消息版本，用于拒绝过期的本地回填 */
+    private long version;
+
+    /** 与键数组一一对应的编码后的值，为null表示只失效不更新 */
+    private byte[][] values;
+
     public int getType() {
         return type;
     }
@@ -61,4 +67,20 @@ public class CacheMessage implements Serializable {
     public void setSourceId(String sourceId) {
         this.sourceId = sourceId;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public byte[][] getValues() {
+        return values;
+    }
+
+    public void setValues(byte[][] values) {
+        this.values = values;
+    }
 }
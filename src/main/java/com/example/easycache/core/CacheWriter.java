@@ -0,0 +1,55 @@
+package com.example.easycache.core;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 缓存写入器接口
+ * <p>用于把缓存的写入和删除同步到数据源，与{@link CacheLoader}一起实现读写穿透。
+ * 同步模式下先写入数据源再更新缓存，写入失败时缓存不变；异步模式下先更新缓存，写入按键合并后分批调用批量方法</p>
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public interface CacheWriter<K, V> {
+    /**
+     * 写入单个值
+     *
+     * @param key 键
+     * @param value 值
+     * @throws Throwable 写入异常
+     */
+    void write(K key, V value) throws Throwable;
+
+    /**
+     * 批量写入值
+     *
+     * @param map 键值对映射
+     * @throws Throwable 写入异常
+     */
+    default void writeAll(Map<K, V> map) throws Throwable {
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            write(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 删除单个键
+     *
+     * @param key 键
+     * @throws Throwable 删除异常
+     */
+    void delete(K key) throws Throwable;
+
+    /**
+     * 批量删除键
+     *
+     * @param keys 键集合
+     * @throws Throwable 删除异常
+     */
+    default void deleteAll(Set<K> keys) throws Throwable {
+        for (K key : keys) {
+            delete(key);
+        }
+    }
+}
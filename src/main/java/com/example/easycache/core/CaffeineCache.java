@@ -165,5 +165,13 @@ public class CaffeineCache<K, V> extends AbstractCache<K, V> {
         caffineCache.invalidateAll(keys);
     }
 
+    /**
+     * 清空缓存
+     */
+    @Override
+    protected void do_CLEAR() {
+        caffineCache.invalidateAll();
+    }
+
 
 }
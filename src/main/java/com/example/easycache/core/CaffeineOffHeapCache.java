@@ -6,9 +6,6 @@ import io.netty.buffer.ByteBuf;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.DelayQueue;
-import java.util.concurrent.Delayed;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Caffeine堆外缓存实现
@@ -19,45 +16,15 @@ import java.util.concurrent.TimeUnit;
  */
 public class CaffeineOffHeapCache<K, V> extends AbstractCache<K, V> {
 
-    /**
-     * 延迟ByteBuf任务
-     * <p>用于延迟释放ByteBuf资源</p>
-     */
-    public static class DelayedByteBufTask implements Delayed {
-        private final long executeTime; // 任务执行时间戳
-        private final ByteBuf buf;      // 待处理的ByteBuf数据
-
-        public DelayedByteBufTask(ByteBuf buf, long delay, TimeUnit unit) {
-            this.buf = buf;
-            this.executeTime = System.currentTimeMillis() + unit.toMillis(delay);
-        }
-
-        // 获取剩余延迟时间
-        @Override
-        public long getDelay(TimeUnit unit) {
-            long remaining = executeTime - System.currentTimeMillis();
-            return unit.convert(remaining, TimeUnit.MILLISECONDS);
-        }
-
-        // 用于DelayedQueue排序
-        @Override
-        public int compareTo(Delayed o) {
-            return Long.compare(this.executeTime, ((DelayedByteBufTask) o).executeTime);
-        }
-
-        // 释放ByteBuf资源
-        public void release() {
-            NettyMemoryPool.releaseBuffer( buf);
-        }
-    }
-
-    DelayQueue<DelayedByteBufTask> delayQueue = new DelayQueue<>();
-
     private final com.github.benmanes.caffeine.cache.Cache<String, ByteBuf> caffineCache;
-    private final java.util.concurrent.ScheduledExecutorService cleanupExecutor;
+    /** 堆外缓冲区延迟释放器 */
+    final OffHeapReclaimer reclaimer;
+    /** 热点对象缓存，未启用时为null */
+    private final HotObjectCache hotCache;
 
     public CaffeineOffHeapCache(CacheConfig<K, V> config) {
         super(config);
+        reclaimer = OffHeapReclaimer.shared();
         Caffeine<Object, Object> caffeine = Caffeine.newBuilder()
                 .maximumSize(config.getLocalLimit() == null ? CacheConstants.DEFAULT_LOCAL_LIMIT : config.getLocalLimit());
         long cacheTTL = config.localExpire != null ?config.localExpire.toNanos():Long.MAX_VALUE;
@@ -104,41 +71,26 @@ public class CaffeineOffHeapCache<K, V> extends AbstractCache<K, V> {
             }
         };
         caffeine.expireAfter(customExpiry);
+        // 在调用线程上执行删除回调，关闭时invalidateAll返回后所有缓冲区都已交给延迟释放器
+        caffeine.executor(Runnable::run);
         caffeine.removalListener((key, buf, cause) -> {
             // 缓存淘汰时释放堆外缓冲区
-            delayQueue.add(new DelayedByteBufTask((ByteBuf) buf,config.bufReleaseDelay,TimeUnit.MILLISECONDS));
+            reclaimer.release((ByteBuf) buf, config.bufReleaseDelay, this);
         });
         caffineCache = caffeine.build();
-
-        // 创建专用的清理线程执行器，不使用共享的defaultExecutor
-        cleanupExecutor = java.util.concurrent.Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread t = new Thread(r, "CaffeineOffHeapCache-Cleanup-" + config.getName());
-            t.setDaemon(true);
-            return t;
-        });
-        cleanupExecutor.submit(()->{
-            try {
-                while (!Thread.currentThread().isInterrupted()) {
-                    DelayedByteBufTask task = delayQueue.take(); // 阻塞直到有到期任务
-                    task.release(); // 确保释放ByteBuf
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        });
+        hotCache = HotObjectCache.create(config);
     }
 
     @Override
     protected V do_GET(K key, String newKey) {
-        V result = null;
-        ByteBuf bufDuplicate = null;
-        ByteBuf buf = caffineCache.getIfPresent(newKey);
+        if (hotCache != null) return (V) hotCache.get(newKey, this::read, k -> caffineCache.getIfPresent(k) != null);
+        return read(newKey);
+    }
+
+    private V read(String key) {
+        ByteBuf buf = caffineCache.getIfPresent(key);
         if (buf == null || buf.refCnt() <= 0) return null;
-        bufDuplicate = buf.duplicate();
-        byte[] bytes = new byte[bufDuplicate.readableBytes()];
-        bufDuplicate.readBytes(bytes);
-        result = (V) Kryo5ValueDecoder.INSTANCE.doApply(bytes);
-        return result;
+        return fromByteBuf(buf);
     }
 
     @Override
@@ -148,15 +100,7 @@ public class CaffeineOffHeapCache<K, V> extends AbstractCache<K, V> {
         for (Map.Entry<String, K> entry : KeyMap.entrySet()) {
             String key = entry.getKey();
             K originalKey = entry.getValue();
-            V result = null;
-            ByteBuf buf = caffineCache.getIfPresent(key);
-            if (buf != null && buf.refCnt() > 0) {
-                ByteBuf bufDuplicate = buf.duplicate();
-                byte[] bytes = new byte[bufDuplicate.readableBytes()];
-                bufDuplicate.readBytes(bytes);
-                result = (V) Kryo5ValueDecoder.INSTANCE.doApply(bytes);
-            }
-            resultMap.put(originalKey, result);
+            resultMap.put(originalKey, do_GET(originalKey, key));
         }
         return resultMap;
     }
@@ -165,6 +109,7 @@ public class CaffeineOffHeapCache<K, V> extends AbstractCache<K, V> {
     protected void do_PUT(String key, V value) {
         ByteBuf buf = toByteBuf(value);
         caffineCache.put(key, buf);
+        if (hotCache != null) hotCache.invalidate(key);
     }
 
     @Override
@@ -179,13 +124,26 @@ public class CaffeineOffHeapCache<K, V> extends AbstractCache<K, V> {
             }
         });
         if (!notNullMap.isEmpty()) caffineCache.putAll(notNullMap);
-        if (nullValueMap.isEmpty()) return;
-        caffineCache.putAll(nullValueMap);
+        if (!nullValueMap.isEmpty()) caffineCache.putAll(nullValueMap);
+        if (hotCache != null) hotCache.invalidateAll(map.keySet());
+    }
+
+    private V fromByteBuf(ByteBuf buf) {
+        if (valueDecoder instanceof AbstractValueDecoder) {
+            // 直接从堆外缓冲区的视图解码，不拷贝到堆内
+            return (V) ((AbstractValueDecoder) valueDecoder).decode(buf.nioBuffer());
+        }
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.getBytes(buf.readerIndex(), bytes);
+        return (V) valueDecoder.apply(bytes);
     }
 
     private ByteBuf toByteBuf(V value) {
-        byte[] bytes = Kryo5ValueEncoder.INSTANCE.apply(value);
-        // 从内存池分配堆外缓冲区
+        if (valueEncoder instanceof Kryo5ValueEncoder) {
+            // 直接编码到从内存池分配的堆外缓冲区
+            return ((Kryo5ValueEncoder) valueEncoder).encodeToDirectBuffer(value);
+        }
+        byte[] bytes = valueEncoder.apply(value);
         ByteBuf buf = NettyMemoryPool.allocateDirectBuffer(bytes.length);
         buf.writeBytes(bytes);
         return buf;
@@ -195,12 +153,30 @@ public class CaffeineOffHeapCache<K, V> extends AbstractCache<K, V> {
     protected boolean do_REMOVE(String key) {
         boolean keyExist = caffineCache.getIfPresent(key) != null;
         caffineCache.invalidate(key);
+        if (hotCache != null) hotCache.invalidate(key);
         return keyExist;
     }
 
     @Override
     protected void do_REMOVE_ALL(Set<String> keys) {
         caffineCache.invalidateAll(keys);
+        if (hotCache != null) hotCache.invalidateAll(keys);
+    }
+
+    @Override
+    protected void do_CLEAR() {
+        caffineCache.invalidateAll();
+        if (hotCache != null) hotCache.clear();
+    }
+
+    /**
+     * 清空索引，所有堆外缓冲区交给延迟释放器，到期后释放
+     */
+    @Override
+    protected void do_CLOSE() {
+        if (hotCache != null) hotCache.clear();
+        caffineCache.invalidateAll();
+        caffineCache.cleanUp();
     }
 }
 
@@ -0,0 +1,100 @@
+package com.example.easycache.core;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 压缩值解码器
+ * <p>根据首字节的格式头判断值是否被压缩，压缩的值先解压再交给被包装的解码器，未压缩的值直接解码</p>
+ */
+public class CompressingValueDecoder extends AbstractValueDecoder {
+
+    /** 被包装的解码器 */
+    private final Function<byte[], Object> delegate;
+
+    /** Zstd字典，为null时不能读取使用字典压缩的值 */
+    private final byte[] dictionary;
+
+    /** LZ4解压器，首次读取LZ4压缩的值时创建 */
+    private volatile ValueCompressor lz4;
+
+    /** Zstd解压器，首次读取Zstd压缩的值时创建 */
+    private volatile ValueCompressor zstd;
+
+    /** 使用字典的Zstd解压器，首次读取使用字典压缩的值时创建 */
+    private volatile ValueCompressor zstdDict;
+
+    /**
+     * 构造函数
+     *
+     * @param delegate 被包装的解码器
+     * @param dictionary Zstd字典，为null时不使用字典
+     */
+    public CompressingValueDecoder(Function<byte[], Object> delegate, byte[] dictionary) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * 解压并解码字节数组
+     *
+     * @param buffer 字节数组
+     * @return 解码后的对象
+     */
+    @Override
+    protected Object doApply(byte[] buffer) {
+        if (buffer.length <= ValueCompressor.HEADER_SIZE || !ValueCompressor.isHeader(buffer[0])) {
+            return delegate.apply(buffer);
+        }
+        int length = ((buffer[1] & 0xFF) << 24) | ((buffer[2] & 0xFF) << 16) | ((buffer[3] & 0xFF) << 8) | (buffer[4] & 0xFF);
+        if (length < 0) {
+            throw new CacheEncodeException("invalid compressed length: " + length, null);
+        }
+        byte[] bytes = new byte[length];
+        decompressor(buffer[0]).decompress(buffer, ValueCompressor.HEADER_SIZE,
+                buffer.length - ValueCompressor.HEADER_SIZE, bytes);
+        return delegate.apply(bytes);
+    }
+
+    /**
+     * 解压并解码ByteBuffer
+     * <p>未压缩的值直接交给被包装的解码器读取缓冲区，压缩的值拷贝后解压</p>
+     *
+     * @param buffer 缓冲区，从当前位置读取到limit
+     * @return 解码后的对象
+     * @throws Exception 解码异常
+     */
+    @Override
+    protected Object doApply(ByteBuffer buffer) throws Exception {
+        boolean compressed = buffer.remaining() > ValueCompressor.HEADER_SIZE
+                && ValueCompressor.isHeader(buffer.get(buffer.position()));
+        if (!compressed && delegate instanceof AbstractValueDecoder) {
+            return ((AbstractValueDecoder) delegate).decode(buffer);
+        }
+        return super.doApply(buffer);
+    }
+
+    private ValueCompressor decompressor(byte header) {
+        switch (header) {
+            case ValueCompressor.LZ4:
+                if (lz4 == null) {
+                    lz4 = ValueCompressor.create(CompressionType.LZ4, null, null);
+                }
+                return lz4;
+            case ValueCompressor.ZSTD:
+                if (zstd == null) {
+                    zstd = ValueCompressor.create(CompressionType.ZSTD, null, null);
+                }
+                return zstd;
+            default:
+                if (dictionary == null) {
+                    throw new CacheEncodeException("zstd dictionary is not configured", null);
+                }
+                if (zstdDict == null) {
+                    zstdDict = ValueCompressor.create(CompressionType.ZSTD, null, dictionary);
+                }
+                return zstdDict;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.easycache.core;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 压缩值编码器
+ * <p>包装其他值编码器，编码结果达到阈值时压缩。压缩后没有变小的值保持原样写入，
+ * 由{@link CompressingValueDecoder}根据格式头区分，已写入的未压缩的值不受影响</p>
+ */
+public class CompressingValueEncoder extends AbstractValueEncoder {
+
+    /** 默认压缩阈值，小于该字节数的值不压缩 */
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    /** 被包装的编码器 */
+    private final Function<Object, byte[]> delegate;
+
+    /** 压缩器 */
+    private final ValueCompressor compressor;
+
+    /** 压缩阈值 */
+    private final int threshold;
+
+    /**
+     * 构造函数
+     *
+     * @param delegate 被包装的编码器
+     * @param type 压缩类型
+     * @param level 压缩级别，为null时使用默认级别
+     * @param dictionary Zstd字典，为null时不使用字典
+     * @param threshold 压缩阈值，为null时使用{@link #DEFAULT_THRESHOLD}
+     */
+    public CompressingValueEncoder(Function<Object, byte[]> delegate, CompressionType type, Integer level,
+                                   byte[] dictionary, Integer threshold) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.compressor = ValueCompressor.create(type, level, dictionary);
+        this.threshold = threshold == null ? DEFAULT_THRESHOLD : threshold;
+    }
+
+    /**
+     * 编码并压缩对象
+     *
+     * @param value 要编码的对象
+     * @return 编码后的字节数组
+     */
+    @Override
+    public byte[] apply(Object value) {
+        byte[] bytes = delegate.apply(value);
+        // 首字节与格式头相同的值必须压缩，否则读取时无法区分
+        boolean ambiguous = bytes.length > 0 && ValueCompressor.isHeader(bytes[0]);
+        if (bytes.length < threshold && !ambiguous) {
+            return bytes;
+        }
+        try {
+            byte[] dest = new byte[ValueCompressor.HEADER_SIZE + compressor.maxCompressedLength(bytes.length)];
+            int length = ValueCompressor.HEADER_SIZE + compressor.compress(bytes, dest, ValueCompressor.HEADER_SIZE);
+            if (length >= bytes.length && !ambiguous) {
+                return bytes;
+            }
+            dest[0] = compressor.header();
+            dest[1] = (byte) (bytes.length >>> 24);
+            dest[2] = (byte) (bytes.length >>> 16);
+            dest[3] = (byte) (bytes.length >>> 8);
+            dest[4] = (byte) bytes.length;
+            return Arrays.copyOf(dest, length);
+        } catch (Exception e) {
+            throw new CacheEncodeException("Compress error. " + "msg=" + e.getMessage(), e);
+        }
+    }
+
+}
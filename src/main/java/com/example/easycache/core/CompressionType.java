@@ -0,0 +1,14 @@
+package com.example.easycache.core;
+
+/**
+ * 值压缩类型枚举
+ * <p>定义写入Redis和堆外内存的值使用的压缩算法</p>
+ */
+public enum CompressionType {
+    /** 不压缩，仍然可以读取已压缩的值 */
+    NONE,
+    /** LZ4压缩，速度快，需要引入lz4-java */
+    LZ4,
+    /** Zstd压缩，压缩率高，支持字典，需要引入zstd-jni */
+    ZSTD
+}
@@ -1,22 +1,60 @@
 package com.example.easycache.core;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 缓存执行器
- * <p>提供默认的定时任务线程池</p>
+ * <p>提供默认的定时任务线程池和按用途划分的阻塞任务执行器。定时任务线程池只负责触发定时任务，
+ * 会阻塞的任务（流读取、异步加载、后台维护）交给对应用途的执行器，避免长期占用定时任务线程</p>
  */
 public class EasyCacheExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(EasyCacheExecutor.class);
+
+    /** 广播流读取 */
+    public static final String STREAM_READER = "stream-reader";
+    /** 异步加载 */
+    public static final String LOADER = "loader";
+    /** 后台维护，如清理广播流 */
+    public static final String MAINTENANCE = "maintenance";
+    /** 延迟写刷新 */
+    public static final String WRITE_BEHIND = "write-behind";
+
     /** 默认执行器 */
     protected volatile static ScheduledExecutorService defaultExecutor;
+    /** 解码线程池，用于并行解码大批量的值 */
+    private volatile static ForkJoinPool decodePool;
+    /** 按用途划分的阻塞任务执行器 */
+    private static final Map<String, InstrumentedExecutor> executors = new ConcurrentHashMap<>();
     /** 可重入锁 */
     private static final ReentrantLock reentrantLock = new ReentrantLock();
 
+    /** 阻塞任务的线程模型 */
+    private static volatile ExecutorType executorType = ExecutorType.PLATFORM;
+    /** 定时任务线程数 */
+    private static volatile int schedulerThreads = Math.min(2, Runtime.getRuntime().availableProcessors());
+    /** 使用平台线程时每种用途的最大线程数 */
+    private static volatile int maxBlockingThreads = 64;
+
     static {
         Runtime.getRuntime().addShutdownHook(new Thread() {
             @Override
@@ -24,13 +62,29 @@ public class EasyCacheExecutor {
                 if (defaultExecutor != null) {
                     defaultExecutor.shutdownNow();
                 }
+                executors.values().forEach(InstrumentedExecutor::shutdownNow);
+                if (decodePool != null) {
+                    decodePool.shutdownNow();
+                }
             }
         });
     }
 
+    /**
+     * 应用执行器配置
+     * <p>只影响之后创建的执行器，应在使用缓存前调用</p>
+     *
+     * @param properties 缓存配置属性
+     */
+    public static void configure(EasyCacheProperties properties) {
+        executorType = properties.getExecutorType();
+        schedulerThreads = properties.getSchedulerThreads();
+        maxBlockingThreads = properties.getMaxBlockingThreads();
+    }
+
     /**
      * 获取默认执行器
-     * <p>使用双重检查锁定确保单例</p>
+     * <p>使用双重检查锁定确保单例，只用于触发定时任务和执行短小的任务</p>
      *
      * @return 定时任务执行器
      */
@@ -41,26 +95,191 @@ public class EasyCacheExecutor {
         reentrantLock.lock();
         try{
             if (defaultExecutor == null) {
-                ThreadFactory tf = r -> {
-                    Thread t = new Thread(r, "EasyCacheDefaultExecutor");
+                defaultExecutor = new ScheduledThreadPoolExecutor(Math.max(1, schedulerThreads), threadFactory("EasyCacheDefaultExecutor"));
+            }
+        }finally {
+            reentrantLock.unlock();
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * 获取解码线程池
+     * <p>只执行CPU密集的解码任务，并行度为处理器数量，与公共ForkJoinPool隔离，避免与应用的并行流互相影响</p>
+     *
+     * @return 解码线程池
+     */
+    public static ForkJoinPool decodePool() {
+        if (decodePool != null) {
+            return decodePool;
+        }
+        reentrantLock.lock();
+        try {
+            if (decodePool == null) {
+                AtomicInteger counter = new AtomicInteger();
+                ClassLoader classLoader = EasyCacheExecutor.class.getClassLoader();
+                decodePool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+                    ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    t.setName("EasyCache-decode-" + counter.incrementAndGet());
                     t.setDaemon(true);
+                    t.setContextClassLoader(classLoader == null ? ClassLoader.getSystemClassLoader() : classLoader);
+                    return t;
+                }, null, false);
+            }
+        } finally {
+            reentrantLock.unlock();
+        }
+        return decodePool;
+    }
 
-                    ClassLoader classLoader = EasyCacheExecutor.class.getClassLoader();
-                    if (classLoader == null) {
-                        // This class was loaded by the Bootstrap ClassLoader,
-                        // so let's tie the thread's context ClassLoader to the System ClassLoader instead.
-                        classLoader = ClassLoader.getSystemClassLoader();
-                    }
-                    t.setContextClassLoader(classLoader);
+    /**
+     * 获取指定用途的阻塞任务执行器
+     * <p>每种用途一个执行器，使用虚拟线程时每个任务一个虚拟线程，否则使用有界的缓存线程池，线程数达到上限后拒绝新任务</p>
+     *
+     * @param purpose 用途名称
+     * @return 执行器
+     */
+    public static InstrumentedExecutor executor(String purpose) {
+        return executors.computeIfAbsent(purpose, EasyCacheExecutor::createExecutor);
+    }
 
-                    return t;
-                };
-                int coreSize = Math.min(4, Runtime.getRuntime().availableProcessors());
-                defaultExecutor = new ScheduledThreadPoolExecutor(coreSize, tf);
+    /**
+     * 获取已创建的阻塞任务执行器
+     *
+     * @return 用途名称到执行器的只读映射
+     */
+    public static Map<String, InstrumentedExecutor> executors() {
+        return Collections.unmodifiableMap(executors);
+    }
+
+    /**
+     * 按固定频率在指定用途的执行器上执行阻塞任务
+     * <p>定时任务线程只负责提交任务，上一次执行尚未结束时跳过本次执行</p>
+     *
+     * @param purpose 用途名称
+     * @param task 任务
+     * @param initialDelay 初始延迟
+     * @param period 执行周期
+     * @param unit 时间单位
+     * @return 定时任务
+     */
+    public static ScheduledFuture<?> scheduleBlocking(String purpose, Runnable task, long initialDelay, long period, TimeUnit unit) {
+        AtomicBoolean running = new AtomicBoolean();
+        Runnable guarded = () -> {
+            try {
+                task.run();
+            } finally {
+                running.set(false);
             }
-        }finally {
+        };
+        return defaultExecutor().scheduleAtFixedRate(() -> {
+            if (!running.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor(purpose).execute(guarded);
+            } catch (RejectedExecutionException ex) {
+                running.set(false);
+                logger.warn("{} executor rejected scheduled task", purpose);
+            }
+        }, initialDelay, period, unit);
+    }
+
+    /**
+     * 关闭所有执行器
+     * <p>正在执行的任务会被中断，之后再获取执行器时重新创建，用于应用上下文关闭或热加载时释放线程。
+     * 堆外缓冲区的延迟释放依赖默认执行器上的刻度任务，关闭后立即释放所有待释放的缓冲区，避免堆外内存泄漏</p>
+     */
+    public static void shutdown() {
+        reentrantLock.lock();
+        try {
+            if (defaultExecutor != null) {
+                defaultExecutor.shutdownNow();
+                defaultExecutor = null;
+            }
+            if (decodePool != null) {
+                decodePool.shutdownNow();
+                decodePool = null;
+            }
+        } finally {
             reentrantLock.unlock();
         }
-        return defaultExecutor;
+        executors.keySet().forEach(purpose -> executors.computeIfPresent(purpose, (k, executor) -> {
+            executor.shutdownNow();
+            return null;
+        }));
+        int released = OffHeapReclaimer.shutdownShared();
+        if (released > 0) logger.info("released {} pending off-heap buffers on shutdown", released);
+    }
+
+    /**
+     * 判断运行环境是否支持虚拟线程
+     *
+     * @return 是否支持
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VirtualThreads.AVAILABLE;
+    }
+
+    private static InstrumentedExecutor createExecutor(String purpose) {
+        String prefix = "EasyCache-" + purpose + "-";
+        if (executorType == ExecutorType.VIRTUAL) {
+            ExecutorService virtual = VirtualThreads.newExecutor(prefix);
+            if (virtual != null) {
+                return new InstrumentedExecutor(purpose, virtual, true);
+            }
+            logger.warn("virtual threads are not supported, {} executor falls back to platform threads", purpose);
+        }
+        ThreadPoolExecutor platform = new ThreadPoolExecutor(0, Math.max(1, maxBlockingThreads), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), threadFactory(prefix));
+        return new InstrumentedExecutor(purpose, platform, false);
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name.endsWith("-") ? name + counter.incrementAndGet() : name);
+            t.setDaemon(true);
+
+            ClassLoader classLoader = EasyCacheExecutor.class.getClassLoader();
+            if (classLoader == null) {
+                // This class was loaded by the Bootstrap ClassLoader,
+                // so let's tie the thread's context ClassLoader to the System ClassLoader instead.
+                classLoader = ClassLoader.getSystemClassLoader();
+            }
+            t.setContextClassLoader(classLoader);
+
+            return t;
+        };
+    }
+
+    /**
+     * 通过反射创建虚拟线程执行器，编译目标版本不包含虚拟线程API
+     */
+    private static final class VirtualThreads {
+        static final boolean AVAILABLE = probe();
+
+        static boolean probe() {
+            ExecutorService executor = newExecutor("EasyCache-probe-");
+            if (executor == null) {
+                return false;
+            }
+            executor.shutdown();
+            return true;
+        }
+
+        static ExecutorService newExecutor(String prefix) {
+            try {
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+                ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+                return (ExecutorService) Executors.class
+                        .getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+            } catch (ReflectiveOperationException | RuntimeException | LinkageError ex) {
+                // 低版本JDK没有该API，预览版本未启用预览特性时抛出异常
+                return null;
+            }
+        }
     }
 }
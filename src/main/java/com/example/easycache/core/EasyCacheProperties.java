@@ -21,6 +21,33 @@ public class EasyCacheProperties {
    /** 阻塞时长（毫秒） */
    private int blockDuration=2000;
 
+   /** 是否跨缓存并行应用失效消息 */
+   private boolean parallelApply=false;
+
+   /** 广播流分区类型 */
+   private StreamPartitionType streamPartitionType=StreamPartitionType.NONE;
+
+   /** 按键哈希分区时每个缓存的分区数 */
+   private int streamPartitions=4;
+
+   /** 订阅多个流时的轮询间隔（毫秒） */
+   private int pollInterval=100;
+
+   /** 消费断档检查间隔（毫秒） */
+   private int gapCheckInterval=1000;
+
+   /** 阻塞任务（流读取、异步加载、后台维护）的线程模型 */
+   private ExecutorType executorType=ExecutorType.PLATFORM;
+
+   /** 定时任务线程数 */
+   private int schedulerThreads=2;
+
+   /** 使用平台线程时每种用途的最大线程数 */
+   private int maxBlockingThreads=64;
+
+   /** 跨缓存批量获取时并行读取和解码的键数量阈值，不大于0时不并行 */
+   private int multiGetParallelThreshold=1024;
+
    public int getTaskInitDelay() {
       return taskInitDelay;
    }
@@ -60,4 +87,76 @@ public class EasyCacheProperties {
    public void setCacheMessageSize(int cacheMessageSize) {
       this.cacheMessageSize = cacheMessageSize;
    }
+
+   public boolean isParallelApply() {
+      return parallelApply;
+   }
+
+   public void setParallelApply(boolean parallelApply) {
+      this.parallelApply = parallelApply;
+   }
+
+   public StreamPartitionType getStreamPartitionType() {
+      return streamPartitionType;
+   }
+
+   public void setStreamPartitionType(StreamPartitionType streamPartitionType) {
+      this.streamPartitionType = streamPartitionType;
+   }
+
+   public int getStreamPartitions() {
+      return streamPartitions;
+   }
+
+   public void setStreamPartitions(int streamPartitions) {
+      this.streamPartitions = streamPartitions;
+   }
+
+   public int getPollInterval() {
+      return pollInterval;
+   }
+
+   public void setPollInterval(int pollInterval) {
+      this.pollInterval = pollInterval;
+   }
+
+   public int getGapCheckInterval() {
+      return gapCheckInterval;
+   }
+
+   public void setGapCheckInterval(int gapCheckInterval) {
+      this.gapCheckInterval = gapCheckInterval;
+   }
+
+   public ExecutorType getExecutorType() {
+      return executorType;
+   }
+
+   public void setExecutorType(ExecutorType executorType) {
+      this.executorType = executorType;
+   }
+
+   public int getSchedulerThreads() {
+      return schedulerThreads;
+   }
+
+   public void setSchedulerThreads(int schedulerThreads) {
+      this.schedulerThreads = schedulerThreads;
+   }
+
+   public int getMaxBlockingThreads() {
+      return maxBlockingThreads;
+   }
+
+   public void setMaxBlockingThreads(int maxBlockingThreads) {
+      this.maxBlockingThreads = maxBlockingThreads;
+   }
+
+   public int getMultiGetParallelThreshold() {
+      return multiGetParallelThreshold;
+   }
+
+   public void setMultiGetParallelThreshold(int multiGetParallelThreshold) {
+      this.multiGetParallelThreshold = multiGetParallelThreshold;
+   }
 }
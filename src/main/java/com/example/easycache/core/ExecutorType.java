@@ -0,0 +1,12 @@
+package com.example.easycache.core;
+
+/**
+ * 执行器类型枚举
+ * <p>定义阻塞任务（流读取、异步加载、后台维护）使用的线程模型</p>
+ */
+public enum ExecutorType {
+    /** 平台线程，每种用途一个有界的缓存线程池 */
+    PLATFORM,
+    /** 虚拟线程，每个任务一个虚拟线程，运行环境不支持时退化为平台线程 */
+    VIRTUAL
+}
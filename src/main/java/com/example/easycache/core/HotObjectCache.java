@@ -0,0 +1,99 @@
+package com.example.easycache.core;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 热点对象缓存
+ * <p>放在堆外缓存前面的小容量堆内缓存，保存访问最频繁的键解码后的对象，命中时不需要再反序列化。
+ * 容量按条目数限制，由Caffeine按访问频率淘汰，长尾的键仍然只保存在堆外。</p>
+ * <p>命中时会确认堆外缓存中仍存在该键，堆外条目过期或被淘汰后热点对象随之失效；堆外写入和删除之后调用方需要失效对应的键。
+ * 空值对象有独立的过期时间，不放入热点缓存。返回的是共享对象，调用方不应修改</p>
+ */
+final class HotObjectCache {
+
+    /** 热点对象 */
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> cache;
+
+    /** 空值对象 */
+    private final Object nullValue;
+
+    private HotObjectCache(int limit, Object nullValue) {
+        this.cache = Caffeine.newBuilder().maximumSize(limit).build();
+        this.nullValue = nullValue;
+    }
+
+    /**
+     * 按配置创建热点对象缓存
+     *
+     * @param config 缓存配置
+     * @return 热点对象缓存，未配置容量时返回null
+     */
+    static HotObjectCache create(CacheConfig<?, ?> config) {
+        Integer hotLimit = config.getHotLimit();
+        if (hotLimit == null || hotLimit <= 0) return null;
+        return new HotObjectCache(hotLimit, config.cacheNullValue);
+    }
+
+    /**
+     * 获取对象，未命中时解码并放入热点缓存
+     * <p>解码在Caffeine的计算中进行，同一个键的失效会等待计算完成，不会留下旧对象</p>
+     *
+     * @param key 键
+     * @param decoder 从堆外缓存读取并解码，不存在时返回null
+     * @param present 判断堆外缓存中是否存在该键
+     * @return 对象，不存在时返回null
+     */
+    Object get(String key, Function<String, Object> decoder, Predicate<String> present) {
+        Object value = cache.getIfPresent(key);
+        if (value != null) {
+            if (present.test(key)) return value;
+            cache.invalidate(key);
+        }
+        Object[] loaded = new Object[1];
+        Object cached = cache.get(key, k -> {
+            Object decoded = decoder.apply(k);
+            loaded[0] = decoded;
+            return decoded == null || decoded.equals(nullValue) ? null : decoded;
+        });
+        return cached != null ? cached : loaded[0];
+    }
+
+    /**
+     * 失效键
+     *
+     * @param key 键
+     */
+    void invalidate(String key) {
+        cache.invalidate(key);
+    }
+
+    /**
+     * 批量失效键
+     *
+     * @param keys 键集合
+     */
+    void invalidateAll(Collection<String> keys) {
+        cache.invalidateAll(keys);
+    }
+
+    /**
+     * 清空热点缓存
+     */
+    void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 获取热点对象数量
+     *
+     * @return 数量
+     */
+    long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.easycache.core;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带统计信息的执行器
+ * <p>包装某一用途的线程池，统计提交、完成、失败、拒绝的任务数和正在执行的任务数，用于观察各用途的负载</p>
+ */
+public class InstrumentedExecutor implements Executor {
+
+    /** 用途名称 */
+    private final String purpose;
+
+    /** 实际执行任务的线程池 */
+    private final ExecutorService delegate;
+
+    /** 是否使用虚拟线程 */
+    private final boolean virtual;
+
+    /** 提交的任务数 */
+    private final LongAdder submitted = new LongAdder();
+
+    /** 执行完成的任务数，包含失败的任务 */
+    private final LongAdder completed = new LongAdder();
+
+    /** 抛出异常的任务数 */
+    private final LongAdder failed = new LongAdder();
+
+    /** 被拒绝的任务数 */
+    private final LongAdder rejected = new LongAdder();
+
+    /** 正在执行的任务数 */
+    private final AtomicInteger active = new AtomicInteger();
+
+    /**
+     * 构造函数
+     *
+     * @param purpose 用途名称
+     * @param delegate 实际执行任务的线程池
+     * @param virtual 是否使用虚拟线程
+     */
+    InstrumentedExecutor(String purpose, ExecutorService delegate, boolean virtual) {
+        this.purpose = purpose;
+        this.delegate = delegate;
+        this.virtual = virtual;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        submitted.increment();
+        try {
+            delegate.execute(() -> run(command));
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw ex;
+        }
+    }
+
+    private void run(Runnable command) {
+        active.incrementAndGet();
+        try {
+            command.run();
+        } catch (RuntimeException | Error ex) {
+            failed.increment();
+            throw ex;
+        } finally {
+            active.decrementAndGet();
+            completed.increment();
+        }
+    }
+
+    /**
+     * 关闭线程池，正在执行的任务会被中断
+     */
+    void shutdownNow() {
+        delegate.shutdownNow();
+    }
+
+    public String getPurpose() {
+        return purpose;
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    @Override
+    public String toString() {
+        return "InstrumentedExecutor{purpose=" + purpose + ", virtual=" + virtual
+                + ", submitted=" + getSubmittedCount() + ", completed=" + getCompletedCount()
+                + ", failed=" + getFailedCount() + ", rejected=" + getRejectedCount()
+                + ", active=" + getActiveCount() + "}";
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.easycache.core;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.Funnels;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 已存在键的布隆过滤器
+ * <p>记录缓存中可能存在的键，过滤器判断键一定不存在时，多级缓存不再访问Redis和加载器，直接返回null，
+ * 防止随机键穿透到Redis和数据源。过滤器只会把不存在的键误判为存在，不会漏掉已记录的键</p>
+ * <p>新建的过滤器不知道已有的键，处于未就绪状态，所有键都视为可能存在。通过{@link #rebuild(Iterable)}从数据源的全部键重建，
+ * 或通过{@link #readFrom(InputStream)}从快照恢复后才开始过滤。本节点写入、加载到的键和从其他节点收到广播的键会实时加入过滤器；
+ * 丢失广播消息后过滤器回到未就绪状态，需要重新重建</p>
+ * <p>从快照恢复时，快照之后在其他节点写入的键不在过滤器中，应保证快照足够新，或恢复后尽快重建</p>
+ */
+public class KeyBloomFilter {
+
+    /** 键的序列化方式 */
+    private static final Funnel<CharSequence> FUNNEL = Funnels.stringFunnel(StandardCharsets.UTF_8);
+
+    /** 预期的键数量 */
+    private final int expectedKeys;
+
+    /** 误判率 */
+    private final double fpp;
+
+    /** 当前使用的过滤器 */
+    private volatile BloomFilter<CharSequence> filter;
+
+    /** 重建中的过滤器，重建期间写入的键同时加入其中，不重建时为null */
+    private volatile BloomFilter<CharSequence> rebuilding;
+
+    /** 是否已就绪 */
+    private volatile boolean ready;
+
+    /**
+     * 构造函数
+     *
+     * @param expectedKeys 预期的键数量，超过后误判率上升，应重新按更大的数量重建
+     * @param fpp 误判率
+     */
+    public KeyBloomFilter(int expectedKeys, double fpp) {
+        this.expectedKeys = Math.max(1, expectedKeys);
+        this.fpp = fpp;
+        this.filter = BloomFilter.create(FUNNEL, this.expectedKeys, fpp);
+    }
+
+    /**
+     * 判断键是否可能存在
+     *
+     * @param key 转换后的键
+     * @return 未就绪或可能存在时返回true，一定不存在时返回false
+     */
+    public boolean mightContain(String key) {
+        return !ready || filter.mightContain(key);
+    }
+
+    /**
+     * 记录存在的键
+     *
+     * @param key 转换后的键
+     */
+    public void put(String key) {
+        BloomFilter<CharSequence> current = filter;
+        current.put(key);
+        BloomFilter<CharSequence> next = rebuilding;
+        if (next != null) next.put(key);
+        // 写入旧过滤器后、读取重建标记前可能已完成切换，此时键只在被丢弃的过滤器中，需要补写到当前过滤器
+        BloomFilter<CharSequence> swapped = filter;
+        if (swapped != current && swapped != next) swapped.put(key);
+    }
+
+    /**
+     * 从全部存在的键重建过滤器，重建完成后进入就绪状态
+     * <p>重建期间过滤器保持原来的状态，同时写入的键由{@link #put(String)}写入重建中的过滤器，或在切换后补写到新过滤器，不会丢失</p>
+     *
+     * @param keys 全部存在的转换后的键
+     */
+    public synchronized void rebuild(Iterable<String> keys) {
+        BloomFilter<CharSequence> next = BloomFilter.create(FUNNEL, expectedKeys, fpp);
+        rebuilding = next;
+        try {
+            for (String key : keys) {
+                next.put(key);
+            }
+        } catch (RuntimeException e) {
+            rebuilding = null;
+            throw e;
+        }
+        // 先切换再清除重建标记，看到重建标记的写入已写入新过滤器，没看到的写入在put中发现切换后补写
+        filter = next;
+        rebuilding = null;
+        ready = true;
+    }
+
+    /**
+     * 把过滤器写入快照
+     *
+     * @param out 输出流
+     * @throws IOException 写入失败
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        filter.writeTo(out);
+    }
+
+    /**
+     * 从快照恢复过滤器，恢复完成后进入就绪状态
+     *
+     * @param in 输入流
+     * @throws IOException 读取失败
+     */
+    public synchronized void readFrom(InputStream in) throws IOException {
+        filter = BloomFilter.readFrom(in, FUNNEL);
+        ready = true;
+    }
+
+    /**
+     * 回到未就绪状态，所有键都视为可能存在，直到下一次重建或恢复
+     */
+    public void invalidate() {
+        ready = false;
+    }
+
+    /**
+     * 判断过滤器是否已就绪
+     *
+     * @return 是否已就绪
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 获取已记录的键的估计数量
+     *
+     * @return 估计数量
+     */
+    public long approximateKeyCount() {
+        return filter.approximateElementCount();
+    }
+
+    /**
+     * 获取按已记录的键数量估计的当前误判率
+     *
+     * @return 误判率
+     */
+    public double expectedFpp() {
+        return filter.expectedFpp();
+    }
+}
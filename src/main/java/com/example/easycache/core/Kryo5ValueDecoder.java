@@ -1,24 +1,46 @@
 package com.example.easycache.core;
 
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.ByteBufferInput;
 import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.util.Pool;
 
-import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Kryo5值解码器
- * <p>使用Kryo5框架将字节数组反序列化为对象</p>
+ * <p>使用Kryo5框架将字节数组反序列化为对象。输入对象随Kryo实例一起池化，直接读取调用方的字节数组或ByteBuffer，
+ * 解码时不分配临时缓冲区</p>
  */
 public class Kryo5ValueDecoder extends AbstractValueDecoder {
 
     /** 单例实例 */
     public static final Kryo5ValueDecoder INSTANCE = new Kryo5ValueDecoder();
 
+    /** 空字节数组，用于解码后解除对调用方数组的引用 */
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
+    /** 空缓冲区，用于解码后解除对调用方缓冲区的引用 */
+    private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+    /** 解码使用的Kryo对象池 */
+    private final Pool<Kryo5ValueEncoder.KryoHolder> pool;
+
     /**
      * 构造函数
      */
     public Kryo5ValueDecoder() {
+        this(Kryo5ValueEncoder.kryoPool);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param pool 解码使用的Kryo对象池，需要与编码器一致
+     */
+    Kryo5ValueDecoder(Pool<Kryo5ValueEncoder.KryoHolder> pool) {
         super();
+        this.pool = pool;
     }
 
     /**
@@ -30,18 +52,56 @@ public class Kryo5ValueDecoder extends AbstractValueDecoder {
     @Override
     public Object doApply(byte[] buffer) {
         Object result;
-        Kryo kryo = Kryo5ValueEncoder.kryoPool.obtain();
+        Kryo5ValueEncoder.KryoHolder holder = Kryo5ValueEncoder.obtain(pool);
+        Input input = holder.input;
         try {
-            ByteArrayInputStream in;
-            in = new ByteArrayInputStream(buffer);
-            Input input = new Input(in);
-            kryo.setClassLoader(Thread.currentThread().getContextClassLoader());
-            result = kryo.readClassAndObject(input);
+            input.setBuffer(buffer);
+            result = bindClassLoader(holder).readClassAndObject(input);
         } catch (Exception e) {
             throw new CacheEncodeException("Kryo Decode error. " + "msg=" + e.getMessage(), e);
         } finally {
-            Kryo5ValueEncoder.kryoPool.free(kryo);
+            input.setBuffer(EMPTY_BYTES);
+            pool.free(holder);
         }
         return result;
     }
+
+    /**
+     * 将ByteBuffer解码为对象
+     * <p>从当前位置读取到limit，读取会移动缓冲区的位置</p>
+     *
+     * @param buffer 缓冲区，可以是堆外缓冲区
+     * @return 解码后的对象
+     */
+    @Override
+    protected Object doApply(ByteBuffer buffer) {
+        Object result;
+        Kryo5ValueEncoder.KryoHolder holder = Kryo5ValueEncoder.obtain(pool);
+        ByteBufferInput input = holder.byteBufferInput;
+        try {
+            input.setBuffer(buffer);
+            result = bindClassLoader(holder).readClassAndObject(input);
+        } catch (Exception e) {
+            throw new CacheEncodeException("Kryo Decode error. " + "msg=" + e.getMessage(), e);
+        } finally {
+            input.setBuffer(EMPTY_BUFFER);
+            pool.free(holder);
+        }
+        return result;
+    }
+
+    /**
+     * 绑定当前线程的类加载器，只在类加载器变化时重新设置
+     *
+     * @param holder 池化的Kryo实例
+     * @return Kryo实例
+     */
+    private Kryo bindClassLoader(Kryo5ValueEncoder.KryoHolder holder) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader != null && classLoader != holder.classLoader) {
+            holder.kryo.setClassLoader(classLoader);
+            holder.classLoader = classLoader;
+        }
+        return holder.kryo;
+    }
 }
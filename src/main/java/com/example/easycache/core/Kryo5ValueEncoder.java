@@ -1,40 +1,110 @@
 package com.example.easycache.core;
 
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.ByteBufferInput;
+import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.util.Pool;
+import io.netty.buffer.ByteBuf;
 
-import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Kryo5值编码器
- * <p>使用Kryo5框架将对象序列化为字节数组</p>
+ * <p>使用Kryo5框架将对象序列化为字节数组。池化的Kryo实例附带可复用的输出缓冲区，
+ * 编码时只产生一次精确大小的拷贝，写入堆外缓冲区时不产生堆内垃圾</p>
  */
 public class Kryo5ValueEncoder extends AbstractValueEncoder {
 
+    /** Kryo对象池，需要在单例实例之前初始化 */
+    static final Pool<KryoHolder> kryoPool = createPool(kryo -> { });
+
     /** 单例实例 */
     public static final Kryo5ValueEncoder INSTANCE = new Kryo5ValueEncoder();
 
+    /** 初始缓冲区大小 */
+    private static final int INIT_BUFFER_SIZE = 512;
+
+    /** 归还对象池时保留的最大缓冲区大小，超过后重新分配，避免偶发的大对象长期占用内存 */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 256 * 1024;
+
+    /** 编码使用的Kryo对象池 */
+    private final Pool<KryoHolder> pool;
+
     /**
      * 构造函数
      */
     public Kryo5ValueEncoder() {
+        this(kryoPool);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param pool 编码使用的Kryo对象池
+     */
+    Kryo5ValueEncoder(Pool<KryoHolder> pool) {
         super();
+        this.pool = pool;
+    }
+
+    /**
+     * 池化的Kryo实例及其复用的缓冲区
+     */
+    static final class KryoHolder {
+        /** Kryo实例 */
+        final Kryo kryo;
+        /** 复用的输出缓冲区 */
+        final Output output = new Output(INIT_BUFFER_SIZE, -1);
+        /** 复用的字节数组输入，直接读取调用方的数组，不分配内部缓冲区 */
+        final Input input = new Input();
+        /** 复用的ByteBuffer输入，直接读取堆外缓冲区 */
+        final ByteBufferInput byteBufferInput = new ByteBufferInput();
+        /** 当前绑定的类加载器 */
+        ClassLoader classLoader;
+        /** 已同步的类注册表版本 */
+        int registryVersion;
+
+        KryoHolder(Kryo kryo) {
+            this.kryo = kryo;
+        }
     }
 
-    /** Kryo对象池 */
-    static final Pool<Kryo> kryoPool  = new Pool<>(true, false, 64) {
-            protected Kryo create() {
+    /**
+     * 创建Kryo对象池
+     *
+     * @param customizer 在默认配置之后调整Kryo实例
+     * @return Kryo对象池
+     */
+    static Pool<KryoHolder> createPool(Consumer<Kryo> customizer) {
+        return new Pool<>(true, false, 64) {
+            protected KryoHolder create() {
                 Kryo kryo = new Kryo();
                 kryo.setRegistrationRequired(false);
                 kryo.setReferences(true);
+                customizer.accept(kryo);
                 kryo.register(List.class);
                 kryo.register(ArrayList.class);
-                return kryo;
+                return new KryoHolder(kryo);
             }
-    };
+        };
+    }
+
+    /**
+     * 从对象池获取Kryo实例，并同步类注册表
+     *
+     * @param pool Kryo对象池
+     * @return 池化的Kryo实例，使用后需要归还
+     */
+    static KryoHolder obtain(Pool<KryoHolder> pool) {
+        KryoHolder holder = pool.obtain();
+        holder.registryVersion = KryoClassRegistry.apply(holder.kryo, holder.registryVersion);
+        return holder;
+    }
 
     /**
      * 将对象编码为字节数组
@@ -44,15 +114,59 @@ public class Kryo5ValueEncoder extends AbstractValueEncoder {
      */
     @Override
     public byte[] apply(Object value) {
-        Kryo kryo = kryoPool.obtain();
-        try (ByteArrayOutputStream byteOut = new ByteArrayOutputStream(); Output output = new Output(byteOut)) {
-            kryo.writeClassAndObject(output, value);
-            output.flush();
-            return byteOut.toByteArray();
+        return encode(value, Output::toBytes);
+    }
+
+    /**
+     * 将对象编码到从内存池分配的堆外缓冲区
+     *
+     * @param value 要编码的对象
+     * @return 精确大小的池化 DirectBuffer
+     */
+    public ByteBuf encodeToDirectBuffer(Object value) {
+        return encode(value, output -> {
+            ByteBuf buf = NettyMemoryPool.allocateDirectBuffer(output.position());
+            buf.writeBytes(output.getBuffer(), 0, output.position());
+            return buf;
+        });
+    }
+
+    /**
+     * 将对象编码到调用方提供的缓冲区
+     *
+     * @param value 要编码的对象
+     * @param dest 目标缓冲区，从当前位置开始写入
+     * @return 写入的字节数
+     */
+    public int encodeTo(Object value, ByteBuffer dest) {
+        return encode(value, output -> {
+            dest.put(output.getBuffer(), 0, output.position());
+            return output.position();
+        });
+    }
+
+    /**
+     * 使用池化的缓冲区编码对象
+     *
+     * @param value 要编码的对象
+     * @param writer 从输出缓冲区读取编码结果
+     * @param <R> 结果类型
+     * @return 编码结果
+     */
+    private <R> R encode(Object value, Function<Output, R> writer) {
+        KryoHolder holder = obtain(pool);
+        Output output = holder.output;
+        try {
+            output.reset();
+            holder.kryo.writeClassAndObject(output, value);
+            return writer.apply(output);
         } catch (Exception e) {
             throw new CacheEncodeException("Kryo Encode error. " + "msg=" + e.getMessage(), e);
         } finally {
-            kryoPool.free(kryo);
+            if (output.getBuffer().length > MAX_RETAINED_BUFFER_SIZE) {
+                output.setBuffer(new byte[INIT_BUFFER_SIZE], -1);
+            }
+            pool.free(holder);
         }
     }
 
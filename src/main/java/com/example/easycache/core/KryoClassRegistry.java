@@ -0,0 +1,104 @@
+package com.example.easycache.core;
+
+import com.esotericsoftware.kryo.Kryo;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Kryo类注册表
+ * <p>为缓存值类型分配稳定的数字ID，Kryo编码时写入ID而不是完整类名，减少Redis占用和网络传输，解码时也不需要按类名查找类。
+ * 注册表在所有Kryo实例之间共享并带有版本号，池化的Kryo实例在使用前检查版本，发现新注册的类后补充注册。
+ * 未注册的类仍然写入类名，已写入的按类名编码的值在注册后也可以正常解码</p>
+ * <p>ID必须在所有节点上保持一致，读取按ID编码的值的节点必须注册相同的类，因此新增注册时应先在所有节点上线后再写入</p>
+ */
+public final class KryoClassRegistry {
+
+    /** 最小可用ID，小于该值的ID保留给Kryo内置类型，同时保证编码后的首字节不与值头部标记冲突 */
+    public static final int MIN_ID = 200;
+
+    /** 已注册的类，按注册顺序排列 */
+    private static volatile Map<Integer, Class<?>> registrations = Collections.emptyMap();
+
+    /** 注册表版本，每次新增注册时递增 */
+    private static volatile int version;
+
+    private KryoClassRegistry() {
+    }
+
+    /**
+     * 注册类
+     * <p>重复注册相同的类和ID会被忽略，ID或类已被其他注册占用时抛出异常</p>
+     *
+     * @param id 类ID，不小于{@link #MIN_ID}
+     * @param type 类
+     * @throws CacheException ID非法或注册冲突
+     */
+    public static synchronized void register(int id, Class<?> type) {
+        if (id < MIN_ID) {
+            throw new CacheException("kryo class id must be >= " + MIN_ID + ": " + id);
+        }
+        Class<?> existing = registrations.get(id);
+        if (existing == type) {
+            return;
+        }
+        if (existing != null) {
+            throw new CacheException("kryo class id " + id + " is already registered to " + existing.getName());
+        }
+        for (Map.Entry<Integer, Class<?>> entry : registrations.entrySet()) {
+            if (entry.getValue() == type) {
+                throw new CacheException(type.getName() + " is already registered with kryo class id " + entry.getKey());
+            }
+        }
+        Map<Integer, Class<?>> newRegistrations = new LinkedHashMap<>(registrations);
+        newRegistrations.put(id, type);
+        registrations = Collections.unmodifiableMap(newRegistrations);
+        version++;
+    }
+
+    /**
+     * 注册多个类
+     *
+     * @param classes 类ID到类的映射
+     * @throws CacheException ID非法或注册冲突
+     */
+    public static synchronized void registerAll(Map<Integer, Class<?>> classes) {
+        classes.forEach(KryoClassRegistry::register);
+    }
+
+    /**
+     * 获取注册表版本
+     *
+     * @return 版本号
+     */
+    public static int version() {
+        return version;
+    }
+
+    /**
+     * 获取已注册的类
+     *
+     * @return 类ID到类的只读映射
+     */
+    public static Map<Integer, Class<?>> registrations() {
+        return registrations;
+    }
+
+    /**
+     * 将注册表同步到Kryo实例
+     *
+     * @param kryo Kryo实例
+     * @param appliedVersion Kryo实例已同步的版本
+     * @return 同步后的版本
+     */
+    static int apply(Kryo kryo, int appliedVersion) {
+        int currentVersion = version;
+        if (currentVersion == appliedVersion) {
+            return appliedVersion;
+        }
+        // 先读版本再读注册表，读到的注册表不会比版本旧
+        registrations.forEach((id, type) -> kryo.register(type, id));
+        return currentVersion;
+    }
+}
@@ -32,7 +32,7 @@ public class KryoValueDecoder extends AbstractValueDecoder {
         ByteArrayInputStream in;
         in = new ByteArrayInputStream(buffer);
         Input input = new Input(in);
-        Kryo kryo = (Kryo) KryoValueEncoder.kryoThreadLocal.get()[0];
+        Kryo kryo = KryoValueEncoder.kryo();
         kryo.setClassLoader(Thread.currentThread().getContextClassLoader());
         return kryo.readClassAndObject(input);
     }
@@ -18,7 +18,7 @@ public class KryoValueEncoder extends AbstractValueEncoder {
     /** 初始缓冲区大小 */
     private static final int INIT_BUFFER_SIZE = 512;
 
-    /** Kryo线程本地变量 */
+    /** Kryo线程本地变量，依次保存Kryo实例、复用的缓冲区和已同步的类注册表版本 */
     static ThreadLocal<Object[]> kryoThreadLocal = ThreadLocal.withInitial(() -> {
         Kryo kryo = new Kryo();
         kryo.setDefaultSerializer(CompatibleFieldSerializer.class);
@@ -26,9 +26,24 @@ public class KryoValueEncoder extends AbstractValueEncoder {
         kryo.setReferences(true);
         byte[] buffer = new byte[INIT_BUFFER_SIZE];
         WeakReference<byte[]> ref = new WeakReference<>(buffer);
-        return new Object[]{kryo, ref};
+        return new Object[]{kryo, ref, 0};
     });
 
+    /**
+     * 获取当前线程的Kryo实例，并同步类注册表
+     *
+     * @return Kryo实例
+     */
+    static Kryo kryo() {
+        Object[] kryoAndBuffer = kryoThreadLocal.get();
+        Kryo kryo = (Kryo) kryoAndBuffer[0];
+        int registryVersion = (Integer) kryoAndBuffer[2];
+        if (registryVersion != KryoClassRegistry.version()) {
+            kryoAndBuffer[2] = KryoClassRegistry.apply(kryo, registryVersion);
+        }
+        return kryo;
+    }
+
     /**
      * 构造函数
      */
@@ -45,8 +60,8 @@ public class KryoValueEncoder extends AbstractValueEncoder {
     @Override
     public byte[] apply(Object value) {
         try {
+            Kryo kryo = kryo();
             Object[] kryoAndBuffer = kryoThreadLocal.get();
-            Kryo kryo = (Kryo) kryoAndBuffer[0];
             WeakReference<byte[]> ref = (WeakReference<byte[]>) kryoAndBuffer[1];
             byte[] buffer = ref.get();
             if (buffer == null) {
@@ -0,0 +1,242 @@
+package com.example.easycache.core;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 延迟解码的结果映射
+ * <p>批量获取时保存编码后的值，第一次访问某个值时才解码，解码结果会被缓存。只判断键是否存在或只使用部分值时，
+ * 不需要为所有值付出解码开销。未命中的键对应null，{@link #containsKey(Object)}和{@link #isNull(Object)}不会触发解码。</p>
+ * <p>与HashMap一样不是线程安全的</p>
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class LazyValueMap<K, V> extends AbstractMap<K, V> {
+
+    /** 键到已解码的值或编码后的值的映射 */
+    private final Map<K, Object> values;
+
+    /** 值解码器 */
+    private final Function<byte[], Object> decoder;
+
+    /** 解码后的回调，为null时不回调 */
+    private final BiConsumer<K, V> onDecode;
+
+    /** 视图集合 */
+    private Set<Entry<K, V>> entrySet;
+
+    /**
+     * 构造函数
+     *
+     * @param decoder 值解码器
+     * @param onDecode 解码后的回调，为null时不回调
+     */
+    public LazyValueMap(Function<byte[], Object> decoder, BiConsumer<K, V> onDecode) {
+        this(decoder, onDecode, 16);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param decoder 值解码器
+     * @param onDecode 解码后的回调，为null时不回调
+     * @param expectedSize 预期的键数量
+     */
+    public LazyValueMap(Function<byte[], Object> decoder, BiConsumer<K, V> onDecode, int expectedSize) {
+        this.values = new HashMap<>(Math.max(16, (int) (expectedSize / 0.75f) + 1));
+        this.decoder = decoder;
+        this.onDecode = onDecode;
+    }
+
+    /**
+     * 添加编码后的值，访问时解码
+     *
+     * @param key 键
+     * @param bytes 编码后的值，为null表示未命中
+     */
+    public void putEncoded(K key, byte[] bytes) {
+        values.put(key, bytes == null ? null : new Encoded(bytes));
+    }
+
+    /**
+     * 判断键对应的值是否为null，不触发解码
+     *
+     * @param key 键
+     * @return 键不存在或未命中时返回true
+     */
+    public boolean isNull(Object key) {
+        return values.get(key) == null;
+    }
+
+    /**
+     * 判断键对应的值是否已解码
+     *
+     * @param key 键
+     * @return 是否已解码
+     */
+    public boolean isDecoded(Object key) {
+        return !(values.get(key) instanceof Encoded);
+    }
+
+    @Override
+    public V get(Object key) {
+        Object value = values.get(key);
+        if (value instanceof Encoded) {
+            return decode((K) key, (Encoded) value, decoded -> values.put((K) key, decoded));
+        }
+        return (V) value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return values.containsKey(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return oldValue(values.put(key, value));
+    }
+
+    @Override
+    public V remove(Object key) {
+        return oldValue(values.remove(key));
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public void clear() {
+        values.clear();
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return values.keySet();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Entry<K, V>>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    Iterator<Entry<K, Object>> iterator = values.entrySet().iterator();
+                    return new Iterator<Entry<K, V>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<K, V> next() {
+                            return new LazyEntry(iterator.next());
+                        }
+
+                        @Override
+                        public void remove() {
+                            iterator.remove();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return values.size();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /**
+     * 解码被替换或移除的旧值，只用于返回，不缓存解码结果也不回调
+     *
+     * @param value 已解码的值或编码后的值
+     * @return 旧值
+     */
+    private V oldValue(Object value) {
+        if (value instanceof Encoded) {
+            return (V) decoder.apply(((Encoded) value).bytes);
+        }
+        return (V) value;
+    }
+
+    private V decode(K key, Encoded encoded, Consumer<Object> memoizer) {
+        V decoded = (V) decoder.apply(encoded.bytes);
+        memoizer.accept(decoded);
+        if (onDecode != null && decoded != null) {
+            onDecode.accept(key, decoded);
+        }
+        return decoded;
+    }
+
+    /**
+     * 编码后的值
+     */
+    private static final class Encoded {
+        final byte[] bytes;
+
+        Encoded(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * 访问值时解码的条目，解码结果写回底层映射
+     */
+    private final class LazyEntry implements Entry<K, V> {
+        private final Entry<K, Object> entry;
+
+        LazyEntry(Entry<K, Object> entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public K getKey() {
+            return entry.getKey();
+        }
+
+        @Override
+        public V getValue() {
+            Object value = entry.getValue();
+            if (value instanceof Encoded) {
+                return decode(entry.getKey(), (Encoded) value, entry::setValue);
+            }
+            return (V) value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            return oldValue(entry.setValue(value));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) return false;
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return Objects.equals(getKey(), e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
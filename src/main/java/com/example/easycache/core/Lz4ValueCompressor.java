@@ -0,0 +1,43 @@
+package com.example.easycache.core;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+/**
+ * LZ4值压缩器
+ * <p>未设置压缩级别时使用快速压缩，设置后使用高压缩率模式</p>
+ */
+class Lz4ValueCompressor extends ValueCompressor {
+
+    /** 压缩器 */
+    private final LZ4Compressor compressor;
+
+    /** 解压器 */
+    private final LZ4SafeDecompressor decompressor;
+
+    Lz4ValueCompressor(Integer level) {
+        super(LZ4);
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = level == null ? factory.fastCompressor() : factory.highCompressor(level);
+        this.decompressor = factory.safeDecompressor();
+    }
+
+    @Override
+    int maxCompressedLength(int length) {
+        return compressor.maxCompressedLength(length);
+    }
+
+    @Override
+    int compress(byte[] src, byte[] dest, int destOffset) {
+        return compressor.compress(src, 0, src.length, dest, destOffset, dest.length - destOffset);
+    }
+
+    @Override
+    void decompress(byte[] src, int offset, int length, byte[] dest) {
+        int decompressed = decompressor.decompress(src, offset, length, dest, 0, dest.length);
+        if (decompressed != dest.length) {
+            throw new CacheException("lz4 decompressed length mismatch: " + decompressed + " != " + dest.length);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.easycache.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * 微批处理器
+ * <p>把并发的单键请求合并为一次批量调用。请求线程把键放入队列，抢到领导权的线程等待一个短暂的窗口或队列达到批量上限后，
+ * 取出队列中的请求执行一次批量调用，并把结果分发给等待的线程。领导者完成自己的请求后把领导权交给队列中的下一个线程，
+ * 不需要额外的后台线程</p>
+ * <p>窗口为0时不等待，只合并上一次批量调用执行期间到达的请求，低并发时不增加延迟</p>
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+final class MicroBatcher<K, V> {
+
+    /** 跟随者等待的最长时间，超时后重新尝试获取领导权，避免错过唤醒 */
+    private static final long FOLLOWER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** 批量调用，返回键到值的映射，未命中的键可以不包含在其中 */
+    private final Function<Set<K>, Map<K, V>> batchFunction;
+
+    /** 每批最多的请求数 */
+    private final int maxBatchSize;
+
+    /** 等待窗口（纳秒） */
+    private final long windowNanos;
+
+    /** 等待中的请求 */
+    private final ConcurrentLinkedQueue<Request<K, V>> queue = new ConcurrentLinkedQueue<>();
+
+    /** 等待中的请求数 */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /** 当前领导者，没有领导者时为null */
+    private final AtomicReference<Thread> leader = new AtomicReference<>();
+
+    /** 执行的批量调用次数 */
+    private final AtomicInteger batchCount = new AtomicInteger();
+
+    /**
+     * 构造函数
+     *
+     * @param batchFunction 批量调用
+     * @param maxBatchSize 每批最多的请求数
+     * @param window 等待窗口，为null或0时不等待
+     */
+    MicroBatcher(Function<Set<K>, Map<K, V>> batchFunction, int maxBatchSize, Duration window) {
+        this.batchFunction = batchFunction;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.windowNanos = window == null ? 0 : Math.max(0, window.toNanos());
+    }
+
+    /**
+     * 获取单个键的值，与其他线程的并发请求合并为一次批量调用
+     *
+     * @param key 键
+     * @return 值，未命中时为null
+     * @throws CacheInvokeException 批量调用抛出受检异常
+     */
+    V get(K key) {
+        Request<K, V> request = new Request<>(key, Thread.currentThread());
+        queue.add(request);
+        if (queued.incrementAndGet() >= maxBatchSize) {
+            // 达到批量上限，唤醒在窗口中等待的领导者
+            Thread current = leader.get();
+            if (current != null) LockSupport.unpark(current);
+        }
+        boolean interrupted = false;
+        while (!request.done) {
+            if (leader.compareAndSet(null, request.thread)) {
+                try {
+                    lead(request);
+                } finally {
+                    leader.set(null);
+                }
+                handOff();
+            } else {
+                LockSupport.parkNanos(this, FOLLOWER_PARK_NANOS);
+                // 清除中断标记，否则park会立即返回
+                if (Thread.interrupted()) interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        return request.result();
+    }
+
+    /**
+     * 获取执行的批量调用次数
+     *
+     * @return 次数
+     */
+    int getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * 作为领导者执行批量调用，直到自己的请求完成
+     */
+    private void lead(Request<K, V> own) {
+        if (windowNanos > 0 && queued.get() < maxBatchSize) {
+            long deadline = System.nanoTime() + windowNanos;
+            long remaining;
+            while (queued.get() < maxBatchSize && (remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, remaining);
+                if (Thread.currentThread().isInterrupted()) break;
+            }
+        }
+        while (!own.done) {
+            List<Request<K, V>> batch = drain();
+            if (batch.isEmpty()) return;
+            execute(batch);
+        }
+    }
+
+    private List<Request<K, V>> drain() {
+        List<Request<K, V>> batch = new ArrayList<>(Math.min(maxBatchSize, Math.max(1, queued.get())));
+        Request<K, V> request;
+        while (batch.size() < maxBatchSize && (request = queue.poll()) != null) {
+            queued.decrementAndGet();
+            batch.add(request);
+        }
+        return batch;
+    }
+
+    private void execute(List<Request<K, V>> batch) {
+        Map<K, List<Request<K, V>>> byKey = new HashMap<>(batch.size() * 4 / 3 + 1);
+        for (Request<K, V> request : batch) {
+            byKey.computeIfAbsent(request.key, k -> new ArrayList<>(1)).add(request);
+        }
+        batchCount.incrementAndGet();
+        Map<K, V> values;
+        try {
+            values = batchFunction.apply(byKey.keySet());
+        } catch (Throwable e) {
+            batch.forEach(request -> request.fail(e));
+            return;
+        }
+        byKey.forEach((key, requests) -> {
+            V value = values == null ? null : values.get(key);
+            requests.forEach(request -> request.complete(value));
+        });
+    }
+
+    /**
+     * 把领导权交给队列中的下一个请求线程
+     */
+    private void handOff() {
+        Request<K, V> next = queue.peek();
+        if (next != null) LockSupport.unpark(next.thread);
+    }
+
+    /**
+     * 单键请求
+     */
+    private static final class Request<K, V> {
+        final K key;
+        final Thread thread;
+        V value;
+        Throwable error;
+        volatile boolean done;
+
+        Request(K key, Thread thread) {
+            this.key = key;
+            this.thread = thread;
+        }
+
+        void complete(V value) {
+            this.value = value;
+            this.done = true;
+            LockSupport.unpark(thread);
+        }
+
+        void fail(Throwable error) {
+            this.error = error;
+            this.done = true;
+            LockSupport.unpark(thread);
+        }
+
+        V result() {
+            if (error == null) return value;
+            if (error instanceof RuntimeException) throw (RuntimeException) error;
+            if (error instanceof Error) throw (Error) error;
+            throw new CacheInvokeException(error);
+        }
+    }
+}
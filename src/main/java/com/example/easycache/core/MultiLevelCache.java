@@ -7,11 +7,19 @@ import org.slf4j.LoggerFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
 
 /**
  * 多级缓存实现
@@ -28,7 +36,7 @@ public class MultiLevelCache<K,V> extends AbstractCache<K,V> {
     protected AbstractCache<K,V> localCache;
 
     /** 远程缓存实例 */
-    protected AbstractCache<K,V> remoteCache = null;
+    protected RedisCache<K,V> remoteCache = null;
 
     /** 加载锁映射，用于防止缓存击穿 */
     private HashMap<Integer, ReentrantLock> loadLockMap;
@@ -36,6 +44,24 @@ public class MultiLevelCache<K,V> extends AbstractCache<K,V> {
     /** 广播管理器，用于集群间缓存同步 */
     private final BroadcastManager broadcastManager;
 
+    /** 本地缓存版本戳，用于拒绝过期的回填 */
+    private final VersionStamps versionStamps = new VersionStamps();
+
+    /** 单键加载的批量合并器，未开启时为null */
+    private final MicroBatcher<K,V> loadBatcher;
+
+    /** 异步加载器调用器，加载器不是异步加载器时为null */
+    private final AsyncLoaderInvoker<K,V> asyncLoader;
+
+    /** 已存在键的布隆过滤器，未开启时为null */
+    private final KeyBloomFilter bloomFilter;
+
+    /** 远程缓存的延迟写队列，未开启时为null */
+    private final WriteBehindQueue<String,V> writeBehind;
+
+    /** 缓存写入器的异步队列，未配置写入器或同步写入时为null */
+    private final WriteBehindQueue<K,V> writerQueue;
+
     /**
      * 构造函数
      *
@@ -56,12 +82,23 @@ public class MultiLevelCache<K,V> extends AbstractCache<K,V> {
         }
         if(!onlyLocalCache()) remoteCache = new RedisCache<>(config,redisTemplate);
         this.broadcastManager = broadcastManager;
-        if(config.loader != null && config.loadLock){
+        this.asyncLoader = AsyncLoaderInvoker.create(config);
+        this.bloomFilter = config.getBloomFilterKeys() == null ? null
+                : new KeyBloomFilter(config.getBloomFilterKeys(), config.getBloomFilterFpp());
+        this.writeBehind = config.getWriteBehindCapacity() == null || localCache == null || remoteCache == null ? null
+                : new WriteBehindQueue<>(config.name, config.getWriteBehindCapacity(), WriteBehindQueue.DEFAULT_BATCH_SIZE,
+                        config.getWriteBehindDelay(), config.getWriteBehindTimeout(), this::flushWriteBehind);
+        this.writerQueue = config.getWriter() == null || config.getWriterQueueCapacity() == null ? null
+                : new WriteBehindQueue<>(config.name + "-writer", config.getWriterQueueCapacity(), WriteBehindQueue.DEFAULT_BATCH_SIZE,
+                        config.getWriterDelay(), config.getWriterTimeout(), this::flushWriter);
+        if(config.loader != null && config.loadLock && asyncLoader == null){
             loadLockMap= new HashMap<>(config.loadLockShards);
             for(int i =0;i<config.loadLockShards;i++){
                 loadLockMap.put(i,new ReentrantLock());
             }
         }
+        this.loadBatcher = config.loader == null || config.getLoaderBatchSize() == null ? null
+                : new MicroBatcher<>(this::loadBatch, config.getLoaderBatchSize(), config.getLoaderBatchWindow());
     }
 
     /**
@@ -73,9 +110,42 @@ public class MultiLevelCache<K,V> extends AbstractCache<K,V> {
         return localCache;
     }
 
+    /**
+     * 获取已存在键的布隆过滤器
+     *
+     * @return 布隆过滤器，未开启时返回null
+     */
+    public KeyBloomFilter getBloomFilter() {
+        return bloomFilter;
+    }
+
+    /**
+     * 从全部存在的键重建布隆过滤器
+     *
+     * @param keys 全部存在的原始键，通常从数据源读取
+     * @throws CacheException 未开启布隆过滤器
+     */
+    public void rebuildBloomFilter(Iterable<? extends K> keys) {
+        if(bloomFilter == null) throw new CacheException("bloom filter is not enabled: " + config().name);
+        bloomFilter.rebuild(() -> new Iterator<String>() {
+            private final Iterator<? extends K> iterator = keys.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public String next() {
+                return buildKey(iterator.next());
+            }
+        });
+    }
+
     /**
      * 获取缓存值
-     * <p>按照本地缓存 -> 远程缓存 -> 缓存加载器的顺序查找</p>
+     * <p>按照本地缓存 -> 远程缓存 -> 缓存加载器的顺序查找，本地缓存未命中且布隆过滤器判断键不存在时直接返回null。
+     * 开启延迟写时，尚未写入远程缓存的操作优先于远程缓存中的值</p>
      *
      * @param key 原始键
      * @param newKey 转换后的键
@@ -87,36 +157,65 @@ public class MultiLevelCache<K,V> extends AbstractCache<K,V> {
         if(hasLocalCache()){
             result = localCache.do_GET(key,newKey);
             logger.info("get from local cache ,key:{} result: {}",newKey,JSON.toJSONString(result));
-            if(result == null && remoteCache != null){
+            if(result != null) return result;
+            if(isAbsent(newKey)) return null;
+            Object pendingWrite = writeBehind == null ? null : writeBehind.pending(newKey);
+            //待删除的键不读取远程缓存中的旧值，也不加载
+            if(pendingWrite != null) return pendingWrite == WriteBehindQueue.REMOVED ? null : (V) pendingWrite;
+            if(remoteCache != null){
+                long stamp = versionStamps.stamp(newKey);
                 result = remoteCache.do_GET(key,newKey);
                 logger.info("get from remote cache ,no result key:{} result: {}",newKey,JSON.toJSONString(result));
-                if(result!= null) localCache.do_PUT(newKey,result);
+                if(result!= null) backfillLocal(newKey,result,stamp);
             }
         }else if (config().getCacheType().equals(CacheType.REMOTE)){
+            if(isAbsent(newKey)) return null;
             result = remoteCache.do_GET(key,newKey);
             logger.info("get from remote cache ,key:{} result: {}",newKey,JSON.toJSONString(result));
         }
         if(result == null && config().getLoader()!= null){
+            long stamp = hasLocalCache() ? versionStamps.stamp(newKey) : 0L;
             try {
-                result = load(newKey,key);
+                result = loadBatcher != null ? loadBatcher.get(key) : load(newKey,key);
             } catch (Throwable e) {
+                V stale = asyncLoader == null ? null : asyncLoader.stale(key);
+                if(stale != null){
+                    //旧值只返回给调用方，不写回缓存
+                    logger.warn("failed to load cache, use stale value,{}",newKey,e);
+                    return stale;
+                }
                 logger.error("failed to load cache,{}",newKey,e);
-                throw new CacheInvokeException(e);
+                throw e instanceof CacheInvokeException ? (CacheInvokeException) e : new CacheInvokeException(e);
             }
             logger.info("load data ,no result key:{} result: {}",newKey,JSON.toJSONString(result));
             if(result !=null) {
+                if(bloomFilter != null) bloomFilter.put(newKey);
                 if(remoteCache != null) {
                     do_PUT(newKey,result);
                 }else {
-                    localCache.do_PUT(newKey,result);
+                    backfillLocal(newKey,result,stamp);
                 }
-            }else if(hasLocalCache()&&config().cacheNullValue != null){
-                localCache.do_PUT(newKey, config().cacheNullValue);
+            }else {
+                //空值标记写入远程缓存，其他节点和本地缓存淘汰后不再重复加载
+                if(remoteNullValue()) remoteCache.do_PUT(newKey, config().cacheNullValue);
+                if(hasLocalCache()&&config().cacheNullValue != null) backfillLocal(newKey, config().cacheNullValue,stamp);
             }
         }
         return result;
     }
 
+    /**
+     * 判断布隆过滤器是否确定键不存在
+     *
+     * @param key 转换后的键
+     * @return 确定不存在时返回true
+     */
+    private boolean isAbsent(String key) {
+        if(bloomFilter == null || bloomFilter.mightContain(key)) return false;
+        logger.info("skip key absent from bloom filter ,key:{}",key);
+        return true;
+    }
+
     /**
      * 批量获取缓存值
      *
@@ -126,65 +225,297 @@ public class MultiLevelCache<K,V> extends AbstractCache<K,V> {
     @Override
     protected Map<K, V> do_GET_ALL(Map<String, K> keys) {
         Map<K,V> result = null;
+        Set<String> pendingKeys = Collections.emptySet();
         if(hasLocalCache()){
             result = localCache.do_GET_ALL(keys);
             logger.info("get from local cache ,key:{} result: {}",JSON.toJSONString(keys.keySet()),JSON.toJSONString(result));
-            if(result.size()< keys.size() && remoteCache != null){
+            //本地缓存对未命中的键也返回null值，不能按结果数量判断
+            Map<String,K> noResultKeys  = calcNoResultKeys(result,keys);
+            pendingKeys = resolvePending(noResultKeys, result);
+            noResultKeys = excludeKeys(noResultKeys, pendingKeys);
+            if(!noResultKeys.isEmpty() && remoteCache != null){
                 Map<K,V> remoteResult = null;
-                Map<String,K> noResultKeys  = calcNoResultKeys(result,keys);
+                Map<String,Long> stamps = stampAll(noResultKeys.keySet());
                 remoteResult = remoteCache.do_GET_ALL(noResultKeys);
                 logger.info("get from remote cache ,no result key:{} result: {}",JSON.toJSONString(noResultKeys.keySet()),JSON.toJSONString(remoteResult));
                 if(remoteResult!=null&&!remoteResult.isEmpty()){
                     result.putAll(remoteResult);
-                    localCache.putAll(remoteResult);
+                    backfillLocal(noResultKeys,remoteResult,stamps);
                 }
             }
         }else if (config().getCacheType().equals(CacheType.REMOTE)){
             result = remoteCache.do_GET_ALL(keys);
             logger.info("get from remote cache ,key:{} result: {}",JSON.toJSONString(keys.keySet()),JSON.toJSONString(result));
         }
-        //计算出没有从缓存返回的key
-        Map<String,K> noResultKeys  = calcNoResultKeys(result,keys);
+        //计算出没有从缓存返回的key，待删除的键不加载
+        Map<String,K> noResultKeys  = excludeKeys(calcNoResultKeys(result,keys), pendingKeys);
         if(noResultKeys.isEmpty()) return result;
         logger.info("empty keys :{} ",JSON.toJSONString(noResultKeys.keySet()));
+        loadMissing(noResultKeys, result);
+        return result;
+    }
+
+    /**
+     * 批量获取缓存值，远程缓存的值在第一次访问时才解码
+     * <p>本地缓存的结果直接返回，远程缓存的值解码后再回填本地缓存，没有访问的值不回填</p>
+     *
+     * @param keys 转换后的键与原始键的映射
+     * @return 延迟解码的键值对映射
+     */
+    @Override
+    protected Map<K, V> do_GET_ALL_LAZY(Map<String, K> keys) {
+        if(remoteCache == null) return do_GET_ALL(keys);
+        Map<K,V> localResult = hasLocalCache() ? localCache.do_GET_ALL(keys) : null;
+        Map<String,K> noResultKeys  = calcNoResultKeys(localResult,keys);
+        if(noResultKeys.isEmpty()) return localResult;
+        Set<String> pendingKeys = hasLocalCache() ? resolvePending(noResultKeys, localResult) : Collections.emptySet();
+        noResultKeys = excludeKeys(noResultKeys, pendingKeys);
+        if(noResultKeys.isEmpty()) return localResult;
+        Map<String,Long> stamps = hasLocalCache() ? stampAll(noResultKeys.keySet()) : null;
+        Map<String,byte[]> remoteResult = remoteCache.do_GET_ALL_ENCODED(noResultKeys.keySet());
+        LazyValueMap<K,V> result;
+        if(hasLocalCache()) {
+            Map<K,String> stringKeys = new HashMap<>(noResultKeys.size());
+            noResultKeys.forEach((key, originalKey) -> stringKeys.put(originalKey, key));
+            result = new LazyValueMap<>(valueDecoder, (originalKey, value) -> {
+                String key = stringKeys.get(originalKey);
+                backfillLocal(key, value, stamps.get(key));
+            }, keys.size());
+            localResult.forEach(result::put);
+        }else {
+            result = new LazyValueMap<>(valueDecoder, null, keys.size());
+        }
+        Map<String,K> missingKeys = new HashMap<>();
+        noResultKeys.forEach((key, originalKey) -> {
+            byte[] bytes = remoteResult.get(key);
+            result.putEncoded(originalKey, bytes);
+            if(bytes == null) missingKeys.put(key, originalKey);
+        });
+        logger.info("lazy get from remote cache ,key:{} missing key:{}",JSON.toJSONString(noResultKeys.keySet()),JSON.toJSONString(missingKeys.keySet()));
+        if(!missingKeys.isEmpty()) loadMissing(missingKeys, result);
+        return result;
+    }
+
+    /**
+     * 从缓存加载器加载缓存中不存在的键
+     *
+     * @param noResultKeys 未命中的键映射
+     * @param result 结果映射，加载到的值写入其中
+     */
+    private void loadMissing(Map<String,K> noResultKeys, Map<K,V> result) {
         //从loader批量加载
         if(config().getLoader()!= null){
+            Map<String,Long> stamps = hasLocalCache() ? stampAll(noResultKeys.keySet()) : null;
             Map<K, V> loadResult = null;
             try {
                 loadResult = loadAll(noResultKeys.keySet(),Sets.newHashSet(noResultKeys.values()));
                 logger.info("load data ,key:{} result: {}",JSON.toJSONString(noResultKeys.keySet()),JSON.toJSONString(loadResult));
             } catch (Throwable e) {
+                if(fillStale(noResultKeys, result)){
+                    logger.warn("failed to load cache, use stale value,{}", JSON.toJSONString(noResultKeys.keySet()),e);
+                    return;
+                }
                 logger.error("failed to load cache,{}", JSON.toJSONString(noResultKeys.keySet()),e);
-                throw new CacheInvokeException(e);
+                throw e instanceof CacheInvokeException ? (CacheInvokeException) e : new CacheInvokeException(e);
             }
             if(loadResult != null && !loadResult.isEmpty()){
                 result.putAll(loadResult);
+                if(bloomFilter != null) {
+                    for (Map.Entry<String,K> entry : noResultKeys.entrySet()) {
+                        if(loadResult.get(entry.getValue()) != null) bloomFilter.put(entry.getKey());
+                    }
+                }
                 if(remoteCache != null){
-                    putAll(loadResult);
-                }else{
-                    Map<String,V> newMap = new HashMap<>();
-                    loadResult.entrySet().stream()
-                            .filter(entry -> entry.getValue() != null).forEach(entry -> newMap.put(buildKey(entry.getKey()),entry.getValue()));
-                    if(!CollectionUtils.isEmpty(newMap)){
-                        if(hasLocalCache()) localCache.do_PUT_ALL(newMap);
+                    //加载的值只写入缓存，不经过缓存写入器写回数据源
+                    Map<String,V> loadedMap = new HashMap<>(noResultKeys.size() * 4 / 3 + 1);
+                    for (Map.Entry<String,K> entry : noResultKeys.entrySet()) {
+                        V value = loadResult.get(entry.getValue());
+                        if(value != null || (loadResult.containsKey(entry.getValue()) && config().cacheNullValue != null)) {
+                            loadedMap.put(entry.getKey(), value);
+                        }
                     }
+                    if(!loadedMap.isEmpty()) do_PUT_ALL(loadedMap);
+                }else if(hasLocalCache()){
+                    backfillLocal(noResultKeys,loadResult,stamps);
                 }
             }
             //处理空值，防止缓存穿透
-            if(hasLocalCache()&&config().cacheNullValue !=null){
+            if((hasLocalCache()||remoteNullValue())&&config().cacheNullValue !=null){
                 Map<String,K> noResultFinalKeys  = calcNoResultKeys(loadResult,noResultKeys);
                 if(!noResultFinalKeys.isEmpty()) {
-                    noResultFinalKeys.forEach((key,originalKey) -> localCache.do_PUT(key, config().cacheNullValue));
-                    logger.info("set local cache to prevent cache penetration ,key:{}",JSON.toJSONString(noResultFinalKeys.keySet()));
+                    if(remoteNullValue()) {
+                        Map<String,V> nullValues = new HashMap<>(noResultFinalKeys.size() * 4 / 3 + 1);
+                        noResultFinalKeys.keySet().forEach(key -> nullValues.put(key, config().cacheNullValue));
+                        remoteCache.do_PUT_ALL(nullValues);
+                    }
+                    if(hasLocalCache()) noResultFinalKeys.forEach((key,originalKey) -> backfillLocal(key, config().cacheNullValue, stamps.get(key)));
+                    logger.info("set null value to prevent cache penetration ,key:{}",JSON.toJSONString(noResultFinalKeys.keySet()));
 
                 }
             }
         }
-        return result;
     }
 
 
 
+    /**
+     * 回填本地缓存
+     * <p>获取版本戳之后如果键被失效过，说明回填的值可能已过期，直接丢弃。
+     * 失效总是先前进版本戳再操作本地缓存，写入后再校验一次版本戳，
+     * 校验与写入之间发生的失效可能被回填覆盖，此时移除本地缓存</p>
+     *
+     * @param key 键
+     * @param value 值
+     * @param stamp 读取前的版本戳
+     */
+    private void backfillLocal(String key, V value, long stamp) {
+        if (!versionStamps.validate(key, stamp)) {
+            logger.debug("discard stale local backfill ,key:{}", key);
+            return;
+        }
+        localCache.do_PUT(key, value);
+        if (!versionStamps.validate(key, stamp)) {
+            logger.debug("revert stale local backfill ,key:{}", key);
+            localCache.do_REMOVE(key);
+        }
+    }
+
+    /**
+     * 批量回填本地缓存
+     * <p>与单键回填相同，写入后再校验一次版本戳，移除写入期间被失效的键</p>
+     *
+     * @param keys 转换后的键与原始键的映射
+     * @param values 读取到的值
+     * @param stamps 读取前的版本戳
+     */
+    private void backfillLocal(Map<String,K> keys, Map<K,V> values, Map<String,Long> stamps) {
+        Map<String,V> newMap = new HashMap<>();
+        keys.forEach((key, originalKey) -> {
+            V value = values.get(originalKey);
+            if (value != null && versionStamps.validate(key, stamps.get(key))) newMap.put(key, value);
+        });
+        if(newMap.isEmpty()) return;
+        localCache.do_PUT_ALL(newMap);
+        Set<String> staleKeys = new HashSet<>();
+        newMap.keySet().forEach(key -> {
+            if (!versionStamps.validate(key, stamps.get(key))) staleKeys.add(key);
+        });
+        if(!staleKeys.isEmpty()) {
+            logger.debug("revert stale local backfill ,keys:{}", staleKeys);
+            localCache.do_REMOVE_ALL(staleKeys);
+        }
+    }
+
+    /**
+     * 批量获取版本戳
+     *
+     * @param keys 键集合
+     * @return 键与版本戳的映射
+     */
+    private Map<String,Long> stampAll(Set<String> keys) {
+        Map<String,Long> stamps = new HashMap<>(keys.size());
+        keys.forEach(key -> stamps.put(key, versionStamps.stamp(key)));
+        return stamps;
+    }
+
+    /**
+     * 从延迟写队列读取本地缓存未命中的键
+     * <p>与单键读取相同，待写入的值直接放入结果，待删除的键结果为null，这些键都不读取远程缓存中的旧值，也不加载</p>
+     *
+     * @param noResultKeys 本地缓存未命中的键与原始键的映射
+     * @param result 结果
+     * @return 有待写入或待删除操作的键，没有开启延迟写时为空
+     */
+    private Set<String> resolvePending(Map<String,K> noResultKeys, Map<K,V> result) {
+        if(writeBehind == null || noResultKeys.isEmpty()) return Collections.emptySet();
+        Set<String> pendingKeys = new HashSet<>();
+        noResultKeys.forEach((key, originalKey) -> {
+            Object pendingWrite = writeBehind.pending(key);
+            if(pendingWrite == null) return;
+            pendingKeys.add(key);
+            result.put(originalKey, pendingWrite == WriteBehindQueue.REMOVED ? null : (V) pendingWrite);
+        });
+        return pendingKeys;
+    }
+
+    /**
+     * 排除部分键
+     *
+     * @param keys 转换后的键与原始键的映射
+     * @param excluded 排除的键
+     * @return 排除后的映射，没有排除时返回原映射
+     */
+    private static <K> Map<String,K> excludeKeys(Map<String,K> keys, Set<String> excluded) {
+        if(excluded.isEmpty()) return keys;
+        Map<String,K> remaining = new HashMap<>(keys);
+        remaining.keySet().removeAll(excluded);
+        return remaining;
+    }
+
+    /**
+     * 应用其他节点广播的消息
+     * <p>消息带有值且版本比本地更新时直接更新本地缓存，否则失效本地缓存。版本戳先于本地操作前进，使进行中的回填失效</p>
+     *
+     * @param keyVersions 键与消息版本的映射
+     * @param keyValues 键与编码后的值的映射
+     */
+    protected void applyRemote(Map<String,Long> keyVersions, Map<String,byte[]> keyValues) {
+        //广播的键包括写入和移除，多记录的键只会增加误判，不影响正确性
+        if(bloomFilter != null) keyVersions.keySet().forEach(bloomFilter::put);
+        if(!hasLocalCache()) return;
+        Map<String,Long> updateStamps = new HashMap<>();
+        Set<String> removeKeys = new HashSet<>();
+        keyVersions.forEach((key, version) -> {
+            boolean newer = keyValues.containsKey(key) && versionStamps.isNewer(key, version);
+            long stamp = versionStamps.invalidate(key, version);
+            if (newer) {
+                updateStamps.put(key, stamp);
+            } else {
+                removeKeys.add(key);
+            }
+        });
+        if(!removeKeys.isEmpty()) localCache.do_REMOVE_ALL(removeKeys);
+        updateStamps.forEach((key, stamp) -> {
+            try {
+                backfillLocal(key, (V) valueDecoder.apply(keyValues.get(key)), stamp);
+            } catch (Exception e) {
+                logger.error("failed to decode synced value ,key:{}", key, e);
+                localCache.do_REMOVE(key);
+            }
+        });
+    }
+
+    /**
+     * 清空本节点持有的缓存数据，即本地缓存，远程缓存由所有节点共享，不清空
+     */
+    @Override
+    protected void do_CLEAR() {
+        clearLocal();
+    }
+
+    /**
+     * 清空本地缓存
+     */
+    protected void clearLocal() {
+        //丢失广播消息后过滤器可能缺少其他节点写入的键
+        if(bloomFilter != null) bloomFilter.invalidate();
+        if(!hasLocalCache()) return;
+        versionStamps.invalidateAll();
+        localCache.do_CLEAR();
+    }
+
+    /**
+     * 关闭本地缓存和远程缓存
+     */
+    @Override
+    protected void do_CLOSE() {
+        //先刷新延迟写队列，再关闭远程缓存
+        if (writerQueue != null) writerQueue.close();
+        if (writeBehind != null) writeBehind.close();
+        if (localCache != null) localCache.close();
+        if (remoteCache != null) remoteCache.close();
+    }
+
     /**
      * 计算缓存不存在或者值为null的key值
      * @param result 当前结果
@@ -228,9 +559,31 @@ public class MultiLevelCache<K,V> extends AbstractCache<K,V> {
      */
     @Override
     protected void do_PUT(String key,V value) {
-        if(remoteCache != null) remoteCache.do_PUT(key,value);
+        if(bloomFilter != null) bloomFilter.put(key);
+        if(writeBehind != null) {
+            versionStamps.invalidate(key);
+            localCache.do_PUT(key,value);
+            try {
+                writeBehind.put(key,value);
+            } catch (CacheException e) {
+                //队列已满超时，本地缓存不保留没有写入远程缓存的值
+                localCache.do_REMOVE(key);
+                throw e;
+            }
+            return;
+        }
+        byte[] bytes = syncValue() ? valueEncoder.apply(value) : null;
+        if(remoteCache != null) {
+            if(bytes != null) remoteCache.do_PUT_ENCODED(key,bytes);
+            else remoteCache.do_PUT(key,value);
+        }
+        long version = versionStamps.invalidate(key);
         if(hasLocalCache()) localCache.do_PUT(key,value);
-        if(config().syncLocal) broadcastManager.publish(buildCacheMessage(key,CacheMessage.TYPE_PUT));
+        if(config().syncLocal) {
+            CacheMessage cacheMessage = buildCacheMessage(key,CacheMessage.TYPE_PUT,version);
+            if(bytes != null && bytes.length <= config().syncValueMaxSize) cacheMessage.setValues(new byte[][]{bytes});
+            broadcastManager.publish(cacheMessage);
+        }
 
     }
 
@@ -241,9 +594,333 @@ public class MultiLevelCache<K,V> extends AbstractCache<K,V> {
      */
     @Override
     protected void do_PUT_ALL(Map<String, V> map) {
-        if(remoteCache != null)remoteCache.do_PUT_ALL(map);
+        if(bloomFilter != null) map.keySet().forEach(bloomFilter::put);
+        if(writeBehind != null) {
+            invalidateAll(map.keySet());
+            localCache.do_PUT_ALL(map);
+            try {
+                //与同步写入相同，空值只在写入远程缓存时入队
+                map.forEach((key, value) -> {
+                    if(value != null) writeBehind.put(key, value);
+                    else if(remoteNullValue()) writeBehind.put(key, config().cacheNullValue);
+                });
+            } catch (CacheException e) {
+                localCache.do_REMOVE_ALL(map.keySet());
+                throw e;
+            }
+            return;
+        }
+        Map<String,byte[]> encodedMap = null;
+        if(syncValue()) {
+            encodedMap = new HashMap<>(map.size());
+            for (Map.Entry<String, V> entry : map.entrySet()) {
+                if(entry.getValue() != null) encodedMap.put(entry.getKey(), valueEncoder.apply(entry.getValue()));
+                else if(remoteNullValue()) encodedMap.put(entry.getKey(), valueEncoder.apply(config().cacheNullValue));
+            }
+        }
+        if(remoteCache != null) {
+            if(encodedMap != null) remoteCache.do_PUT_ALL_ENCODED(encodedMap);
+            else remoteCache.do_PUT_ALL(map);
+        }
+        long version = invalidateAll(map.keySet());
         if(hasLocalCache()) localCache.do_PUT_ALL(map);
-        if(config().syncLocal) broadcastManager.publish(buildCacheMessage(map.keySet(),CacheMessage.TYPE_PUT_ALL));
+        if(config().syncLocal) {
+            CacheMessage cacheMessage = buildCacheMessage(map.keySet(),CacheMessage.TYPE_PUT_ALL,version);
+            if(encodedMap != null) {
+                String[] messageKeys = cacheMessage.getKeys();
+                byte[][] values = new byte[messageKeys.length][];
+                for (int i = 0; i < messageKeys.length; i++) {
+                    byte[] bytes = encodedMap.get(messageKeys[i]);
+                    if(bytes != null && bytes.length <= config().syncValueMaxSize) values[i] = bytes;
+                }
+                cacheMessage.setValues(values);
+            }
+            broadcastManager.publish(cacheMessage);
+        }
+    }
+
+    /**
+     * 把延迟写队列的一批操作写入远程缓存，写入后再广播，其他节点不会读到远程缓存中的旧值
+     *
+     * @param batch 键到值或删除标记的映射
+     */
+    private void flushWriteBehind(Map<String,Object> batch) {
+        Map<String,byte[]> encodedMap = new LinkedHashMap<>(batch.size() * 4 / 3 + 1);
+        Set<String> removeKeys = new HashSet<>();
+        batch.forEach((key, value) -> {
+            if(value == WriteBehindQueue.REMOVED) removeKeys.add(key);
+            else encodedMap.put(key, valueEncoder.apply(value));
+        });
+        if(!encodedMap.isEmpty()) remoteCache.do_PUT_ALL_ENCODED(encodedMap);
+        if(!removeKeys.isEmpty()) remoteCache.do_REMOVE_ALL(removeKeys);
+        if(!config().syncLocal) return;
+        if(!encodedMap.isEmpty()) {
+            CacheMessage cacheMessage = buildCacheMessage(encodedMap.keySet(),CacheMessage.TYPE_PUT_ALL,invalidateAll(encodedMap.keySet()));
+            if(syncValue()) {
+                String[] messageKeys = cacheMessage.getKeys();
+                byte[][] values = new byte[messageKeys.length][];
+                for (int i = 0; i < messageKeys.length; i++) {
+                    byte[] bytes = encodedMap.get(messageKeys[i]);
+                    if(bytes.length <= config().syncValueMaxSize) values[i] = bytes;
+                }
+                cacheMessage.setValues(values);
+            }
+            broadcastManager.publish(cacheMessage);
+        }
+        if(!removeKeys.isEmpty()) {
+            broadcastManager.publish(buildCacheMessage(removeKeys,CacheMessage.TYPE_REMOVE_ALL,invalidateAll(removeKeys)));
+        }
+    }
+
+    /**
+     * 同步写入数据源，异步模式下放入写入器队列
+     *
+     * @param key 原始键
+     * @param value 值
+     * @throws CacheInvokeException 同步写入失败，缓存不会被更新
+     */
+    @Override
+    protected void do_WRITE(K key, V value) {
+        CacheWriter<K,V> writer = config().getWriter();
+        if(writer == null) return;
+        if(writerQueue != null) {
+            writerQueue.put(key, value);
+            return;
+        }
+        try {
+            writer.write(key, value);
+        } catch (Throwable e) {
+            logger.error("failed to write to data source,{}",key,e);
+            throw new CacheInvokeException(e);
+        }
+    }
+
+    /**
+     * 批量同步写入数据源，异步模式下放入写入器队列
+     * <p>值为null的键只缓存空值，不写入数据源</p>
+     *
+     * @param map 原始键值对映射
+     * @throws CacheInvokeException 同步写入失败，缓存不会被更新
+     */
+    @Override
+    protected void do_WRITE_ALL(Map<K,V> map) {
+        CacheWriter<K,V> writer = config().getWriter();
+        if(writer == null) return;
+        Map<K,V> values = new LinkedHashMap<>(map.size() * 4 / 3 + 1);
+        map.forEach((key, value) -> {
+            if(value != null) values.put(key, value);
+        });
+        if(values.isEmpty()) return;
+        if(writerQueue != null) {
+            values.forEach(writerQueue::put);
+            return;
+        }
+        try {
+            writer.writeAll(values);
+        } catch (Throwable e) {
+            logger.error("failed to write to data source,{}",JSON.toJSONString(values.keySet()),e);
+            throw new CacheInvokeException(e);
+        }
+    }
+
+    /**
+     * 同步从数据源删除，异步模式下放入写入器队列
+     *
+     * @param key 原始键
+     * @throws CacheInvokeException 同步删除失败，缓存不会被移除
+     */
+    @Override
+    protected void do_DELETE(K key) {
+        CacheWriter<K,V> writer = config().getWriter();
+        if(writer == null) return;
+        if(writerQueue != null) {
+            writerQueue.remove(key);
+            return;
+        }
+        try {
+            writer.delete(key);
+        } catch (Throwable e) {
+            logger.error("failed to delete from data source,{}",key,e);
+            throw new CacheInvokeException(e);
+        }
+    }
+
+    /**
+     * 批量同步从数据源删除，异步模式下放入写入器队列
+     *
+     * @param keys 原始键集合
+     * @throws CacheInvokeException 同步删除失败，缓存不会被移除
+     */
+    @Override
+    protected void do_DELETE_ALL(Set<K> keys) {
+        CacheWriter<K,V> writer = config().getWriter();
+        if(writer == null || keys.isEmpty()) return;
+        if(writerQueue != null) {
+            keys.forEach(writerQueue::remove);
+            return;
+        }
+        try {
+            writer.deleteAll(keys);
+        } catch (Throwable e) {
+            logger.error("failed to delete from data source,{}",JSON.toJSONString(keys),e);
+            throw new CacheInvokeException(e);
+        }
+    }
+
+    /**
+     * 把写入器队列的一批操作写入数据源，失败时整批重试
+     *
+     * @param batch 原始键到值或删除标记的映射
+     */
+    private void flushWriter(Map<K,Object> batch) {
+        Map<K,V> values = new LinkedHashMap<>(batch.size() * 4 / 3 + 1);
+        Set<K> deleteKeys = new HashSet<>();
+        batch.forEach((key, value) -> {
+            if(value == WriteBehindQueue.REMOVED) deleteKeys.add(key);
+            else values.put(key, (V) value);
+        });
+        try {
+            if(!values.isEmpty()) config().getWriter().writeAll(values);
+            if(!deleteKeys.isEmpty()) config().getWriter().deleteAll(deleteKeys);
+        } catch (Throwable e) {
+            throw new CacheInvokeException(e);
+        }
+    }
+
+    /**
+     * 获取写入器队列中待写入数据源的键数
+     *
+     * @return 键数，未开启异步写入时返回0
+     */
+    public int getPendingWriterCount() {
+        return writerQueue == null ? 0 : writerQueue.size();
+    }
+
+    /**
+     * 获取延迟写队列中待写入的键数
+     *
+     * @return 键数，未开启延迟写时返回0
+     */
+    public int getPendingWriteCount() {
+        return writeBehind == null ? 0 : writeBehind.size();
+    }
+
+    /**
+     * 把写入器队列和延迟写队列中的所有操作立即写入数据源和远程缓存
+     */
+    public void flushWrites() {
+        if(writerQueue != null) writerQueue.flushAll();
+        if(writeBehind != null) writeBehind.flushAll();
+    }
+
+    /**
+     * 执行计算操作
+     * <p>有远程缓存时在Redis中比较并交换，跨节点原子，成功后更新本地缓存并广播；计算函数可能因并发更新被调用多次。
+     * 只有本地缓存或开启写后模式时在本节点内加锁计算，当前值依次从本地缓存、待写入的值和远程缓存读取。
+     * 缓存中都不存在时通过加载器读取数据源中的当前值，避免用null覆盖未缓存的数据</p>
+     *
+     * @param key 原始键
+     * @param newKey 转换后的键
+     * @param remappingFunction 计算函数
+     * @return 新值，移除时返回null
+     * @throws CacheInvokeException 加载当前值或同步写入数据源失败
+     */
+    @Override
+    protected V do_COMPUTE(K key, String newKey, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        ReentrantLock lock = computeLock(newKey);
+        lock.lock();
+        try {
+            if(remoteCache == null || writeBehind != null) {
+                V old = absentIfNullValue(current(key,newKey));
+                V value = remappingFunction.apply(key, old);
+                if(value == old) return value;
+                if(value == null) {
+                    do_DELETE(key);
+                    do_REMOVE(newKey);
+                } else {
+                    do_WRITE(key, value);
+                    do_PUT(newKey, value);
+                }
+                return value;
+            }
+            return remoteCache.computeEncoded(key, newKey, remappingFunction, k -> loadForCompute(newKey,k), (value, bytes) -> {
+                //远程缓存已更新，先写入数据源，成功后才更新本地缓存和广播新值
+                try {
+                    if(value == null) do_DELETE(key);
+                    else do_WRITE(key, value);
+                } catch (CacheInvokeException e) {
+                    //数据源写入失败时删除远程缓存，本地缓存和其他节点只会收到移除消息，下次读取重新加载
+                    do_REMOVE(newKey);
+                    throw e;
+                }
+                if(value != null && bloomFilter != null) bloomFilter.put(newKey);
+                long version = versionStamps.invalidate(newKey);
+                if(hasLocalCache()) {
+                    if(value == null) localCache.do_REMOVE(newKey);
+                    else localCache.do_PUT(newKey, value);
+                }
+                if(config().syncLocal) {
+                    CacheMessage cacheMessage = buildCacheMessage(newKey, value == null ? CacheMessage.TYPE_REMOVE : CacheMessage.TYPE_PUT, version);
+                    if(value != null && syncValue() && bytes.length <= config().syncValueMaxSize) cacheMessage.setValues(new byte[][]{bytes});
+                    broadcastManager.publish(cacheMessage);
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 读取计算使用的当前值，缓存中都不存在时调用加载器，加载的值不写回缓存
+     *
+     * @param key 原始键
+     * @param newKey 转换后的键
+     * @return 当前值，不存在时返回null
+     * @throws CacheInvokeException 加载失败
+     */
+    private V current(K key, String newKey) {
+        V result = hasLocalCache() ? localCache.do_GET(key,newKey) : null;
+        if(result != null) return result;
+        Object pendingWrite = writeBehind == null ? null : writeBehind.pending(newKey);
+        if(pendingWrite != null) return pendingWrite == WriteBehindQueue.REMOVED ? null : (V) pendingWrite;
+        if(remoteCache != null) result = remoteCache.do_GET(key,newKey);
+        return result != null ? result : loadForCompute(newKey,key);
+    }
+
+    /**
+     * 计算时缓存中不存在，通过加载器读取当前值
+     *
+     * @param newKey 转换后的键
+     * @param key 原始键
+     * @return 当前值，没有加载器或数据源中不存在时返回null
+     * @throws CacheInvokeException 加载失败
+     */
+    private V loadForCompute(String newKey, K key) {
+        if(config().getLoader() == null) return null;
+        try {
+            return load(newKey,key);
+        } catch (Throwable e) {
+            logger.error("failed to load cache for compute,{}",newKey,e);
+            throw e instanceof CacheInvokeException ? (CacheInvokeException) e : new CacheInvokeException(e);
+        }
+    }
+
+    /**
+     * 判断是否把空值写入远程缓存
+     *
+     * @return 是否写入
+     */
+    private boolean remoteNullValue() {
+        return remoteCache != null && Boolean.TRUE.equals(config().getRemoteNullValue());
+    }
+
+    /**
+     * 判断写入的值是否需要随消息广播
+     *
+     * @return 是否广播值
+     */
+    private boolean syncValue() {
+        return config().syncLocal && config().syncValueMaxSize != null && config().syncValueMaxSize > 0;
     }
 
     /**
@@ -254,10 +931,17 @@ public class MultiLevelCache<K,V> extends AbstractCache<K,V> {
      */
     @Override
     protected boolean do_REMOVE(String key) {
+        if(writeBehind != null) {
+            versionStamps.invalidate(key);
+            boolean removed = localCache.do_REMOVE(key);
+            writeBehind.remove(key);
+            return removed;
+        }
         boolean result = false;
         if(remoteCache != null) result = remoteCache.do_REMOVE(key);
+        long version = versionStamps.invalidate(key);
         if(hasLocalCache()) localCache.do_REMOVE(key);
-        if(config().syncLocal) broadcastManager.publish(buildCacheMessage(key,CacheMessage.TYPE_REMOVE));
+        if(config().syncLocal) broadcastManager.publish(buildCacheMessage(key,CacheMessage.TYPE_REMOVE,version));
         return result;
     }
 
@@ -268,17 +952,38 @@ public class MultiLevelCache<K,V> extends AbstractCache<K,V> {
      */
     @Override
     protected void do_REMOVE_ALL(Set<String> keys) {
+        if(writeBehind != null) {
+            invalidateAll(keys);
+            localCache.do_REMOVE_ALL(keys);
+            keys.forEach(writeBehind::remove);
+            return;
+        }
         if(remoteCache != null)remoteCache.do_REMOVE_ALL(keys);
+        long version = invalidateAll(keys);
         if(hasLocalCache()) localCache.do_REMOVE_ALL(keys);
-        if(config().syncLocal) broadcastManager.publish(buildCacheMessage(keys,CacheMessage.TYPE_REMOVE_ALL));
+        if(config().syncLocal) broadcastManager.publish(buildCacheMessage(keys,CacheMessage.TYPE_REMOVE_ALL,version));
+    }
+
+    /**
+     * 以同一个新版本失效一批键
+     *
+     * @param keys 键集合
+     * @return 版本
+     */
+    private long invalidateAll(Set<String> keys) {
+        long version = versionStamps.nextVersion();
+        keys.forEach(key -> versionStamps.invalidate(key, version));
+        return version;
     }
 
     /**
      * 判断是否配置了本地缓存
+     * <p>关闭后本地缓存已释放，返回false，广播和批量读取等内部路径不再访问本地缓存</p>
      *
      * @return 是否有本地缓存
      */
     public boolean hasLocalCache(){
+        if(closed) return false;
         return config().getCacheType().equals(CacheType.BOTH) || config().getCacheType().equals(CacheType.LOCAL);
     }
 
@@ -293,7 +998,7 @@ public class MultiLevelCache<K,V> extends AbstractCache<K,V> {
 
     /**
      * 从缓存加载器加载数据
-     * <p>使用分段锁防止缓存击穿</p>
+     * <p>使用分段锁防止缓存击穿，异步加载器由调用器合并同一个键的并发加载，不使用分段锁</p>
      *
      * @param stringKey 转换后的键
      * @param key 原始键
@@ -302,6 +1007,7 @@ public class MultiLevelCache<K,V> extends AbstractCache<K,V> {
      */
     protected V load(String stringKey,K key) throws Throwable {
         if(stringKey == null) return null;
+        if(asyncLoader != null) return asyncLoader.load(key);
         if(!config().loadLock){
            return config().getLoader().load(key);
         }
@@ -318,9 +1024,47 @@ public class MultiLevelCache<K,V> extends AbstractCache<K,V> {
         return result;
     }
 
+    /**
+     * 用旧值填充加载失败的键，旧值不写回缓存
+     *
+     * @param noResultKeys 未命中的键映射
+     * @param result 结果映射
+     * @return 是否有键使用了旧值
+     */
+    private boolean fillStale(Map<String,K> noResultKeys, Map<K,V> result) {
+        if(asyncLoader == null) return false;
+        boolean filled = false;
+        for (K key : noResultKeys.values()) {
+            V stale = asyncLoader.stale(key);
+            if(stale != null){
+                result.put(key, stale);
+                filled = true;
+            }
+        }
+        return filled;
+    }
+
+    /**
+     * 合并后的单键加载，由批量合并器的领导线程调用
+     *
+     * @param keys 原始键集合
+     * @return 加载的键值对映射
+     */
+    private Map<K,V> loadBatch(Set<K> keys) {
+        Set<String> stringKeys = new HashSet<>(keys.size() * 4 / 3 + 1);
+        keys.forEach(key -> stringKeys.add(buildKey(key)));
+        try {
+            return loadAll(stringKeys, keys);
+        } catch (CacheInvokeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new CacheInvokeException(e);
+        }
+    }
+
     /**
      * 批量从缓存加载器加载数据
-     * <p>使用分段锁防止并发加载</p>
+     * <p>使用分段锁防止并发加载，异步加载器受加载超时和并发上限保护，不使用分段锁</p>
      *
      * @param stringKeySet 转换后的键集合
      * @param keys 原始键集合
@@ -329,6 +1073,7 @@ public class MultiLevelCache<K,V> extends AbstractCache<K,V> {
      */
     protected Map<K,V> loadAll(Set<String> stringKeySet,Set<K> keys) throws Throwable{
         if(CollectionUtils.isEmpty(keys)) return null;
+        if(asyncLoader != null) return asyncLoader.loadAll(keys);
         if(!config().loadLock){
             return config().getLoader().loadAll(keys);
         }
@@ -352,13 +1097,15 @@ public class MultiLevelCache<K,V> extends AbstractCache<K,V> {
      *
      * @param key 键
      * @param type 消息类型
+     * @param version 消息版本
      * @return 缓存消息
      */
-    private CacheMessage buildCacheMessage(String key,int type){
+    private CacheMessage buildCacheMessage(String key,int type,long version){
         CacheMessage cacheMessage = new CacheMessage();
         cacheMessage.setCacheName(config().name);
         cacheMessage.setKeys(new String[]{key});
         cacheMessage.setType(type);
+        cacheMessage.setVersion(version);
         return cacheMessage;
     }
     /**
@@ -366,14 +1113,216 @@ public class MultiLevelCache<K,V> extends AbstractCache<K,V> {
      *
      * @param keys 键集合
      * @param type 消息类型
+     * @param version 消息版本
      * @return 缓存消息
      */
-    private CacheMessage buildCacheMessage(Set<String> keys,int type){
+    private CacheMessage buildCacheMessage(Set<String> keys,int type,long version){
         CacheMessage cacheMessage = new CacheMessage();
         cacheMessage.setCacheName(config().name);
         cacheMessage.setKeys(keys.toArray(new String[]{}));
         cacheMessage.setType(type);
+        cacheMessage.setVersion(version);
         return cacheMessage;
     }
 
+    /**
+     * 跨缓存批量获取中单个缓存的状态
+     * <p>由{@link SimpleCacheManager#multiGet(List)}分阶段驱动：先查本地缓存，再由管理器把所有缓存的远程读取合并到一次管道请求，
+     * 最后从加载器加载仍未命中的键。每个键只转换一次，回填本地缓存时使用与单个缓存相同的版本戳校验</p>
+     *
+     * @param <K> 键类型
+     * @param <V> 值类型
+     */
+    static final class BatchGet<K,V> {
+        /** 所属缓存 */
+        private final MultiLevelCache<K,V> cache;
+        /** 转换后的键与原始键的映射 */
+        private final Map<String,K> keys;
+        /** 结果 */
+        private Map<K,V> result;
+        /** 需要从远程缓存读取的键与原始键的映射，按管道中的顺序排列 */
+        private Map<String,K> remoteKeys = Collections.emptyMap();
+        /** 需要从远程缓存读取的原始键，按管道中的顺序排列 */
+        private List<K> remoteOriginalKeys = Collections.emptyList();
+        /** 远程读取前的版本戳 */
+        private Map<String,Long> stamps;
+        /** 延迟写队列中有待写入或待删除操作的键，不读取远程缓存也不加载 */
+        private Set<String> pendingKeys = Collections.emptySet();
+
+        /**
+         * 构造函数
+         *
+         * @param cache 所属缓存
+         * @param originalKeys 原始键集合
+         */
+        BatchGet(MultiLevelCache<K,V> cache, Set<K> originalKeys) {
+            this.cache = cache;
+            this.keys = new HashMap<>(originalKeys.size() * 4 / 3 + 1);
+            originalKeys.forEach(key -> keys.put(cache.buildKey(key), key));
+        }
+
+        /**
+         * 获取键的数量
+         *
+         * @return 数量
+         */
+        int size() {
+            return keys.size();
+        }
+
+        /**
+         * 从本地缓存读取，并计算需要从远程缓存读取的键
+         */
+        void lookupLocal() {
+            completeLocal(Collections.singletonList(lookupLocal(keys)));
+        }
+
+        /**
+         * 把键拆分为多段，用于并行读取本地缓存
+         *
+         * @param chunkSize 每段的键数量
+         * @return 转换后的键与原始键的映射列表
+         */
+        List<Map<String,K>> split(int chunkSize) {
+            if (keys.size() <= chunkSize) return Collections.singletonList(keys);
+            List<Map<String,K>> chunks = new ArrayList<>(keys.size() / chunkSize + 1);
+            Map<String,K> chunk = null;
+            for (Map.Entry<String,K> entry : keys.entrySet()) {
+                if (chunk == null || chunk.size() == chunkSize) {
+                    chunk = new HashMap<>(chunkSize * 4 / 3 + 1);
+                    chunks.add(chunk);
+                }
+                chunk.put(entry.getKey(), entry.getValue());
+            }
+            return chunks;
+        }
+
+        /**
+         * 从本地缓存读取一段键，不修改状态，可以在多个线程上并行执行
+         *
+         * @param chunk 转换后的键与原始键的映射
+         * @return 本地缓存的结果，没有本地缓存时为null
+         */
+        Map<K,V> lookupLocal(Map<String,K> chunk) {
+            return cache.hasLocalCache() ? cache.localCache.do_GET_ALL(chunk) : null;
+        }
+
+        /**
+         * 合并本地缓存的结果，并计算需要从远程缓存读取的键
+         *
+         * @param partials 各段键的本地缓存结果
+         */
+        void completeLocal(List<Map<K,V>> partials) {
+            if (partials.size() == 1 && partials.get(0) != null) {
+                result = partials.get(0);
+            } else {
+                result = new HashMap<>(keys.size() * 4 / 3 + 1);
+                partials.forEach(partial -> {
+                    if (partial != null) result.putAll(partial);
+                });
+            }
+            if (cache.hasLocalCache()) {
+                logger.info("batch get from local cache ,key:{} result: {}",JSON.toJSONString(keys.keySet()),JSON.toJSONString(result));
+            }
+            if (cache.remoteCache == null) return;
+            Map<String,K> noResultKeys = cache.calcNoResultKeys(result, keys);
+            if (cache.hasLocalCache()) pendingKeys = cache.resolvePending(noResultKeys, result);
+            remoteKeys = new LinkedHashMap<>(excludeKeys(noResultKeys, pendingKeys));
+            remoteOriginalKeys = new ArrayList<>(remoteKeys.values());
+            if (cache.hasLocalCache()) stamps = cache.stampAll(remoteKeys.keySet());
+        }
+
+        /**
+         * 获取需要从远程缓存读取的键
+         *
+         * @return 转换后的键集合，顺序与{@link #applyRemote(List)}的值一致
+         */
+        Set<String> remoteKeys() {
+            return remoteKeys.keySet();
+        }
+
+        /**
+         * 解码远程缓存读取到的值并回填本地缓存
+         *
+         * @param values 编码后的值，与{@link #remoteKeys()}顺序一致，未命中的键对应null
+         */
+        void applyRemote(List<byte[]> values) {
+            completeRemote(Collections.singletonList(decodeRemote(values, 0, remoteOriginalKeys.size())));
+        }
+
+        /**
+         * 解码远程缓存读取到的一段值，不修改状态，可以在多个线程上并行执行
+         *
+         * @param values 编码后的值，与{@link #remoteKeys()}顺序一致，未命中的键对应null
+         * @param from 起始下标（包含）
+         * @param to 结束下标（不包含）
+         * @return 解码后的键值对，不包含未命中的键
+         */
+        Map<K,V> decodeRemote(List<byte[]> values, int from, int to) {
+            Map<K,V> decoded = new HashMap<>((to - from) * 4 / 3 + 1);
+            if (values == null) return decoded;
+            for (int i = from; i < to; i++) {
+                byte[] bytes = values.get(i);
+                if (bytes != null) decoded.put(remoteOriginalKeys.get(i), (V) cache.valueDecoder.apply(bytes));
+            }
+            return decoded;
+        }
+
+        /**
+         * 合并远程缓存的结果并回填本地缓存
+         *
+         * @param partials 各段值的解码结果
+         */
+        void completeRemote(List<Map<K,V>> partials) {
+            Map<K,V> remoteResult;
+            if (partials.size() == 1) {
+                remoteResult = partials.get(0);
+            } else {
+                remoteResult = new HashMap<>(remoteOriginalKeys.size() * 4 / 3 + 1);
+                partials.forEach(remoteResult::putAll);
+            }
+            logger.info("batch get from remote cache ,key:{} result: {}",JSON.toJSONString(remoteKeys.keySet()),JSON.toJSONString(remoteResult));
+            if (remoteResult.isEmpty()) return;
+            result.putAll(remoteResult);
+            if (cache.hasLocalCache()) cache.backfillLocal(remoteKeys, remoteResult, stamps);
+        }
+
+        /**
+         * 获取需要从加载器加载的键
+         *
+         * @return 转换后的键与原始键的映射，没有加载器时为空
+         */
+        Map<String,K> missingKeys() {
+            if (cache.config().getLoader() == null) return Collections.emptyMap();
+            return excludeKeys(cache.calcNoResultKeys(result, keys), pendingKeys);
+        }
+
+        /**
+         * 从加载器加载仍未命中的键
+         *
+         * @param missingKeys 需要加载的键
+         */
+        void load(Map<String,K> missingKeys) {
+            cache.loadMissing(missingKeys, result);
+        }
+
+        /**
+         * 获取结果，未命中的键不包含在结果中
+         *
+         * @return 键值对映射
+         */
+        Map<K,V> result() {
+            result.values().removeIf(Objects::isNull);
+            return result;
+        }
+
+        /**
+         * 获取所属缓存
+         *
+         * @return 缓存
+         */
+        MultiLevelCache<K,V> cache() {
+            return cache;
+        }
+    }
 }
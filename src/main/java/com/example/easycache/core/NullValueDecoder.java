@@ -0,0 +1,63 @@
+package com.example.easycache.core;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 空值解码器
+ * <p>包装其他值解码器，空值标记直接还原为配置的空值对象，其他值交给被包装的解码器</p>
+ */
+public class NullValueDecoder extends AbstractValueDecoder {
+
+    /** 被包装的解码器 */
+    private final Function<byte[], Object> delegate;
+
+    /** 空值对象 */
+    private final Object nullValue;
+
+    /**
+     * 构造函数
+     *
+     * @param delegate 被包装的解码器
+     * @param nullValue 空值对象
+     */
+    public NullValueDecoder(Function<byte[], Object> delegate, Object nullValue) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.nullValue = Objects.requireNonNull(nullValue);
+    }
+
+    /**
+     * 解码字节数组
+     *
+     * @param buffer 字节数组
+     * @return 解码后的对象
+     */
+    @Override
+    protected Object doApply(byte[] buffer) {
+        if (NullValueEncoder.isNullValue(buffer)) {
+            return nullValue;
+        }
+        return delegate.apply(buffer);
+    }
+
+    /**
+     * 解码ByteBuffer
+     * <p>非空值标记直接交给被包装的解码器读取缓冲区</p>
+     *
+     * @param buffer 缓冲区，从当前位置读取到limit
+     * @return 解码后的对象
+     * @throws Exception 解码异常
+     */
+    @Override
+    protected Object doApply(ByteBuffer buffer) throws Exception {
+        if (buffer.remaining() == 1 && buffer.get(buffer.position()) == NullValueEncoder.NULL_HEADER) {
+            buffer.position(buffer.limit());
+            return nullValue;
+        }
+        if (delegate instanceof AbstractValueDecoder) {
+            return ((AbstractValueDecoder) delegate).decode(buffer);
+        }
+        return super.doApply(buffer);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.easycache.core;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 空值编码器
+ * <p>包装其他值编码器，把配置的空值对象编码为1字节的空值标记，其他值交给被包装的编码器。
+ * 空值标记与压缩格式头属于同一组保留字节，不会出现在Kryo编码结果的首字节，
+ * 由{@link NullValueDecoder}识别后直接还原为空值对象，不经过Kryo</p>
+ */
+public class NullValueEncoder extends AbstractValueEncoder {
+
+    /** 空值标记 */
+    static final byte NULL_HEADER = 0x70;
+
+    /** 被包装的编码器 */
+    private final Function<Object, byte[]> delegate;
+
+    /** 空值对象 */
+    private final Object nullValue;
+
+    /**
+     * 构造函数
+     *
+     * @param delegate 被包装的编码器
+     * @param nullValue 空值对象
+     */
+    public NullValueEncoder(Function<Object, byte[]> delegate, Object nullValue) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.nullValue = Objects.requireNonNull(nullValue);
+    }
+
+    /**
+     * 判断编码后的值是否为空值标记
+     *
+     * @param bytes 编码后的值
+     * @return 是否为空值标记
+     */
+    static boolean isNullValue(byte[] bytes) {
+        return bytes != null && bytes.length == 1 && bytes[0] == NULL_HEADER;
+    }
+
+    /**
+     * 编码对象，空值对象编码为空值标记
+     *
+     * @param value 要编码的对象
+     * @return 编码后的字节数组
+     */
+    @Override
+    public byte[] apply(Object value) {
+        if (value == nullValue || nullValue.equals(value)) {
+            return new byte[]{NULL_HEADER};
+        }
+        return delegate.apply(value);
+    }
+}
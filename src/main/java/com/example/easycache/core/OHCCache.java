@@ -1,9 +1,12 @@
 package com.example.easycache.core;
 
+import org.caffinitas.ohc.DirectValueAccess;
 import org.caffinitas.ohc.Eviction;
 import org.caffinitas.ohc.OHCache;
 import org.caffinitas.ohc.OHCacheBuilder;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -21,6 +24,9 @@ public class OHCCache<K, V> extends AbstractCache<K, V> {
     /** OHC缓存实例 */
     OHCache<String, byte[]> ohCache;
 
+    /** 热点对象缓存，未启用时为null */
+    private final HotObjectCache hotCache;
+
     /**
      * 构造函数
      *
@@ -40,6 +46,7 @@ public class OHCCache<K, V> extends AbstractCache<K, V> {
             builder.timeouts(true);
         }
         ohCache = builder.build();
+        hotCache = HotObjectCache.create(config);
     }
 
 
@@ -52,9 +59,8 @@ public class OHCCache<K, V> extends AbstractCache<K, V> {
      */
     @Override
     protected V do_GET(K key,String newKey) {
-        byte[] bytes = ohCache.get(newKey);
-        if (bytes == null) return null;
-        return (V) valueDecoder.apply(bytes);
+        if (hotCache != null) return (V) hotCache.get(newKey, this::read, ohCache::containsKey);
+        return read(newKey);
     }
 
     /**
@@ -67,15 +73,38 @@ public class OHCCache<K, V> extends AbstractCache<K, V> {
     protected Map<K, V> do_GET_ALL(Map<String, K> keys) {
         Map<K, V> resultMap = new HashMap<>();
         // 为所有请求的键添加结果，不存在的键返回null
-        keys.forEach((key, originalKey) -> {
+        keys.forEach((key, originalKey) -> resultMap.put(originalKey, do_GET(originalKey, key)));
+        return resultMap;
+    }
+
+    /**
+     * 读取并解码缓存值
+     * <p>解码器支持ByteBuffer时直接读取堆外内存，不拷贝为字节数组</p>
+     *
+     * @param key 键
+     * @return 缓存值
+     */
+    private V read(String key) {
+        if (!(valueDecoder instanceof AbstractValueDecoder)) {
             byte[] bytes = ohCache.get(key);
-            if (bytes != null) {
-                resultMap.put(originalKey, (V) valueDecoder.apply(bytes));
-            } else {
-                resultMap.put(originalKey, null);
+            if (bytes == null) return null;
+            return (V) valueDecoder.apply(bytes);
+        }
+        DirectValueAccess valueAccess = ohCache.getDirect(key);
+        if (valueAccess == null) return null;
+        try {
+            ByteBuffer buffer = valueAccess.buffer();
+            // 跳过OhcCacheValueSerializer写入的长度前缀
+            int length = buffer.getInt();
+            buffer.limit(buffer.position() + length);
+            return (V) ((AbstractValueDecoder) valueDecoder).decode(buffer);
+        } finally {
+            try {
+                valueAccess.close();
+            } catch (IOException e) {
+                throw new CacheException(e);
             }
-        });
-        return resultMap;
+        }
     }
 
     /**
@@ -87,15 +116,12 @@ public class OHCCache<K, V> extends AbstractCache<K, V> {
     @Override
     protected void do_PUT(String key,  V value) {
         byte[] bytes = valueEncoder.apply(value);
-        if(config().cacheNullValue == null){
-            ohCache.put(key, bytes);
-            return;
-        }
-        if(value == config().cacheNullValue && config().nullValueExpire !=null){
+        if(config().cacheNullValue != null && value == config().cacheNullValue && config().nullValueExpire !=null){
             ohCache.put(key,bytes,System.currentTimeMillis()+config().nullValueExpire.toMillis());
         }else{
             ohCache.put(key, bytes);
         }
+        if (hotCache != null) hotCache.invalidate(key);
     }
 
     /**
@@ -115,13 +141,15 @@ public class OHCCache<K, V> extends AbstractCache<K, V> {
             }
         });
         if(!serializeMap.isEmpty())ohCache.putAll(serializeMap);
-        if(nullValueMap.isEmpty()) return;
-        if(config().nullValueExpire!=null) {
-            long expireTimeStamp = System.currentTimeMillis() + config().nullValueExpire.toMillis();
-            nullValueMap.forEach((key, value) -> ohCache.put(key, value, expireTimeStamp));
-        }else{
-            nullValueMap.forEach((key, value) -> ohCache.put(key, value));
+        if(!nullValueMap.isEmpty()) {
+            if(config().nullValueExpire!=null) {
+                long expireTimeStamp = System.currentTimeMillis() + config().nullValueExpire.toMillis();
+                nullValueMap.forEach((key, value) -> ohCache.put(key, value, expireTimeStamp));
+            }else{
+                nullValueMap.forEach((key, value) -> ohCache.put(key, value));
+            }
         }
+        if (hotCache != null) hotCache.invalidateAll(map.keySet());
     }
 
     /**
@@ -132,7 +160,9 @@ public class OHCCache<K, V> extends AbstractCache<K, V> {
      */
     @Override
     protected boolean do_REMOVE(String key) {
-        return ohCache.remove(key);
+        boolean removed = ohCache.remove(key);
+        if (hotCache != null) hotCache.invalidate(key);
+        return removed;
     }
 
     /**
@@ -143,6 +173,29 @@ public class OHCCache<K, V> extends AbstractCache<K, V> {
     @Override
     protected void do_REMOVE_ALL(Set<String> keys) {
         ohCache.removeAll(keys);
+        if (hotCache != null) hotCache.invalidateAll(keys);
+    }
+
+    /**
+     * 清空缓存
+     */
+    @Override
+    protected void do_CLEAR() {
+        ohCache.clear();
+        if (hotCache != null) hotCache.clear();
+    }
+
+    /**
+     * 关闭OHC缓存，释放所有段占用的堆外内存
+     */
+    @Override
+    protected void do_CLOSE() {
+        if (hotCache != null) hotCache.clear();
+        try {
+            ohCache.close();
+        } catch (IOException e) {
+            throw new CacheException(e);
+        }
     }
 
 
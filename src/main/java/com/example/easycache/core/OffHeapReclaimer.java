@@ -0,0 +1,269 @@
+package com.example.easycache.core;
+
+import io.netty.buffer.ByteBuf;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 堆外缓冲区延迟释放器
+ * <p>所有堆外缓存共享一个时间轮，淘汰的缓冲区按到期时间放入对应的槽，由默认执行器每个刻度触发一次，批量释放到期的缓冲区。
+ * 不为每个缓存创建线程，也不为每个缓冲区创建任务对象，线程数和定时唤醒次数不随缓存数量增长</p>
+ * <p>延迟超过时间轮一圈的缓冲区记录到期刻度，轮到所在的槽时只释放已到期的缓冲区</p>
+ */
+final class OffHeapReclaimer {
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapReclaimer.class);
+
+    /** 默认刻度时长（毫秒） */
+    static final long DEFAULT_TICK_MILLIS = 100;
+
+    /** 默认槽数，一圈约51秒，覆盖常见的释放延迟 */
+    static final int DEFAULT_WHEEL_SIZE = 512;
+
+    /** 共享实例 */
+    private static final OffHeapReclaimer SHARED = new OffHeapReclaimer(DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE, System::nanoTime);
+
+    /** 刻度时长（纳秒） */
+    private final long tickNanos;
+
+    /** 槽，数量为2的幂 */
+    private final Bucket[] wheel;
+
+    /** 槽下标掩码 */
+    private final int mask;
+
+    /** 时钟 */
+    private final LongSupplier clock;
+
+    /** 时间轮起始时间 */
+    private final long startNanos;
+
+    /** 已处理的刻度 */
+    private long processedTick;
+
+    /** 待释放的缓冲区数量 */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /** 触发刻度的定时任务 */
+    private ScheduledFuture<?> tickTask;
+
+    /** 本次刻度到期的缓冲区，只在刻度任务中使用 */
+    private ByteBuf[] expired = new ByteBuf[64];
+
+    /**
+     * 构造函数
+     *
+     * @param tickMillis 刻度时长（毫秒）
+     * @param wheelSize 槽数，向上取整为2的幂
+     * @param clock 纳秒时钟
+     */
+    OffHeapReclaimer(long tickMillis, int wheelSize, LongSupplier clock) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        int size = Integer.highestOneBit(Math.max(2, wheelSize) * 2 - 1);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.clock = clock;
+        this.startNanos = clock.getAsLong();
+    }
+
+    /**
+     * 获取共享实例，并确保刻度任务已在默认执行器上运行
+     *
+     * @return 共享实例
+     */
+    static OffHeapReclaimer shared() {
+        SHARED.start();
+        return SHARED;
+    }
+
+    /**
+     * 停止共享实例的刻度任务，并立即释放所有待释放的缓冲区
+     * <p>执行器关闭后刻度任务不再运行，留在时间轮中的缓冲区不会再被释放，由执行器关闭时调用。之后再获取共享实例时重新启动刻度任务</p>
+     *
+     * @return 释放的缓冲区数量
+     */
+    static int shutdownShared() {
+        return SHARED.stop();
+    }
+
+    /**
+     * 启动刻度任务，执行器关闭后再次调用时重新启动
+     */
+    synchronized void start() {
+        if (tickTask != null && !tickTask.isDone()) return;
+        long tickMillis = TimeUnit.NANOSECONDS.toMillis(tickNanos);
+        tickTask = EasyCacheExecutor.defaultExecutor().scheduleAtFixedRate(this::tickSafely, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止刻度任务并释放所有待释放的缓冲区
+     *
+     * @return 释放的缓冲区数量
+     */
+    synchronized int stop() {
+        if (tickTask != null) {
+            // 执行器关闭时未执行的定时任务不会被取消，需要显式取消才能在下次启动时重新调度
+            tickTask.cancel(false);
+            tickTask = null;
+        }
+        return drain();
+    }
+
+    /**
+     * 延迟释放缓冲区
+     *
+     * @param buf 缓冲区
+     * @param delayMillis 延迟时间（毫秒），不大于0时立即释放
+     * @param owner 缓冲区所属的缓存，用于统计
+     */
+    void release(ByteBuf buf, long delayMillis, Object owner) {
+        if (delayMillis <= 0) {
+            NettyMemoryPool.releaseBuffer(buf);
+            return;
+        }
+        long now = clock.getAsLong() - startNanos;
+        long deadline = (now + TimeUnit.MILLISECONDS.toNanos(delayMillis) + tickNanos - 1) / tickNanos;
+        // 至少下一个刻度，避免放入正在处理的槽
+        deadline = Math.max(deadline, now / tickNanos + 1);
+        pending.incrementAndGet();
+        wheel[(int) (deadline & mask)].add(buf, deadline, owner);
+    }
+
+    /**
+     * 获取待释放的缓冲区数量
+     *
+     * @return 数量
+     */
+    int pending() {
+        return pending.get();
+    }
+
+    /**
+     * 获取指定缓存待释放的缓冲区数量
+     *
+     * @param owner 缓冲区所属的缓存
+     * @return 数量
+     */
+    int pending(Object owner) {
+        int count = 0;
+        for (Bucket bucket : wheel) {
+            count += bucket.count(owner);
+        }
+        return count;
+    }
+
+    private void tickSafely() {
+        try {
+            tick();
+        } catch (Throwable e) {
+            // 异常会取消定时任务，吞掉异常保证后续刻度继续执行
+            logger.error("failed to release off-heap buffers", e);
+        }
+    }
+
+    /**
+     * 处理从上次处理到当前时间之间的所有刻度，释放到期的缓冲区
+     *
+     * @return 释放的缓冲区数量
+     */
+    synchronized int tick() {
+        long currentTick = (clock.getAsLong() - startNanos) / tickNanos;
+        if (currentTick <= processedTick) return 0;
+        // 落后超过一圈时每个槽只需处理一次
+        long from = Math.max(processedTick + 1, currentTick - mask);
+        int released = 0;
+        for (long t = from; t <= currentTick; t++) {
+            released += expire(wheel[(int) (t & mask)], currentTick);
+        }
+        processedTick = currentTick;
+        return released;
+    }
+
+    /**
+     * 不等待延迟到期，立即释放所有待释放的缓冲区
+     * <p>只应在所有缓存都已关闭、不再有读取使用这些缓冲区时调用</p>
+     *
+     * @return 释放的缓冲区数量
+     */
+    synchronized int drain() {
+        int released = 0;
+        for (Bucket bucket : wheel) {
+            released += expire(bucket, Long.MAX_VALUE);
+        }
+        return released;
+    }
+
+    private int expire(Bucket bucket, long currentTick) {
+        int count = bucket.removeExpired(currentTick, this);
+        for (int i = 0; i < count; i++) {
+            NettyMemoryPool.releaseBuffer(expired[i]);
+            expired[i] = null;
+        }
+        pending.addAndGet(-count);
+        return count;
+    }
+
+    /**
+     * 时间轮的槽，使用平行数组保存缓冲区、到期刻度和所属缓存
+     */
+    private static final class Bucket {
+        private ByteBuf[] bufs = new ByteBuf[8];
+        private long[] deadlines = new long[8];
+        private Object[] owners = new Object[8];
+        private int size;
+
+        synchronized void add(ByteBuf buf, long deadline, Object owner) {
+            if (size == bufs.length) {
+                int capacity = size << 1;
+                bufs = Arrays.copyOf(bufs, capacity);
+                deadlines = Arrays.copyOf(deadlines, capacity);
+                owners = Arrays.copyOf(owners, capacity);
+            }
+            bufs[size] = buf;
+            deadlines[size] = deadline;
+            owners[size] = owner;
+            size++;
+        }
+
+        /**
+         * 移出到期的缓冲区，放入释放器的到期数组，在锁外释放
+         */
+        synchronized int removeExpired(long currentTick, OffHeapReclaimer reclaimer) {
+            int count = 0;
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (deadlines[i] <= currentTick) {
+                    if (count == reclaimer.expired.length) {
+                        reclaimer.expired = Arrays.copyOf(reclaimer.expired, count << 1);
+                    }
+                    reclaimer.expired[count++] = bufs[i];
+                } else {
+                    bufs[kept] = bufs[i];
+                    deadlines[kept] = deadlines[i];
+                    owners[kept] = owners[i];
+                    kept++;
+                }
+            }
+            Arrays.fill(bufs, kept, size, null);
+            Arrays.fill(owners, kept, size, null);
+            size = kept;
+            return count;
+        }
+
+        synchronized int count(Object owner) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (owners[i] == owner) count++;
+            }
+            return count;
+        }
+    }
+}
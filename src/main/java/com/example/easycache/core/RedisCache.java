@@ -4,10 +4,21 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * Redis缓存实现
@@ -18,9 +29,29 @@ import java.util.Set;
  */
 public class RedisCache<K,V> extends AbstractCache<K,V> {
 
+    /** 计算操作在并发更新时的最大尝试次数 */
+    static final int MAX_COMPUTE_ATTEMPTS = 16;
+
+    /** 当前值与期望值相同时替换，参数为期望值、新值和过期毫秒数（0表示不过期） */
+    private static final DefaultRedisScript<Long> REPLACE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "if ARGV[3] == '0' then redis.call('SET', KEYS[1], ARGV[2]) "
+                    + "else redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3]) end "
+                    + "return 1 end return 0", Long.class);
+
+    /** 当前值与期望值相同时删除，参数为期望值 */
+    private static final DefaultRedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0", Long.class);
+
+    /** 脚本结果的序列化器 */
+    private static final RedisSerializer<Long> LONG_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
     /** Redis模板 */
     private final RedisTemplate<String,byte[]> redisTemplate;
 
+    /** 单键读取的微批处理器，未开启时为null */
+    private final MicroBatcher<String, byte[]> getBatcher;
+
     /**
      * 构造函数
      *
@@ -30,6 +61,8 @@ public class RedisCache<K,V> extends AbstractCache<K,V> {
     public RedisCache(CacheConfig<K,V> config, RedisTemplate<String,byte[]> redisTemplate) {
         super(config);
         this.redisTemplate = redisTemplate;
+        this.getBatcher = config.getRemoteBatchSize() == null ? null
+                : new MicroBatcher<>(this::do_GET_ALL_ENCODED, config.getRemoteBatchSize(), config.getRemoteBatchWindow());
     }
 
     /**
@@ -41,11 +74,163 @@ public class RedisCache<K,V> extends AbstractCache<K,V> {
      */
     @Override
     protected V do_GET(K key,String newKey) {
-        byte[] bytes = redisTemplate.opsForValue().get(newKey);
+        // 开启批量时与其他线程的并发读取合并为一次MGET，在调用线程上解码
+        byte[] bytes = getBatcher != null ? getBatcher.get(newKey) : redisTemplate.opsForValue().get(newKey);
         if(bytes == null) return null;
         return (V) valueDecoder.apply(bytes);
     }
 
+    /**
+     * 获取编码后的缓存值，不经过微批处理器
+     *
+     * @param key 转换后的键
+     * @return 编码后的值，未命中时为null
+     */
+    protected byte[] do_GET_ENCODED(String key) {
+        return redisTemplate.opsForValue().get(key);
+    }
+
+    /**
+     * 在Redis中原子地计算新值
+     * <p>读取当前值后计算，键不存在时用SET NX写入，存在时用脚本比较并替换或删除，当前值已被其他节点修改时重试。
+     * 键不存在时先通过加载器读取数据源中的当前值，避免用null覆盖未缓存的数据，同一次计算中只加载一次</p>
+     *
+     * @param key 原始键
+     * @param newKey 转换后的键
+     * @param remappingFunction 计算函数，当前值不存在或为空值对象时传入null
+     * @param missLoader 键不存在时读取当前值，为null时当前值视为不存在
+     * @param onChange 写入成功后的回调，参数为新值和编码后的新值，移除时都为null，为null时不回调
+     * @return 新值，移除时返回null
+     * @throws CacheException 超过最大尝试次数
+     * @throws CacheInvokeException 加载当前值失败
+     */
+    V computeEncoded(K key, String newKey, BiFunction<? super K, ? super V, ? extends V> remappingFunction,
+                     Function<? super K, ? extends V> missLoader, BiConsumer<V, byte[]> onChange) {
+        boolean loaded = false;
+        V loadedValue = null;
+        for (int attempt = 0; attempt < MAX_COMPUTE_ATTEMPTS; attempt++) {
+            byte[] bytes = do_GET_ENCODED(newKey);
+            V old;
+            if (bytes != null) {
+                old = absentIfNullValue((V) valueDecoder.apply(bytes));
+            } else {
+                if (!loaded && missLoader != null) {
+                    loadedValue = absentIfNullValue(missLoader.apply(key));
+                    loaded = true;
+                }
+                old = loadedValue;
+            }
+            V value = remappingFunction.apply(key, old);
+            if (value == old) return value;
+            byte[] encoded = null;
+            boolean updated;
+            if (value == null) {
+                // 键不存在时Redis中没有需要删除的值，只需删除数据源中加载到的值
+                updated = bytes == null || do_REMOVE_IF_ENCODED(newKey, bytes);
+            } else {
+                encoded = valueEncoder.apply(value);
+                updated = bytes == null ? do_PUT_IF_ABSENT_ENCODED(newKey, encoded) : do_REPLACE_ENCODED(newKey, bytes, encoded);
+            }
+            if (updated) {
+                if (onChange != null) onChange.accept(value, encoded);
+                return value;
+            }
+        }
+        throw new CacheException("failed to compute " + newKey + " after " + MAX_COMPUTE_ATTEMPTS + " attempts due to concurrent updates");
+    }
+
+    /**
+     * 执行计算操作，跨节点通过比较并交换保证原子性
+     *
+     * @param key 原始键
+     * @param newKey 转换后的键
+     * @param remappingFunction 计算函数
+     * @return 新值，移除时返回null
+     */
+    @Override
+    protected V do_COMPUTE(K key, String newKey, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        ReentrantLock lock = computeLock(newKey);
+        lock.lock();
+        try {
+            return computeEncoded(key, newKey, remappingFunction, this::loadForCompute, (value, encoded) -> {
+                if (value == null) do_DELETE(key);
+                else do_WRITE(key, value);
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 计算时键不存在，通过加载器读取当前值
+     *
+     * @param key 原始键
+     * @return 当前值，没有加载器或数据源中不存在时返回null
+     * @throws CacheInvokeException 加载失败
+     */
+    private V loadForCompute(K key) {
+        CacheLoader<K, V> loader = config().getLoader();
+        if (loader == null) return null;
+        try {
+            return loader.load(key);
+        } catch (CacheInvokeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new CacheInvokeException(e);
+        }
+    }
+
+    /**
+     * 键不存在时写入编码后的值
+     *
+     * @param key 转换后的键
+     * @param bytes 编码后的值
+     * @return 是否写入
+     */
+    protected boolean do_PUT_IF_ABSENT_ENCODED(String key, byte[] bytes) {
+        Duration expire = expire(bytes);
+        Boolean result = expire != null ? redisTemplate.opsForValue().setIfAbsent(key, bytes, expire)
+                : redisTemplate.opsForValue().setIfAbsent(key, bytes);
+        return Boolean.TRUE.equals(result);
+    }
+
+    /**
+     * 当前值与期望值相同时替换为新值
+     *
+     * @param key 转换后的键
+     * @param expected 期望的编码后的当前值
+     * @param bytes 编码后的新值
+     * @return 是否替换
+     */
+    protected boolean do_REPLACE_ENCODED(String key, byte[] expected, byte[] bytes) {
+        Duration expire = expire(bytes);
+        byte[] ttl = String.valueOf(expire == null ? 0 : Math.max(1, expire.toMillis())).getBytes(StandardCharsets.UTF_8);
+        Long result = redisTemplate.execute(REPLACE_SCRIPT, RedisSerializer.byteArray(), LONG_SERIALIZER,
+                Collections.singletonList(key), serializeValue(expected), serializeValue(bytes), ttl);
+        return result != null && result == 1L;
+    }
+
+    /**
+     * 当前值与期望值相同时删除
+     *
+     * @param key 转换后的键
+     * @param expected 期望的编码后的当前值
+     * @return 是否删除
+     */
+    protected boolean do_REMOVE_IF_ENCODED(String key, byte[] expected) {
+        Long result = redisTemplate.execute(REMOVE_SCRIPT, RedisSerializer.byteArray(), LONG_SERIALIZER,
+                Collections.singletonList(key), serializeValue(expected));
+        return result != null && result == 1L;
+    }
+
+    /**
+     * 按模板的值序列化器序列化脚本参数，保证与GET读到的值一致
+     */
+    private byte[] serializeValue(byte[] bytes) {
+        RedisSerializer<byte[]> serializer = (RedisSerializer<byte[]>) redisTemplate.getValueSerializer();
+        return serializer == null ? bytes : serializer.serialize(bytes);
+    }
+
     /**
      * 批量获取缓存值
      *
@@ -55,21 +240,47 @@ public class RedisCache<K,V> extends AbstractCache<K,V> {
     @Override
     protected Map<K, V> do_GET_ALL(Map<String, K> keys) {
         Map<K,V> resultMap = new HashMap<>();
-        List<byte[]> bytesList = redisTemplate.opsForValue().multiGet(keys.keySet());
-        int i =0 ;
-        for(String key : keys.keySet()) {
-            byte[] bytes = bytesList.get(i++);
+        do_GET_ALL_ENCODED(keys.keySet()).forEach((key, bytes) -> {
             if (bytes == null) {
                 resultMap.put(keys.get(key), null);
             } else {
                 resultMap.put(keys.get(key), (V) valueDecoder.apply(bytes));
             }
-        }
+        });
 
         return resultMap;
 
     }
 
+    /**
+     * 批量获取缓存值，值在第一次访问时解码
+     *
+     * @param keys 转换后的键与原始键的映射
+     * @return 延迟解码的键值对映射
+     */
+    @Override
+    protected Map<K, V> do_GET_ALL_LAZY(Map<String, K> keys) {
+        LazyValueMap<K,V> resultMap = new LazyValueMap<>(valueDecoder, null, keys.size());
+        do_GET_ALL_ENCODED(keys.keySet()).forEach((key, bytes) -> resultMap.putEncoded(keys.get(key), bytes));
+        return resultMap;
+    }
+
+    /**
+     * 批量获取编码后的缓存值
+     *
+     * @param keys 转换后的键集合
+     * @return 键与编码后的值的映射，未命中的键对应null
+     */
+    protected Map<String, byte[]> do_GET_ALL_ENCODED(Set<String> keys) {
+        Map<String, byte[]> resultMap = new HashMap<>(keys.size() * 4 / 3 + 1);
+        List<byte[]> bytesList = redisTemplate.opsForValue().multiGet(keys);
+        int i = 0;
+        for (String key : keys) {
+            resultMap.put(key, bytesList.get(i++));
+        }
+        return resultMap;
+    }
+
     /**
      * 添加缓存
      *
@@ -78,9 +289,19 @@ public class RedisCache<K,V> extends AbstractCache<K,V> {
      */
     @Override
     protected void do_PUT(String key, V value) {
-        byte[] bytes = valueEncoder.apply(value);
-        if(config().expire!=null) {
-            redisTemplate.opsForValue().set(key,bytes,config().expire);
+        do_PUT_ENCODED(key, valueEncoder.apply(value));
+    }
+
+    /**
+     * 添加已编码的缓存
+     *
+     * @param key 键
+     * @param bytes 编码后的值
+     */
+    protected void do_PUT_ENCODED(String key, byte[] bytes) {
+        Duration expire = expire(bytes);
+        if(expire!=null) {
+            redisTemplate.opsForValue().set(key,bytes,expire);
         }else {
             redisTemplate.opsForValue().set(key,bytes);
         }
@@ -98,23 +319,51 @@ public class RedisCache<K,V> extends AbstractCache<K,V> {
         map.forEach((key, value) -> {
             if(value !=null) {
                 newMap.put(key, valueEncoder.apply(value));
+            }else if(Boolean.TRUE.equals(config().remoteNullValue)) {
+                newMap.put(key, valueEncoder.apply(config().cacheNullValue));
             }
         });
+        do_PUT_ALL_ENCODED(newMap);
+    }
+
+    /**
+     * 批量添加已编码的缓存
+     *
+     * @param newMap 键与编码后的值的映射
+     */
+    protected void do_PUT_ALL_ENCODED(Map<String, byte[]> newMap) {
         if(newMap.isEmpty()) return;
-        if (config().expire == null) {
+        boolean noExpire = config().expire == null
+                && (config().nullValueExpire == null || newMap.values().stream().noneMatch(NullValueEncoder::isNullValue));
+        if (noExpire) {
             redisTemplate.opsForValue().multiSet(newMap);
         }else {
             redisTemplate.executePipelined(new SessionCallback<Object>() {
                 @Override
                 public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
                     RedisOperations<String, byte[]> valueOps = (RedisOperations<String, byte[]>) operations;
-                    newMap.forEach((key, value) -> valueOps.opsForValue().set(key,value, config().expire));
+                    newMap.forEach((key, value) -> {
+                        Duration expire = expire(value);
+                        if(expire != null) valueOps.opsForValue().set(key,value,expire);
+                        else valueOps.opsForValue().set(key,value);
+                    });
                     return null;
                 }
             });
         }
     }
 
+    /**
+     * 获取编码后的值的过期时间，空值标记使用空值过期时间
+     *
+     * @param bytes 编码后的值
+     * @return 过期时间，为null时不过期
+     */
+    private Duration expire(byte[] bytes) {
+        if(config().nullValueExpire != null && NullValueEncoder.isNullValue(bytes)) return config().nullValueExpire;
+        return config().expire;
+    }
+
     /**
      * 移除缓存
      *
@@ -135,4 +384,13 @@ public class RedisCache<K,V> extends AbstractCache<K,V> {
     protected void do_REMOVE_ALL(Set<String> keys) {
         redisTemplate.delete(keys);
     }
+
+    /**
+     * 清空本节点持有的缓存数据
+     * <p>Redis中的数据由所有节点共享，丢失失效消息不会使其过期，本节点不持有其他数据，不需要清空。
+     * 转换后的键不带缓存名称前缀，也无法只删除本缓存的键</p>
+     */
+    @Override
+    protected void do_CLEAR() {
+    }
 }
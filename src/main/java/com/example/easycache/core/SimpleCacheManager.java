@@ -1,6 +1,5 @@
 package com.example.easycache.core;
 
-import com.alibaba.fastjson2.JSON;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
@@ -9,7 +8,12 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.SessionCallback;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 简单缓存管理器实现
@@ -36,6 +40,12 @@ public class SimpleCacheManager implements CacheManager {
     /** Redis模板 */
     private final RedisTemplate<String, byte[]> redisTemplate;
 
+    /** 并行读取和解码的最小段长度 */
+    private static final int MIN_CHUNK_SIZE = 64;
+
+    /** 批量获取的键数量达到该值时并行读取本地缓存和解码远程值，不大于0时不并行 */
+    private int parallelThreshold = 1024;
+
     /**
      * 根据名称获取缓存
      *
@@ -63,135 +73,245 @@ public class SimpleCacheManager implements CacheManager {
 
     }
 
+    /**
+     * 获取已创建的缓存名称
+     *
+     * @return 缓存名称集合
+     */
+    @Override
+    public Set<String> getCacheNames() {
+        return Collections.unmodifiableSet(cacheMap.keySet());
+    }
+
     /**
      * 批量获取多个缓存的值
+     * <p>分三个阶段执行：先查询所有缓存的本地缓存，再把所有缓存未命中的键合并到一次管道请求读取远程缓存，
+     * 最后并发执行各个缓存的加载器，总耗时约为一次Redis往返加最慢的加载器。键数量达到并行阈值时，本地缓存读取和远程值解码
+     * 按段拆分后在解码线程池上并行执行</p>
      *
      * @param requests 批量请求列表
-     * @return 批量响应列表
+     * @return 批量响应列表，与请求顺序一致
+     * @throws CacheException 缓存不存在
+     * @throws CacheInvokeException 加载失败
      */
     @Override
-    public List<BatchResponse> multiGet(List<BatchRequest> requests) {
-
-        Map<String, Map> resultMap = new HashMap<>();
-        Map<String, Set> noResultKeysMap = new HashMap<>();
-        List<BatchResponse> batchResponseList = new ArrayList<>();
-        for (BatchRequest request : requests) {
-            MultiLevelCache cache = (MultiLevelCache) getCache(request.getCacheName());
-            if (cache.localCache != null) {
-                Map localResult = cache.localCache.getAll(request.getKeys());
-                logger.info(String.format("load from local cache ： %s ,result is ： %s",request.getCacheName(),JSON.toJSONString(localResult)));
-                resultMap.put(request.getCacheName(), localResult);
-                Set noResultKeys = calcNoResultKeys(request.getKeys(), localResult);
-                if (noResultKeys.size() > 0) noResultKeysMap.put(request.getCacheName(), noResultKeys);
+    public List<BatchResponse<?, ?>> multiGet(List<? extends BatchRequest<?, ?>> requests) {
+        List<MultiLevelCache.BatchGet<?, ?>> batches = new ArrayList<>(requests.size());
+        for (BatchRequest<?, ?> request : requests) {
+            batches.add(createBatch(request));
+        }
+        int totalKeys = 0;
+        for (MultiLevelCache.BatchGet<?, ?> batch : batches) {
+            totalKeys += batch.size();
+        }
+        if (isParallel(totalKeys)) {
+            int chunkSize = chunkSize(totalKeys);
+            List<Runnable> tasks = new ArrayList<>();
+            List<Runnable> completions = new ArrayList<>(batches.size());
+            for (MultiLevelCache.BatchGet<?, ?> batch : batches) {
+                addLocalTasks(batch, chunkSize, tasks, completions);
             }
+            runParallel(tasks);
+            completions.forEach(Runnable::run);
+        } else {
+            batches.forEach(MultiLevelCache.BatchGet::lookupLocal);
+        }
+        fetchRemote(batches);
+        loadMissing(batches);
+        List<BatchResponse<?, ?>> batchResponseList = new ArrayList<>(batches.size());
+        for (MultiLevelCache.BatchGet<?, ?> batch : batches) {
+            batchResponseList.add(toResponse(batch));
         }
+        return batchResponseList;
+    }
+
+    private <K, V> MultiLevelCache.BatchGet<K, V> createBatch(BatchRequest<K, V> request) {
+        Cache<K, V> cache = getCache(request.getCacheName());
+        if (!(cache instanceof MultiLevelCache)) {
+            throw new CacheException("cache not exists: " + request.getCacheName());
+        }
+        return new MultiLevelCache.BatchGet<>((MultiLevelCache<K, V>) cache, request.getKeys());
+    }
 
+    private <K, V> BatchResponse<K, V> toResponse(MultiLevelCache.BatchGet<K, V> batch) {
+        return new BatchResponse<>(batch.cache().config().getName(), batch.result());
+    }
+
+    /**
+     * 在一次管道请求中读取所有缓存未命中的键
+     *
+     * @param batches 各个缓存的批量获取状态
+     */
+    private void fetchRemote(List<MultiLevelCache.BatchGet<?, ?>> batches) {
+        List<MultiLevelCache.BatchGet<?, ?>> remoteBatches = new ArrayList<>();
+        for (MultiLevelCache.BatchGet<?, ?> batch : batches) {
+            if (!batch.remoteKeys().isEmpty()) remoteBatches.add(batch);
+        }
+        if (remoteBatches.isEmpty()) return;
         List<Object> resultList = redisTemplate.executePipelined(new SessionCallback<Object>() {
             @Override
             public Object execute(RedisOperations operations) throws DataAccessException {
                 RedisOperations<String, byte[]> valueOps = (RedisOperations<String, byte[]>) operations;
-                for (Map.Entry<String, Set> entry : noResultKeysMap.entrySet()) {
-                    String cacheName = entry.getKey();
-                    Set keys = entry.getValue();
-                    MultiLevelCache cache = (MultiLevelCache) getCache(cacheName);
-                    Set<String> newKeys = new HashSet<>();
-                    for (Object key : keys) {
-                        newKeys.add(cache.buildKey(key));
-                    }
-                    valueOps.opsForValue().multiGet(newKeys);
+                for (MultiLevelCache.BatchGet<?, ?> batch : remoteBatches) {
+                    valueOps.opsForValue().multiGet(batch.remoteKeys());
                 }
                 return null;
             }
         });
-
-        int iter =0;
-        for (Map.Entry<String, Set> entry : noResultKeysMap.entrySet()){
-            if(entry.getValue().isEmpty()) continue;
-            String cacheName = entry.getKey();
-            MultiLevelCache cache = (MultiLevelCache) getCache(cacheName);
-            if(cache.remoteCache== null) continue;
-            Set keys = entry.getValue();
-            Set hasResultKeys = new HashSet();
-            Map cacheResult = resultMap.computeIfAbsent(cacheName,n -> new HashMap<>());
-            List remoteResultList = new ArrayList();
-            List<byte[]> bytesList = (List<byte[]>) resultList.get(iter++);
-            int i =0 ;
-            for(Object key : keys) {
-                byte[] bytes = bytesList.get(i++);
-                if (bytes != null) {
-                    hasResultKeys.add(key);
-                    Object value = cache.config().getValueDecoder().apply(bytes);
-                    remoteResultList.add(value);
-                    cacheResult.put(key,value);
-                    if(cache.localCache!=null) cache.localCache.put(key,value);
-                }
-            }
-            logger.info(String.format("load from remote cache ： %s ,keys: %s ,result is ： %s",cacheName,JSON.toJSONString(keys),JSON.toJSONString(remoteResultList)));
-            keys.removeAll(hasResultKeys);
-        }
-
-        for (Map.Entry<String, Set> entry : noResultKeysMap.entrySet()){
-            if(entry.getValue().isEmpty()) continue;
-            String cacheName = entry.getKey();
-            Set keys = entry.getValue();
-            MultiLevelCache cache = (MultiLevelCache) getCache(cacheName);
-            Map cacheResult = resultMap.computeIfAbsent(cacheName,n -> new HashMap<>());
-            Set<String> stringKeys = new HashSet<>();
-            for (Object key : keys) {
-                stringKeys.add(cache.buildKey(key));
-            }
-            Map loadResult ;
-            try {
-                loadResult = cache.loadAll(stringKeys,keys);
-            } catch (Throwable e) {
-                logger.error("failed to load cache,{}", JSON.toJSONString(keys),e);
-                throw new CacheInvokeException(e);
+        int totalKeys = 0;
+        for (MultiLevelCache.BatchGet<?, ?> batch : remoteBatches) {
+            totalKeys += batch.remoteKeys().size();
+        }
+        if (!isParallel(totalKeys)) {
+            for (int i = 0; i < remoteBatches.size(); i++) {
+                remoteBatches.get(i).applyRemote((List<byte[]>) resultList.get(i));
             }
-            Set hasResultKeySet = new HashSet();
-            loadResult.entrySet().forEach(resultEntry -> {
-                Map.Entry loadResultEntry = (Map.Entry) resultEntry;
-                if(loadResultEntry.getValue()!=null){
-                    hasResultKeySet.add(loadResultEntry.getKey());
-                    cache.put(loadResultEntry.getKey(),loadResultEntry.getValue());
-                }
-            });
-            logger.info(String.format("load from loader ： %s ,keys : %s ,result is ： %s",cacheName,JSON.toJSONString(keys),JSON.toJSONString(loadResult.values())));
+            return;
+        }
+        int chunkSize = chunkSize(totalKeys);
+        List<Runnable> tasks = new ArrayList<>();
+        List<Runnable> completions = new ArrayList<>(remoteBatches.size());
+        for (int i = 0; i < remoteBatches.size(); i++) {
+            addDecodeTasks(remoteBatches.get(i), (List<byte[]>) resultList.get(i), chunkSize, tasks, completions);
+        }
+        runParallel(tasks);
+        completions.forEach(Runnable::run);
+    }
 
+    private boolean isParallel(int totalKeys) {
+        return parallelThreshold > 0 && totalKeys >= parallelThreshold;
+    }
 
-            keys.removeAll(hasResultKeySet);
-            cacheResult.putAll(loadResult);
-            if(cache.config.cacheNullValue!=null && cache.localCache!=null) {
-                for (Object key : keys) {
-                    cache.localCache.put(key, cache.config.cacheNullValue);
-                }
-            }
+    private int chunkSize(int totalKeys) {
+        return Math.max(MIN_CHUNK_SIZE, totalKeys / EasyCacheExecutor.decodePool().getParallelism() + 1);
+    }
+
+    /**
+     * 按段拆分本地缓存读取，各段结果在所有任务结束后合并
+     */
+    private <K, V> void addLocalTasks(MultiLevelCache.BatchGet<K, V> batch, int chunkSize, List<Runnable> tasks, List<Runnable> completions) {
+        List<Map<String, K>> chunks = batch.split(chunkSize);
+        List<Map<K, V>> partials = new ArrayList<>(Collections.nCopies(chunks.size(), null));
+        for (int i = 0; i < chunks.size(); i++) {
+            int index = i;
+            tasks.add(() -> partials.set(index, batch.lookupLocal(chunks.get(index))));
         }
+        completions.add(() -> batch.completeLocal(partials));
+    }
 
-        for (Map.Entry<String, Map> entry : resultMap.entrySet()){
-            String cacheName = entry.getKey();
-            BatchResponse batchResponse = new BatchResponse();
-            batchResponse.setCacheName(cacheName);
-            batchResponse.setValues(entry.getValue().values());
-            batchResponseList.add(batchResponse);
+    /**
+     * 按段拆分远程值的解码，各段结果在所有任务结束后合并并回填本地缓存
+     */
+    private <K, V> void addDecodeTasks(MultiLevelCache.BatchGet<K, V> batch, List<byte[]> values, int chunkSize, List<Runnable> tasks, List<Runnable> completions) {
+        int size = batch.remoteKeys().size();
+        int chunks = (size + chunkSize - 1) / chunkSize;
+        List<Map<K, V>> partials = new ArrayList<>(Collections.nCopies(chunks, null));
+        for (int i = 0; i < chunks; i++) {
+            int index = i;
+            tasks.add(() -> partials.set(index, batch.decodeRemote(values, index * chunkSize, Math.min(size, (index + 1) * chunkSize))));
         }
-        return batchResponseList;
+        completions.add(() -> batch.completeRemote(partials));
+    }
+
+    /**
+     * 在解码线程池上并行执行任务
+     * <p>第一个任务在调用线程上执行，等待所有任务结束后再抛出第一个异常</p>
+     *
+     * @param tasks 任务列表
+     */
+    private void runParallel(List<Runnable> tasks) {
+        if (tasks.size() == 1) {
+            tasks.get(0).run();
+            return;
+        }
+        ForkJoinPool pool = EasyCacheExecutor.decodePool();
+        List<ForkJoinTask<?>> futures = new ArrayList<>(tasks.size() - 1);
+        for (int i = 1; i < tasks.size(); i++) {
+            futures.add(pool.submit(tasks.get(i)));
+        }
+        RuntimeException failure = null;
+        try {
+            tasks.get(0).run();
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (ForkJoinTask<?> future : futures) {
+            try {
+                future.join();
+            } catch (RuntimeException e) {
+                if (failure == null) failure = e;
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * 设置并行读取和解码的键数量阈值
+     *
+     * @param parallelThreshold 键数量阈值，不大于0时不并行
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
     }
 
     /**
-     * 计算未命中的键
+     * 并发执行各个缓存的加载器
+     * <p>第一个缓存在调用线程上加载，其余缓存提交到加载执行器，执行器拒绝时在调用线程上加载。等待所有加载结束后再抛出第一个异常</p>
      *
-     * @param keys 所有键
-     * @param localResult 本地缓存结果
-     * @return 未命中的键集合
+     * @param batches 各个缓存的批量获取状态
      */
-    private Set calcNoResultKeys(Set keys, Map localResult) {
-        Set noResultKeys = new HashSet();
-        for (Object key : keys) {
-            if (localResult.get(key) == null) {
-                noResultKeys.add(key);
+    private void loadMissing(List<MultiLevelCache.BatchGet<?, ?>> batches) {
+        List<Runnable> loads = new ArrayList<>();
+        for (MultiLevelCache.BatchGet<?, ?> batch : batches) {
+            Runnable load = loadTask(batch);
+            if (load != null) loads.add(load);
+        }
+        if (loads.isEmpty()) return;
+        List<CompletableFuture<Void>> futures = new ArrayList<>(loads.size());
+        for (int i = 1; i < loads.size(); i++) {
+            try {
+                futures.add(CompletableFuture.runAsync(loads.get(i), EasyCacheExecutor.executor(EasyCacheExecutor.LOADER)));
+            } catch (RejectedExecutionException e) {
+                futures.add(runInline(loads.get(i)));
+            }
+        }
+        RuntimeException failure = null;
+        try {
+            loads.get(0).run();
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new CacheInvokeException(e.getCause());
+                }
             }
         }
-        return noResultKeys;
+        if (failure != null) throw failure;
+    }
+
+    private <K, V> Runnable loadTask(MultiLevelCache.BatchGet<K, V> batch) {
+        Map<String, K> missingKeys = batch.missingKeys();
+        if (missingKeys.isEmpty()) return null;
+        return () -> batch.load(missingKeys);
+    }
+
+    private CompletableFuture<Void> runInline(Runnable task) {
+        try {
+            task.run();
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
     }
 
     /**
@@ -215,4 +335,22 @@ public class SimpleCacheManager implements CacheManager {
     public void setBroadcastManager(BroadcastManager broadcastManager) {
         this.broadcastManager = broadcastManager;
     }
+
+    /**
+     * 关闭缓存管理器
+     * <p>先停止广播订阅，避免关闭过程中继续应用失效消息，再逐个关闭缓存。单个缓存关闭失败不影响其他缓存</p>
+     */
+    @Override
+    public void close() {
+        if (broadcastManager != null) broadcastManager.close();
+        for (String cacheName : new ArrayList<>(cacheMap.keySet())) {
+            Cache cache = cacheMap.remove(cacheName);
+            if (cache == null) continue;
+            try {
+                cache.close();
+            } catch (Exception e) {
+                logger.error("failed to close cache: {}", cacheName, e);
+            }
+        }
+    }
 }
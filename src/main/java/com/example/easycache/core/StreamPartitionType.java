@@ -0,0 +1,14 @@
+package com.example.easycache.core;
+
+/**
+ * 广播流分区类型枚举
+ * <p>定义缓存失效消息在Redis Stream中的分区方式</p>
+ */
+public enum StreamPartitionType {
+    /** 不分区，所有缓存共用一个流 */
+    NONE,
+    /** 按缓存名称分区，每个缓存一个流 */
+    CACHE_NAME,
+    /** 按缓存名称和键哈希分区，每个缓存多个流 */
+    KEY_HASH
+}
@@ -0,0 +1,18 @@
+package com.example.easycache.core;
+
+/**
+ * 标签字段Kryo值解码器
+ * <p>读取{@link TaggedKryoValueEncoder}编码的值，忽略新版本写入的未知标签，旧版本缺少的字段保持默认值</p>
+ */
+public class TaggedKryoValueDecoder extends Kryo5ValueDecoder {
+
+    /** 单例实例 */
+    public static final TaggedKryoValueDecoder INSTANCE = new TaggedKryoValueDecoder();
+
+    /**
+     * 构造函数
+     */
+    public TaggedKryoValueDecoder() {
+        super(TaggedKryoValueEncoder.taggedKryoPool);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.easycache.core;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.SerializerFactory;
+import com.esotericsoftware.kryo.serializers.CompatibleFieldSerializer;
+import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer;
+import com.esotericsoftware.kryo.util.Pool;
+
+import java.lang.reflect.Field;
+
+/**
+ * 标签字段Kryo值编码器
+ * <p>字段使用{@link TaggedFieldSerializer.Tag}标注的类按标签序列化，每个字段只写入数字标签和值的类型，不写入字段名，
+ * 新增字段和删除字段后新旧版本仍能互相读取，适合滚动发布时类结构变化的场景。新增字段的类型需要在旧版本中存在，
+ * 未标注标签的字段不会被序列化。没有标签字段的类使用{@link CompatibleFieldSerializer}，同样保持兼容。</p>
+ * <p>编码格式与{@link Kryo5ValueEncoder}不同，切换编码器时需要同时更换缓存名称</p>
+ */
+public class TaggedKryoValueEncoder extends Kryo5ValueEncoder {
+
+    /** 标签字段Kryo对象池，需要在单例实例之前初始化 */
+    static final Pool<KryoHolder> taggedKryoPool = createPool(TaggedKryoValueEncoder::configure);
+
+    /** 单例实例 */
+    public static final TaggedKryoValueEncoder INSTANCE = new TaggedKryoValueEncoder();
+
+    /**
+     * 构造函数
+     */
+    public TaggedKryoValueEncoder() {
+        super(taggedKryoPool);
+    }
+
+    /**
+     * 配置Kryo实例使用标签字段序列化
+     *
+     * @param kryo Kryo实例
+     */
+    static void configure(Kryo kryo) {
+        kryo.setDefaultSerializer(new TaggedSerializerFactory());
+    }
+
+    /**
+     * 按类是否包含标签字段选择序列化器
+     */
+    static class TaggedSerializerFactory implements SerializerFactory<Serializer> {
+
+        /** 标签字段序列化器工厂 */
+        private final SerializerFactory.TaggedFieldSerializerFactory tagged;
+
+        /** 兼容字段序列化器工厂 */
+        private final SerializerFactory.CompatibleFieldSerializerFactory compatible;
+
+        TaggedSerializerFactory() {
+            // 标签字段序列化器：每个字段值前写入类信息，旧版本按类信息读取并丢弃不认识的标签，所以新增字段的类型需要在旧版本中存在。
+            // 标签字段序列化器不使用分块编码，分块编码每次写对象都会分配缓冲区，编码更慢结果也更大
+            TaggedFieldSerializer.TaggedFieldSerializerConfig taggedConfig = new TaggedFieldSerializer.TaggedFieldSerializerConfig();
+            taggedConfig.setReadUnknownTagData(true);
+            tagged = new SerializerFactory.TaggedFieldSerializerFactory(taggedConfig);
+            // 兼容字段序列化器只用于没有标签字段的类，这些类的字段变化没有约束，新增字段的类型可能在旧版本中不存在。
+            // 使用分块编码，旧版本不需要读取类信息就能整块跳过不认识的字段，以多一些大小和耗时换取兼容性
+            CompatibleFieldSerializer.CompatibleFieldSerializerConfig compatibleConfig = new CompatibleFieldSerializer.CompatibleFieldSerializerConfig();
+            compatibleConfig.setChunkedEncoding(true);
+            compatible = new SerializerFactory.CompatibleFieldSerializerFactory(compatibleConfig);
+        }
+
+        @Override
+        public Serializer newSerializer(Kryo kryo, Class type) {
+            return hasTaggedField(type) ? tagged.newSerializer(kryo, type) : compatible.newSerializer(kryo, type);
+        }
+
+        @Override
+        public boolean isSupported(Class type) {
+            return true;
+        }
+
+        private static boolean hasTaggedField(Class<?> type) {
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (field.isAnnotationPresent(TaggedFieldSerializer.Tag.class)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
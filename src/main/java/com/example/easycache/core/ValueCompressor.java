@@ -0,0 +1,89 @@
+package com.example.easycache.core;
+
+/**
+ * 值压缩器
+ * <p>压缩后的值格式为：1字节格式头 + 4字节原始长度 + 压缩数据。格式头取值不会出现在Kryo编码结果的首字节，
+ * 因此可以和未压缩的值区分。0x70保留给{@link NullValueEncoder}的空值标记</p>
+ */
+abstract class ValueCompressor {
+
+    /** LZ4格式头 */
+    static final byte LZ4 = 0x71;
+
+    /** Zstd格式头 */
+    static final byte ZSTD = 0x72;
+
+    /** 使用字典的Zstd格式头 */
+    static final byte ZSTD_DICT = 0x73;
+
+    /** 格式头和原始长度占用的字节数 */
+    static final int HEADER_SIZE = 5;
+
+    /** 格式头 */
+    private final byte header;
+
+    ValueCompressor(byte header) {
+        this.header = header;
+    }
+
+    /**
+     * 判断字节是否为压缩格式头
+     *
+     * @param b 值的首字节
+     * @return 是否为压缩格式头
+     */
+    static boolean isHeader(byte b) {
+        return b == LZ4 || b == ZSTD || b == ZSTD_DICT;
+    }
+
+    /**
+     * 创建压缩器
+     *
+     * @param type 压缩类型
+     * @param level 压缩级别，为null时使用默认级别
+     * @param dictionary Zstd字典，为null时不使用字典
+     * @return 压缩器
+     */
+    static ValueCompressor create(CompressionType type, Integer level, byte[] dictionary) {
+        switch (type) {
+            case LZ4:
+                return new Lz4ValueCompressor(level);
+            case ZSTD:
+                return new ZstdValueCompressor(level, dictionary);
+            default:
+                throw new IllegalArgumentException("unsupported compression type: " + type);
+        }
+    }
+
+    byte header() {
+        return header;
+    }
+
+    /**
+     * 计算压缩结果的最大长度
+     *
+     * @param length 原始长度
+     * @return 最大压缩长度
+     */
+    abstract int maxCompressedLength(int length);
+
+    /**
+     * 压缩数据
+     *
+     * @param src 原始数据
+     * @param dest 目标数组
+     * @param destOffset 目标数组的写入位置
+     * @return 压缩后的长度
+     */
+    abstract int compress(byte[] src, byte[] dest, int destOffset);
+
+    /**
+     * 解压数据
+     *
+     * @param src 压缩数据
+     * @param offset 压缩数据的起始位置
+     * @param length 压缩数据的长度
+     * @param dest 目标数组，长度为原始长度
+     */
+    abstract void decompress(byte[] src, int offset, int length, byte[] dest);
+}
@@ -0,0 +1,133 @@
+package com.example.easycache.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 版本戳
+ * <p>按键分段记录本地缓存最近一次失效的版本。回填本地缓存前先取版本戳，回填时版本戳已变化说明期间发生过失效，
+ * 回填的值可能已过期，应当丢弃。版本由混合逻辑时钟生成：高位为毫秒时间戳，低16位为序号，并吸收远程消息的版本，
+ * 保证单调递增且在节点间大致可比</p>
+ */
+public class VersionStamps {
+
+    /** 默认分段数量 */
+    private static final int DEFAULT_STRIPES = 1024;
+
+    /** 时间戳左移位数 */
+    private static final int SEQUENCE_BITS = 16;
+
+    /** 逻辑时钟 */
+    private final AtomicLong clock = new AtomicLong();
+
+    /** 各分段最近一次失效的版本 */
+    private final AtomicLongArray stripes;
+
+    /** 分段掩码 */
+    private final int mask;
+
+    /**
+     * 构造函数
+     */
+    public VersionStamps() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param stripes 分段数量，向上取整为2的幂
+     */
+    public VersionStamps(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * 生成新版本
+     *
+     * @return 版本
+     */
+    public long nextVersion() {
+        long now = System.currentTimeMillis() << SEQUENCE_BITS;
+        return clock.updateAndGet(last -> Math.max(last + 1, now));
+    }
+
+    /**
+     * 获取键当前的版本戳
+     *
+     * @param key 键
+     * @return 版本戳
+     */
+    public long stamp(String key) {
+        return stripes.get(index(key));
+    }
+
+    /**
+     * 校验版本戳是否仍然有效
+     *
+     * @param key 键
+     * @param stamp 之前获取的版本戳
+     * @return 期间未发生失效返回true
+     */
+    public boolean validate(String key, long stamp) {
+        return stripes.get(index(key)) == stamp;
+    }
+
+    /**
+     * 判断版本是否比键当前的版本戳更新
+     *
+     * @param key 键
+     * @param version 版本
+     * @return 更新返回true
+     */
+    public boolean isNewer(String key, long version) {
+        return version > stripes.get(index(key));
+    }
+
+    /**
+     * 以本地新版本失效键
+     *
+     * @param key 键
+     * @return 失效后的版本戳
+     */
+    public long invalidate(String key) {
+        return invalidate(key, nextVersion());
+    }
+
+    /**
+     * 以指定版本失效键
+     * <p>无论版本新旧，版本戳都会前进，使进行中的回填失效</p>
+     *
+     * @param key 键
+     * @param version 版本
+     * @return 失效后的版本戳
+     */
+    public long invalidate(String key, long version) {
+        long stamp = stripes.accumulateAndGet(index(key), version, (current, v) -> Math.max(current + 1, v));
+        clock.accumulateAndGet(stamp, Math::max);
+        return stamp;
+    }
+
+    /**
+     * 失效所有键
+     */
+    public void invalidateAll() {
+        long version = nextVersion();
+        for (int i = 0; i < stripes.length(); i++) {
+            stripes.accumulateAndGet(i, version, (current, v) -> Math.max(current + 1, v));
+        }
+    }
+
+    /**
+     * 计算键所在分段
+     *
+     * @param key 键
+     * @return 分段下标
+     */
+    private int index(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
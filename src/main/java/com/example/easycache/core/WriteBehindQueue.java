@@ -0,0 +1,329 @@
+package com.example.easycache.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 延迟写队列
+ * <p>按键合并待写入的值和删除，同一个键只保留最后一次操作，由后台任务按写入顺序分批交给刷新函数。
+ * 同一时间只有一个批次在刷新，同一个键的操作不会乱序。刷新中的批次在刷新成功前仍可通过{@link #pending(Object)}读取</p>
+ * <ul>
+ *     <li>待写入的键数达到容量时写入线程等待刷新腾出空间，超过等待时间抛出{@link CacheException}，更新已在队列中的键不受容量限制</li>
+ *     <li>刷新失败的批次放回队列，已有更新操作的键以更新的操作为准，下一次刷新时重试。失败后的退避时间内不再立即刷新，只由后台任务按周期重试</li>
+ *     <li>关闭时停止后台任务并刷新所有待写入的操作，关闭后的操作直接同步刷新</li>
+ * </ul>
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+final class WriteBehindQueue<K, V> {
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    /** 删除标记 */
+    static final Object REMOVED = new Object();
+
+    /** 默认每批最多的键数 */
+    static final int DEFAULT_BATCH_SIZE = 512;
+
+    /** 刷新失败后不再立即刷新的退避时间 */
+    static final long FAILURE_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /** 队列名称，用于日志 */
+    private final String name;
+
+    /** 容量 */
+    private final int capacity;
+
+    /** 每批最多的键数 */
+    private final int batchSize;
+
+    /** 队列已满时写入线程的最长等待时间 */
+    private final Duration timeout;
+
+    /** 刷新函数，值为{@link #REMOVED}表示删除 */
+    private final Consumer<Map<K, Object>> flusher;
+
+    /** 键到待写入的值或删除标记的映射，按首次入队的顺序排列 */
+    private final LinkedHashMap<K, Object> pending = new LinkedHashMap<>();
+
+    /** 正在刷新的批次，刷新完成前仍视为待写入 */
+    private Map<K, Object> inFlight = Collections.emptyMap();
+
+    /** 队列锁 */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** 队列有空间的条件 */
+    private final Condition notFull = lock.newCondition();
+
+    /** 刷新锁，保证同一时间只有一个批次在刷新 */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /** 后台刷新任务 */
+    private final ScheduledFuture<?> flushTask;
+
+    /** 已刷新的操作数 */
+    private final LongAdder flushedCount = new LongAdder();
+
+    /** 刷新失败的批次数 */
+    private final LongAdder failedCount = new LongAdder();
+
+    /** 是否已请求立即刷新，避免重复提交刷新任务 */
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    /** 最近一次刷新是否失败 */
+    private volatile boolean failing;
+
+    /** 最近一次刷新失败的时间 */
+    private volatile long failedAt;
+
+    /** 是否已关闭 */
+    private volatile boolean closed;
+
+    /**
+     * 构造函数
+     *
+     * @param name 队列名称
+     * @param capacity 容量
+     * @param batchSize 每批最多的键数
+     * @param delay 刷新周期
+     * @param timeout 队列已满时写入线程的最长等待时间
+     * @param flusher 刷新函数，值为{@link #REMOVED}表示删除，抛出异常时整批重试
+     */
+    WriteBehindQueue(String name, int capacity, int batchSize, Duration delay, Duration timeout, Consumer<Map<K, Object>> flusher) {
+        this.name = name;
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.timeout = timeout;
+        this.flusher = flusher;
+        long delayNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), delay.toNanos());
+        this.flushTask = EasyCacheExecutor.scheduleBlocking(EasyCacheExecutor.WRITE_BEHIND, this::flushAll,
+                delayNanos, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 写入值
+     *
+     * @param key 键
+     * @param value 值
+     * @throws CacheException 队列已满且超过等待时间
+     */
+    void put(K key, V value) {
+        offer(key, value);
+    }
+
+    /**
+     * 删除键
+     *
+     * @param key 键
+     * @throws CacheException 队列已满且超过等待时间
+     */
+    void remove(K key) {
+        offer(key, REMOVED);
+    }
+
+    /**
+     * 获取待写入的操作
+     *
+     * @param key 键
+     * @return 待写入的值，待删除时返回{@link #REMOVED}，没有待写入的操作时返回null
+     */
+    Object pending(K key) {
+        lock.lock();
+        try {
+            Object value = pending.get(key);
+            return value != null ? value : inFlight.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取待写入的键数
+     *
+     * @return 键数
+     */
+    int size() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取已刷新的操作数
+     *
+     * @return 操作数
+     */
+    long getFlushedCount() {
+        return flushedCount.sum();
+    }
+
+    /**
+     * 获取刷新失败的批次数
+     *
+     * @return 批次数
+     */
+    long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    /**
+     * 刷新一个批次
+     *
+     * @return 刷新的操作数，刷新失败时返回0
+     */
+    int flush() {
+        flushLock.lock();
+        try {
+            Map<K, Object> batch = drain();
+            if (batch.isEmpty()) return 0;
+            try {
+                flusher.accept(batch);
+            } catch (RuntimeException e) {
+                failedCount.increment();
+                failedAt = System.nanoTime();
+                failing = true;
+                requeue(batch);
+                logger.error("failed to flush {} write-behind operations of {}", batch.size(), name, e);
+                return 0;
+            }
+            complete();
+            failing = false;
+            flushedCount.add(batch.size());
+            return batch.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 刷新所有待写入的操作，直到队列为空或刷新失败
+     */
+    void flushAll() {
+        while (flush() > 0) {
+            // 继续刷新下一批
+        }
+    }
+
+    /**
+     * 关闭队列，停止后台任务并刷新所有待写入的操作
+     */
+    void close() {
+        closed = true;
+        flushTask.cancel(false);
+        flushAll();
+        int remaining = size();
+        if (remaining > 0) {
+            logger.error("{} write-behind operations of {} were not flushed before close", remaining, name);
+        }
+    }
+
+    private void offer(K key, Object value) {
+        if (closed) {
+            Map<K, Object> single = new LinkedHashMap<>(2);
+            single.put(key, value);
+            flusher.accept(single);
+            return;
+        }
+        boolean full;
+        lock.lock();
+        try {
+            boolean interrupted = false;
+            long deadline = System.nanoTime() + timeout.toNanos();
+            while (pending.size() >= capacity && !pending.containsKey(key) && !closed) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new CacheException("write-behind queue of " + name + " is full, timed out after " + timeout);
+                }
+                // 容量已满，请求立即刷新并等待腾出空间
+                triggerFlush();
+                try {
+                    notFull.await(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(10)), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    break;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+            pending.put(key, value);
+            full = pending.size() >= batchSize;
+        } finally {
+            lock.unlock();
+        }
+        if (full) triggerFlush();
+    }
+
+    private void triggerFlush() {
+        // 刷新失败后的退避时间内不立即重试，避免远程不可用时反复刷新
+        if (failing && System.nanoTime() - failedAt < FAILURE_BACKOFF_NANOS) return;
+        if (!flushRequested.compareAndSet(false, true)) return;
+        try {
+            EasyCacheExecutor.executor(EasyCacheExecutor.WRITE_BEHIND).execute(() -> {
+                flushRequested.set(false);
+                flushAll();
+            });
+        } catch (RejectedExecutionException e) {
+            flushRequested.set(false);
+            logger.warn("write-behind executor rejected flush of {}", name);
+        }
+    }
+
+    private Map<K, Object> drain() {
+        lock.lock();
+        try {
+            Map<K, Object> batch = new LinkedHashMap<>(Math.min(batchSize, pending.size()) * 4 / 3 + 1);
+            Iterator<Map.Entry<K, Object>> iterator = pending.entrySet().iterator();
+            while (batch.size() < batchSize && iterator.hasNext()) {
+                Map.Entry<K, Object> entry = iterator.next();
+                batch.put(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+            if (!batch.isEmpty()) {
+                inFlight = batch;
+                notFull.signalAll();
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void requeue(Map<K, Object> batch) {
+        lock.lock();
+        try {
+            // 失败的操作重新排到队首，已有更新操作的键保留更新的操作
+            LinkedHashMap<K, Object> newer = new LinkedHashMap<>(pending);
+            pending.clear();
+            pending.putAll(batch);
+            pending.putAll(newer);
+            inFlight = Collections.emptyMap();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void complete() {
+        lock.lock();
+        try {
+            inFlight = Collections.emptyMap();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.easycache.core;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+
+/**
+ * Zstd值压缩器
+ * <p>可以使用预先训练的字典，小而相似的值使用字典后压缩率明显提高。使用字典写入的值只能用同一个字典读取，
+ * 更换字典时需要同时更换缓存名称</p>
+ */
+class ZstdValueCompressor extends ValueCompressor {
+
+    /** 压缩级别 */
+    private final int level;
+
+    /** 压缩字典 */
+    private final ZstdDictCompress dictCompress;
+
+    /** 解压字典 */
+    private final ZstdDictDecompress dictDecompress;
+
+    ZstdValueCompressor(Integer level, byte[] dictionary) {
+        super(dictionary == null ? ZSTD : ZSTD_DICT);
+        this.level = level == null ? Zstd.defaultCompressionLevel() : level;
+        this.dictCompress = dictionary == null ? null : new ZstdDictCompress(dictionary, this.level);
+        this.dictDecompress = dictionary == null ? null : new ZstdDictDecompress(dictionary);
+    }
+
+    @Override
+    int maxCompressedLength(int length) {
+        return (int) Zstd.compressBound(length);
+    }
+
+    @Override
+    int compress(byte[] src, byte[] dest, int destOffset) {
+        long result = dictCompress == null
+                ? Zstd.compressByteArray(dest, destOffset, dest.length - destOffset, src, 0, src.length, level)
+                : Zstd.compressFastDict(dest, destOffset, src, 0, src.length, dictCompress);
+        return (int) check(result);
+    }
+
+    @Override
+    void decompress(byte[] src, int offset, int length, byte[] dest) {
+        long result = dictDecompress == null
+                ? Zstd.decompressByteArray(dest, 0, dest.length, src, offset, length)
+                : Zstd.decompressFastDict(dest, 0, src, offset, length, dictDecompress);
+        if (check(result) != dest.length) {
+            throw new CacheException("zstd decompressed length mismatch: " + result + " != " + dest.length);
+        }
+    }
+
+    private static long check(long result) {
+        if (Zstd.isError(result)) {
+            throw new CacheException("zstd error: " + Zstd.getErrorName(result));
+        }
+        return result;
+    }
+}
@@ -18,18 +18,33 @@ import org.junit.platform.suite.api.Suite;
     com.example.easycache.core.Kryo5ValueDecoderTest.class,
     com.example.easycache.core.KryoValueEncoderTest.class,
     com.example.easycache.core.KryoValueDecoderTest.class,
+    com.example.easycache.core.KryoClassRegistryTest.class,
+    com.example.easycache.core.CompressingValueEncoderTest.class,
+    com.example.easycache.core.NullValueEncoderTest.class,
+    com.example.easycache.core.TaggedKryoValueEncoderTest.class,
+    com.example.easycache.core.ValueCodecSizeTest.class,
     com.example.easycache.core.OhcCacheKeySerializerTest.class,
     com.example.easycache.core.OhcCacheValueSerializerTest.class,
 
     // 缓存实现测试
     com.example.easycache.core.CaffeineCacheTest.class,
     com.example.easycache.core.OHCCacheTest.class,
+    com.example.easycache.core.MultiLevelCacheTest.class,
+    com.example.easycache.core.SimpleCacheManagerTest.class,
+    com.example.easycache.core.LazyValueMapTest.class,
     com.example.easycache.core.CaffeineOffHeapCacheTest.class,
 
     // 工具类测试
     com.example.easycache.core.Fastjson2KeyConvertorTest.class,
     com.example.easycache.core.NettyMemoryPoolTest.class,
+    com.example.easycache.core.OffHeapReclaimerTest.class,
+    com.example.easycache.core.MicroBatcherTest.class,
+    com.example.easycache.core.AsyncLoaderInvokerTest.class,
+    com.example.easycache.core.KeyBloomFilterTest.class,
+    com.example.easycache.core.WriteBehindQueueTest.class,
     com.example.easycache.core.CacheLoaderTest.class,
+    com.example.easycache.core.CacheTest.class,
+    com.example.easycache.core.CacheManagerTest.class,
     com.example.easycache.core.EasyCachePropertiesTest.class,
     com.example.easycache.core.EasyCacheExecutorTest.class,
 
@@ -0,0 +1,131 @@
+package com.example.easycache.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AsyncLoaderInvoker 异步加载器调用器单元测试
+ */
+public class AsyncLoaderInvokerTest {
+
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    /** 每次加载返回一个尚未完成的结果，由测试控制完成时机 */
+    private CompletableFuture<String> pending;
+
+    private AsyncCacheLoader<String, String> pendingLoader() {
+        return key -> {
+            loadCount.incrementAndGet();
+            pending = new CompletableFuture<>();
+            return pending;
+        };
+    }
+
+    private AsyncCacheLoader<String, String> immediateLoader() {
+        return key -> {
+            loadCount.incrementAndGet();
+            return CompletableFuture.completedFuture("v-" + key);
+        };
+    }
+
+    @Test
+    void testLoad() {
+        // 测试正常加载
+        AsyncLoaderInvoker<String, String> invoker = new AsyncLoaderInvoker<>(immediateLoader(), Duration.ofSeconds(1), 4, null, 100);
+
+        assertEquals("v-k1", invoker.load("k1"));
+        assertEquals(4, invoker.availablePermits());
+        assertNull(invoker.stale("k1"));
+    }
+
+    @Test
+    void testLoadTimeout() {
+        // 测试超时后抛出异常，许可直到加载完成才释放
+        AsyncLoaderInvoker<String, String> invoker = new AsyncLoaderInvoker<>(pendingLoader(), Duration.ofMillis(20), 2, null, 100);
+
+        CacheInvokeException e = assertThrows(CacheInvokeException.class, () -> invoker.load("k1"));
+        assertTrue(e.getMessage().contains("timed out"));
+        assertEquals(1, invoker.availablePermits());
+
+        pending.complete("late");
+        assertEquals(2, invoker.availablePermits());
+    }
+
+    @Test
+    void testConcurrencyLimit() {
+        // 测试进行中的加载达到上限时立即失败
+        AsyncLoaderInvoker<String, String> invoker = new AsyncLoaderInvoker<>(pendingLoader(), Duration.ofMillis(10), 1, null, 100);
+        assertThrows(CacheInvokeException.class, () -> invoker.load("k1"));
+
+        CacheInvokeException e = assertThrows(CacheInvokeException.class, () -> invoker.load("k2"));
+        assertTrue(e.getMessage().contains("too many concurrent loads"));
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    void testSameKeySharesLoad() {
+        // 测试同一个键的并发加载共享结果，不占用额外的许可
+        AsyncLoaderInvoker<String, String> invoker = new AsyncLoaderInvoker<>(pendingLoader(), Duration.ofMillis(10), 1, null, 100);
+        assertThrows(CacheInvokeException.class, () -> invoker.load("k1"));
+
+        CacheInvokeException e = assertThrows(CacheInvokeException.class, () -> invoker.load("k1"));
+        assertTrue(e.getMessage().contains("timed out"));
+        assertEquals(1, loadCount.get());
+
+        // 加载完成后再次加载会重新调用加载器
+        pending.complete("v1");
+        assertThrows(CacheInvokeException.class, () -> invoker.load("k1"));
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    void testStaleValue() {
+        // 测试加载成功的值保留为旧值，加载失败时抛出原始异常
+        AtomicInteger calls = new AtomicInteger();
+        AsyncCacheLoader<String, String> loader = key -> {
+            if (calls.incrementAndGet() == 1) return CompletableFuture.completedFuture("v1");
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("db down"));
+            return failed;
+        };
+        AsyncLoaderInvoker<String, String> invoker = new AsyncLoaderInvoker<>(loader, null, null, Duration.ofMinutes(1), 100);
+
+        assertEquals("v1", invoker.load("k1"));
+        CacheInvokeException e = assertThrows(CacheInvokeException.class, () -> invoker.load("k1"));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals("v1", invoker.stale("k1"));
+        assertEquals(-1, invoker.availablePermits());
+    }
+
+    @Test
+    void testLoadAll() {
+        // 测试批量加载和旧值保留
+        AsyncLoaderInvoker<String, String> invoker = new AsyncLoaderInvoker<>(immediateLoader(), Duration.ofSeconds(1), 1, Duration.ofMinutes(1), 100);
+
+        Map<String, String> result = invoker.loadAll(new HashSet<>(Arrays.asList("k1", "k2")));
+
+        assertEquals("v-k1", result.get("k1"));
+        assertEquals("v-k2", result.get("k2"));
+        assertEquals("v-k2", invoker.stale("k2"));
+        assertEquals(1, invoker.availablePermits());
+    }
+
+    @Test
+    void testWrapSyncLoader() {
+        // 测试同步加载器包装后在加载执行器上执行
+        AsyncCacheLoader<String, String> loader = AsyncCacheLoader.of(key -> Thread.currentThread().getName());
+        AsyncLoaderInvoker<String, String> invoker = new AsyncLoaderInvoker<>(loader, Duration.ofSeconds(5), null, null, 100);
+
+        assertNotEquals(Thread.currentThread().getName(), invoker.load("k1"));
+        assertEquals(Collections.singleton("k1"), invoker.loadAll(Collections.singleton("k1")).keySet());
+    }
+}
@@ -0,0 +1,422 @@
+package com.example.easycache.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * BroadcastManager 广播管理器单元测试
+ * <p>测试消费端的消息分组和批量失效</p>
+ */
+public class BroadcastManagerTest {
+
+    private SimpleCacheManager cacheManager;
+
+    private EasyCacheProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new SimpleCacheManager(null);
+        properties = new EasyCacheProperties();
+    }
+
+    private Cache<String, String> createLocalCache(String name) {
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>(name)
+                .cacheType(CacheType.LOCAL)
+                .syncLocal(false)
+                .localLimit(100)
+                .keyConvertor((cacheName, key) -> key)
+                .build();
+        return cacheManager.getOrCreateCache(config);
+    }
+
+    private CacheMessage buildMessage(String sourceId, String cacheName, String... keys) {
+        CacheMessage cacheMessage = new CacheMessage();
+        cacheMessage.setSourceId(sourceId);
+        cacheMessage.setCacheName(cacheName);
+        cacheMessage.setType(CacheMessage.TYPE_REMOVE_ALL);
+        cacheMessage.setKeys(keys);
+        return cacheMessage;
+    }
+
+    @Test
+    void testProcessCacheMessagesRemovesKeys() {
+        // 测试批量消息按缓存失效本地键
+        Cache<String, String> cache = createLocalCache("cacheA");
+        cache.put("k1", "v1");
+        cache.put("k2", "v2");
+        cache.put("k3", "v3");
+        BroadcastManager broadcastManager = new BroadcastManager(cacheManager, properties, null);
+
+        List<CacheMessage> messages = new ArrayList<>();
+        messages.add(buildMessage("remote", "cacheA", "k1"));
+        messages.add(buildMessage("remote", "cacheA", "k1", "k2"));
+        broadcastManager.processCacheMessages(messages);
+
+        assertNull(cache.get("k1"));
+        assertNull(cache.get("k2"));
+        assertEquals("v3", cache.get("k3"));
+    }
+
+    @Test
+    void testProcessCacheMessagesAcrossCachesInParallel() {
+        // 测试并行应用多个缓存的失效消息
+        Cache<String, String> cacheA = createLocalCache("cacheA");
+        Cache<String, String> cacheB = createLocalCache("cacheB");
+        cacheA.put("k1", "v1");
+        cacheB.put("k1", "v1");
+        cacheB.put("k2", "v2");
+        properties.setParallelApply(true);
+        BroadcastManager broadcastManager = new BroadcastManager(cacheManager, properties, null);
+
+        List<CacheMessage> messages = new ArrayList<>();
+        messages.add(buildMessage("remote", "cacheA", "k1"));
+        messages.add(buildMessage("remote", "cacheB", "k2"));
+        broadcastManager.processCacheMessages(messages);
+
+        assertNull(cacheA.get("k1"));
+        assertEquals("v1", cacheB.get("k1"));
+        assertNull(cacheB.get("k2"));
+    }
+
+    @Test
+    void testParallelApplyUsesDecodePool() {
+        // 测试并行应用时其他缓存在解码线程池上执行，不使用公共ForkJoinPool
+        List<String> threads = new CopyOnWriteArrayList<>();
+        CacheManager mockCacheManager = mock(CacheManager.class);
+        for (String name : new String[]{"cacheA", "cacheB", "cacheC"}) {
+            CacheConfig<String, String> config = new CacheConfigBuilder<String, String>(name)
+                    .cacheType(CacheType.LOCAL)
+                    .syncLocal(false)
+                    .localLimit(100)
+                    .keyConvertor((cacheName, key) -> key)
+                    .build();
+            Cache<String, String> cache = new MultiLevelCache<String, String>(config, null, null) {
+                @Override
+                protected void applyRemote(Map<String, Long> keyVersions, Map<String, byte[]> keyValues) {
+                    threads.add(Thread.currentThread().getName());
+                }
+            };
+            when(mockCacheManager.getCache(name)).thenReturn((Cache) cache);
+        }
+        properties.setParallelApply(true);
+        BroadcastManager broadcastManager = new BroadcastManager(mockCacheManager, properties, null);
+
+        broadcastManager.processCacheMessages(List.of(buildMessage("remote", "cacheA", "k1"),
+                buildMessage("remote", "cacheB", "k1"), buildMessage("remote", "cacheC", "k1")));
+
+        assertEquals(3, threads.size());
+        assertTrue(threads.contains(Thread.currentThread().getName()));
+        assertTrue(threads.stream().noneMatch(name -> name.startsWith("ForkJoinPool.commonPool")));
+        assertEquals(2, threads.stream().filter(name -> name.startsWith("EasyCache-decode-")).count());
+    }
+
+    @Test
+    void testProcessCacheMessagesIgnoresUnknownCache() {
+        // 测试未知缓存的消息不影响其他缓存
+        Cache<String, String> cache = createLocalCache("cacheA");
+        cache.put("k1", "v1");
+        BroadcastManager broadcastManager = new BroadcastManager(cacheManager, properties, null);
+
+        List<CacheMessage> messages = new ArrayList<>();
+        messages.add(buildMessage("remote", "unknown", "k1"));
+        messages.add(buildMessage("remote", "cacheA", (String[]) null));
+        broadcastManager.processCacheMessages(messages);
+
+        assertEquals("v1", cache.get("k1"));
+    }
+
+    @Test
+    void testStreamKeyWithoutPartition() {
+        // 测试不分区时所有缓存共用一个流
+        BroadcastManager broadcastManager = new BroadcastManager(cacheManager, properties, null);
+
+        assertEquals("easy-cache-stream", broadcastManager.streamKey("cacheA", "k1"));
+        assertEquals("easy-cache-stream", broadcastManager.streamKey("cacheB", "k2"));
+        assertEquals(List.of("easy-cache-stream"), new ArrayList<>(broadcastManager.subscribedStreams().keySet()));
+    }
+
+    @Test
+    void testSubscribedStreamKeysByCacheName() {
+        // 测试按缓存名称分区时只订阅本节点创建的缓存
+        createLocalCache("cacheA");
+        properties.setStreamPartitionType(StreamPartitionType.CACHE_NAME);
+        BroadcastManager broadcastManager = new BroadcastManager(cacheManager, properties, null);
+
+        assertEquals("easy-cache-stream:cacheB", broadcastManager.streamKey("cacheB", "k1"));
+        assertEquals(List.of("easy-cache-stream:cacheA"), new ArrayList<>(broadcastManager.subscribedStreams().keySet()));
+    }
+
+    @Test
+    void testPartitionByKeyHash() {
+        // 测试按键哈希分区时拆分批量消息
+        createLocalCache("cacheA");
+        properties.setStreamPartitionType(StreamPartitionType.KEY_HASH);
+        properties.setStreamPartitions(2);
+        BroadcastManager broadcastManager = new BroadcastManager(cacheManager, properties, null);
+
+        assertEquals(List.of("easy-cache-stream:cacheA:0", "easy-cache-stream:cacheA:1"), new ArrayList<>(broadcastManager.subscribedStreams().keySet()));
+
+        String[] keys = new String[10];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "key" + i;
+        }
+        Map<String, CacheMessage> messages = broadcastManager.partition(buildMessage("local", "cacheA", keys));
+
+        int keyCount = 0;
+        for (Map.Entry<String, CacheMessage> entry : messages.entrySet()) {
+            assertEquals("cacheA", entry.getValue().getCacheName());
+            for (String key : entry.getValue().getKeys()) {
+                assertEquals(entry.getKey(), broadcastManager.streamKey("cacheA", key));
+                keyCount++;
+            }
+        }
+        assertEquals(keys.length, keyCount);
+    }
+
+    @Test
+    void testCompareRecordId() {
+        // 测试Stream记录ID比较
+        assertEquals(0, BroadcastManager.compareRecordId("100-1", "100-1"));
+        assertTrue(BroadcastManager.compareRecordId("100-1", "100-2") < 0);
+        assertTrue(BroadcastManager.compareRecordId("101-0", "100-9") > 0);
+        assertTrue(BroadcastManager.compareRecordId("99-10", "100-0") < 0);
+        assertTrue(BroadcastManager.compareRecordId("0-0", "1") < 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCheckGapClearsLocalCacheWhenTrimmedPastOffset() {
+        // 测试消费位置之后的消息被裁剪时清空本地缓存
+        Cache<String, String> cache = createLocalCache("cacheA");
+        cache.put("k1", "v1");
+        BroadcastManager broadcastManager = new BroadcastManager(cacheManager, properties, null);
+        StreamOperations<String, String, CacheMessage> streamOps = mock(StreamOperations.class);
+        when(streamOps.info("stream")).thenReturn(StreamInfo.XInfoStream.fromList(Arrays.asList(
+                "length", 10L, "max-deleted-entry-id", "150-0")));
+
+        String offset = broadcastManager.checkGap(streamOps, "stream", "cacheA", "100-0");
+
+        assertEquals("150-0", offset);
+        assertNull(cache.get("k1"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCheckGapKeepsLocalCacheWhenUpToDate() {
+        // 测试消费位置未被裁剪时保留本地缓存
+        Cache<String, String> cache = createLocalCache("cacheA");
+        cache.put("k1", "v1");
+        BroadcastManager broadcastManager = new BroadcastManager(cacheManager, properties, null);
+        StreamOperations<String, String, CacheMessage> streamOps = mock(StreamOperations.class);
+        when(streamOps.info("stream")).thenReturn(StreamInfo.XInfoStream.fromList(Arrays.asList(
+                "length", 10L, "max-deleted-entry-id", "150-0")));
+
+        String offset = broadcastManager.checkGap(streamOps, "stream", "cacheA", "300-0");
+
+        assertEquals("300-0", offset);
+        assertEquals("v1", cache.get("k1"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCheckGapIgnoresEmptyStreamOffset() {
+        // 测试启动时流为空的初始位置不触发重新同步
+        Cache<String, String> cache = createLocalCache("cacheA");
+        cache.put("k1", "v1");
+        BroadcastManager broadcastManager = new BroadcastManager(cacheManager, properties, null);
+        StreamOperations<String, String, CacheMessage> streamOps = mock(StreamOperations.class);
+        when(streamOps.info("stream")).thenReturn(StreamInfo.XInfoStream.fromList(Arrays.asList(
+                "length", 0L, "max-deleted-entry-id", "150-0")));
+
+        assertEquals("0-0", broadcastManager.checkGap(streamOps, "stream", "cacheA", "0-0"));
+        assertEquals("v1", cache.get("k1"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCheckGapFallsBackToFirstEntry() {
+        // 测试没有max-deleted-entry-id时与第一条记录比较
+        Cache<String, String> cache = createLocalCache("cacheA");
+        cache.put("k1", "v1");
+        BroadcastManager broadcastManager = new BroadcastManager(cacheManager, properties, null);
+        StreamOperations<String, String, CacheMessage> streamOps = mock(StreamOperations.class);
+        when(streamOps.info("stream")).thenReturn(StreamInfo.XInfoStream.fromList(Arrays.asList(
+                "length", 10L, "first-entry", Arrays.asList("200-0", Arrays.asList("message", "value")))));
+
+        broadcastManager.checkGap(streamOps, "stream", null, "100-0");
+
+        assertNull(cache.get("k1"));
+    }
+
+    @Test
+    void testProcessCacheMessagesAppliesSyncedValues() {
+        // 测试随消息广播的值直接更新本地缓存
+        Cache<String, String> cache = createLocalCache("cacheA");
+        cache.put("k1", "v1");
+        cache.put("k2", "v2");
+        BroadcastManager broadcastManager = new BroadcastManager(cacheManager, properties, null);
+
+        CacheMessage cacheMessage = buildMessage("remote", "cacheA", "k1", "k2");
+        cacheMessage.setType(CacheMessage.TYPE_PUT_ALL);
+        cacheMessage.setVersion(new VersionStamps().nextVersion() + (1L << 30));
+        cacheMessage.setValues(new byte[][]{Kryo5ValueEncoder.INSTANCE.apply("new1"), null});
+        broadcastManager.processCacheMessages(List.of(cacheMessage));
+
+        assertEquals("new1", cache.get("k1"));
+        assertNull(cache.get("k2"));
+    }
+
+    @Test
+    void testProcessCacheMessagesUsesLatestVersionPerKey() {
+        // 测试同一个键以版本最大的消息为准
+        Cache<String, String> cache = createLocalCache("cacheA");
+        BroadcastManager broadcastManager = new BroadcastManager(cacheManager, properties, null);
+        long version = new VersionStamps().nextVersion() + (1L << 30);
+
+        CacheMessage newer = buildMessage("remote", "cacheA", "k1");
+        newer.setVersion(version + 2);
+        newer.setValues(new byte[][]{Kryo5ValueEncoder.INSTANCE.apply("newer")});
+        CacheMessage older = buildMessage("remote", "cacheA", "k1");
+        older.setVersion(version + 1);
+        older.setValues(new byte[][]{Kryo5ValueEncoder.INSTANCE.apply("older")});
+        broadcastManager.processCacheMessages(List.of(newer, older));
+
+        assertEquals("newer", cache.get("k1"));
+    }
+
+    @Test
+    void testProcessCacheMessagesRemovesWhenLocalVersionIsNewer() {
+        // 测试本地写入比消息更新时只失效不更新
+        Cache<String, String> cache = createLocalCache("cacheA");
+        cache.put("k1", "local");
+        BroadcastManager broadcastManager = new BroadcastManager(cacheManager, properties, null);
+
+        CacheMessage cacheMessage = buildMessage("remote", "cacheA", "k1");
+        cacheMessage.setVersion(1L);
+        cacheMessage.setValues(new byte[][]{Kryo5ValueEncoder.INSTANCE.apply("stale")});
+        broadcastManager.processCacheMessages(List.of(cacheMessage));
+
+        assertNull(cache.get("k1"));
+    }
+
+    @Test
+    void testPartitionByKeyHashKeepsValues() {
+        // 测试按键哈希拆分消息时值与键保持对应
+        properties.setStreamPartitionType(StreamPartitionType.KEY_HASH);
+        properties.setStreamPartitions(3);
+        BroadcastManager broadcastManager = new BroadcastManager(cacheManager, properties, null);
+        String[] keys = new String[10];
+        byte[][] values = new byte[10][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "key" + i;
+            values[i] = new byte[]{(byte) i};
+        }
+        CacheMessage cacheMessage = buildMessage("local", "cacheA", keys);
+        cacheMessage.setValues(values);
+
+        for (CacheMessage partitionMessage : broadcastManager.partition(cacheMessage).values()) {
+            for (int i = 0; i < partitionMessage.getKeys().length; i++) {
+                assertEquals("key" + partitionMessage.getValues()[i][0], partitionMessage.getKeys()[i]);
+            }
+        }
+    }
+
+    @Test
+    void testCloseStopsSubscribe() throws InterruptedException {
+        // 测试关闭后消费线程退出
+        properties.setStreamPartitionType(StreamPartitionType.CACHE_NAME);
+        properties.setPollInterval(10);
+        BroadcastManager broadcastManager = new BroadcastManager(cacheManager, properties, mock(RedisTemplate.class));
+
+        broadcastManager.startSubscribe();
+        Thread.sleep(50);
+        assertTrue(broadcastManager.isSubscribing());
+
+        broadcastManager.close();
+        broadcastManager.close();
+
+        assertFalse(broadcastManager.isSubscribing());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReadsAllStreamsInOneBlockingCall() throws InterruptedException {
+        // 测试所有分区流用一条阻塞的XREAD读取，缓存数量不变时不重新计算订阅的流
+        properties.setStreamPartitionType(StreamPartitionType.KEY_HASH);
+        properties.setStreamPartitions(3);
+        properties.setBlockDuration(20);
+        Cache<String, String> cache = createLocalCache("cacheA");
+        cache.put("k1", "v1");
+        RedisTemplate<String, byte[]> redisTemplate = mock(RedisTemplate.class);
+        StreamOperations<String, String, CacheMessage> streamOps = mock(StreamOperations.class);
+        when(redisTemplate.opsForStream()).thenReturn((StreamOperations) streamOps);
+        List<Integer> streamCounts = new CopyOnWriteArrayList<>();
+        List<Long> blocks = new CopyOnWriteArrayList<>();
+        CountDownLatch consumed = new CountDownLatch(2);
+        when(streamOps.read(any(StreamReadOptions.class), any(StreamOffset[].class))).thenAnswer(invocation -> {
+            streamCounts.add(invocation.getArguments().length - 1);
+            blocks.add(invocation.<StreamReadOptions>getArgument(0).getBlock());
+            consumed.countDown();
+            if (streamCounts.size() > 1) return Collections.emptyList();
+            Map<String, CacheMessage> body = Collections.singletonMap("message", buildMessage("remote", "cacheA", "k1"));
+            return Collections.singletonList(StreamRecords.newRecord().in("easy-cache-stream:cacheA:1").ofMap(body).withId(RecordId.of("1-0")));
+        });
+        BroadcastManager broadcastManager = new BroadcastManager(cacheManager, properties, redisTemplate);
+
+        broadcastManager.startSubscribe();
+        assertTrue(consumed.await(5, TimeUnit.SECONDS));
+        broadcastManager.close();
+
+        assertNull(cache.get("k1"));
+        assertTrue(streamCounts.stream().allMatch(count -> count == 3));
+        assertTrue(blocks.stream().allMatch(block -> block == 20L));
+        verify(streamOps, times(3)).reverseRange(anyString(), any(Range.class), any(Limit.class));
+    }
+
+    @Test
+    void testCacheManagerCloseClosesCaches() {
+        // 测试关闭缓存管理器时停止订阅并关闭所有缓存
+        properties.setStreamPartitionType(StreamPartitionType.KEY_HASH);
+        properties.setStreamPartitions(2);
+        properties.setPollInterval(10);
+        RedisTemplate<String, byte[]> redisTemplate = mock(RedisTemplate.class);
+        when(redisTemplate.opsForStream()).thenReturn(mock(StreamOperations.class));
+        BroadcastManager broadcastManager = new BroadcastManager(cacheManager, properties, redisTemplate);
+        cacheManager.setBroadcastManager(broadcastManager);
+        broadcastManager.startSubscribe();
+        Cache<String, String> cache = createLocalCache("cacheA");
+        cache.put("k1", "v1");
+
+        cacheManager.close();
+
+        assertFalse(broadcastManager.isSubscribing());
+        assertTrue(cacheManager.getCacheNames().isEmpty());
+        assertTrue(((AbstractCache<String, String>) cache).closed);
+    }
+}
@@ -223,4 +223,15 @@ public class CacheConfigBuilderTest {
 
         assertNotNull(config.getValueDecoder());
     }
+
+    @Test
+    void testBuildWithSyncValueMaxSize() {
+        // 测试设置随消息广播的值的最大字节数
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .syncValueMaxSize(1024)
+                .build();
+
+        assertEquals(1024, config.getSyncValueMaxSize());
+        assertNull(new CacheConfigBuilder<String, String>("testCache").build().getSyncValueMaxSize());
+    }
 }
@@ -0,0 +1,48 @@
+package com.example.easycache.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CacheManager 缓存管理器接口单元测试
+ * <p>测试外部实现只实现基本操作时的默认方法</p>
+ */
+public class CacheManagerTest {
+
+    /**
+     * 只实现基本操作的缓存管理器
+     */
+    private static class EmptyCacheManager implements CacheManager {
+        @Override
+        public <K, V> Cache<K, V> getCache(String cacheName) {
+            return null;
+        }
+
+        @Override
+        public <K, V> Cache<K, V> getOrCreateCache(CacheConfig<K, V> config) {
+            return null;
+        }
+
+        @Override
+        public List<BatchResponse<?, ?>> multiGet(List<? extends BatchRequest<?, ?>> requests) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void setBroadcastManager(BroadcastManager broadcastManager) {
+        }
+    }
+
+    @Test
+    void testDefaultMethods() {
+        // 测试默认的缓存名称为空集合，默认的关闭方法不抛出异常
+        EmptyCacheManager cacheManager = new EmptyCacheManager();
+
+        assertTrue(cacheManager.getCacheNames().isEmpty());
+        assertDoesNotThrow(cacheManager::close);
+    }
+}
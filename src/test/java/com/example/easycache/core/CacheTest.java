@@ -0,0 +1,88 @@
+package com.example.easycache.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cache 缓存接口单元测试
+ * <p>测试外部实现只实现基本操作时的默认方法</p>
+ */
+public class CacheTest {
+
+    /**
+     * 只实现基本操作的缓存
+     */
+    private static class MapCache implements Cache<String, String> {
+        final Map<String, String> store = new HashMap<>();
+
+        @Override
+        public String get(String key) {
+            return store.get(key);
+        }
+
+        @Override
+        public Map<String, String> getAll(Set<String> keys) {
+            Map<String, String> result = new HashMap<>();
+            keys.forEach(key -> result.put(key, store.get(key)));
+            return result;
+        }
+
+        @Override
+        public void put(String key, String value) {
+            store.put(key, value);
+        }
+
+        @Override
+        public void putAll(Map<String, String> map) {
+            store.putAll(map);
+        }
+
+        @Override
+        public boolean remove(String key) {
+            return store.remove(key) != null;
+        }
+
+        @Override
+        public void removeAll(Set<String> keys) {
+            keys.forEach(store::remove);
+        }
+
+        @Override
+        public CacheConfig<String, String> config() {
+            return null;
+        }
+    }
+
+    @Test
+    void testDefaultCompute() {
+        // 测试默认的计算方法先读取再写入，结果为null时移除
+        MapCache cache = new MapCache();
+
+        assertEquals("v1", cache.computeIfAbsent("k1", key -> "v1"));
+        assertEquals("v1", cache.computeIfAbsent("k1", key -> "other"));
+        assertNull(cache.computeIfAbsent("k2", key -> null));
+        assertFalse(cache.store.containsKey("k2"));
+        assertEquals("v1,v2", cache.merge("k1", "v2", (old, value) -> old + "," + value));
+        assertEquals("v3", cache.merge("k3", "v3", (old, value) -> old + "," + value));
+        assertEquals("v3!", cache.compute("k3", (key, old) -> old + "!"));
+        assertNull(cache.compute("k3", (key, old) -> null));
+        assertFalse(cache.store.containsKey("k3"));
+        assertEquals("v1,v2", cache.store.get("k1"));
+    }
+
+    @Test
+    void testDefaultClose() {
+        // 测试默认的关闭方法不影响外部实现
+        MapCache cache = new MapCache();
+        cache.put("k1", "v1");
+
+        cache.close();
+
+        assertEquals("v1", cache.get("k1"));
+    }
+}
@@ -270,4 +270,21 @@ public class CaffeineCacheTest {
         assertEquals("值1", cache.get("键1"));
         assertEquals("值2", cache.get("键2"));
     }
+
+    @Test
+    void testClear() {
+        // 测试清空缓存
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .localLimit(100)
+                .keyConvertor(Fastjson2KeyConvertor.INSTANCE)
+                .build();
+        CaffeineCache<String, String> cache = new CaffeineCache<>(config);
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+
+        cache.do_CLEAR();
+
+        assertNull(cache.get("key1"));
+        assertNull(cache.get("key2"));
+    }
 }
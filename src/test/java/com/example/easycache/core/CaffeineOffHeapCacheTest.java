@@ -1,17 +1,17 @@
 package com.example.easycache.core;
 
-import io.netty.buffer.ByteBuf;
 import io.netty.buffer.PooledByteBufAllocator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.DelayQueue;
-import java.util.concurrent.Delayed;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -166,55 +166,6 @@ public class CaffeineOffHeapCacheTest {
         assertEquals("value3", cache.get("key3"));
     }
 
-    @Test
-    void testDelayedByteBufTask() throws InterruptedException {
-        // 测试延迟ByteBuf任务
-        ByteBuf buf = NettyMemoryPool.allocateDirectBuffer(1024);
-
-        CaffeineOffHeapCache.DelayedByteBufTask task =
-            new CaffeineOffHeapCache.DelayedByteBufTask(buf, 100, TimeUnit.MILLISECONDS);
-
-        assertFalse(task.getDelay(TimeUnit.MILLISECONDS) <= 0);
-
-        Thread.sleep(150);
-
-        assertTrue(task.getDelay(TimeUnit.MILLISECONDS) <= 0);
-    }
-
-    @Test
-    void testDelayedByteBufTaskRelease() {
-        // 测试延迟ByteBuf任务释放
-        ByteBuf buf = NettyMemoryPool.allocateDirectBuffer(1024);
-
-        CaffeineOffHeapCache.DelayedByteBufTask task =
-            new CaffeineOffHeapCache.DelayedByteBufTask(buf, 0, TimeUnit.MILLISECONDS);
-
-        assertEquals(1, buf.refCnt());
-
-        task.release();
-
-        assertEquals(0, buf.refCnt());
-    }
-
-    @Test
-    void testDelayedByteBufTaskCompareTo() {
-        // 测试延迟ByteBuf任务比较
-        ByteBuf buf1 = NettyMemoryPool.allocateDirectBuffer(1024);
-        ByteBuf buf2 = NettyMemoryPool.allocateDirectBuffer(1024);
-
-        CaffeineOffHeapCache.DelayedByteBufTask task1 =
-            new CaffeineOffHeapCache.DelayedByteBufTask(buf1, 100, TimeUnit.MILLISECONDS);
-        CaffeineOffHeapCache.DelayedByteBufTask task2 =
-            new CaffeineOffHeapCache.DelayedByteBufTask(buf2, 200, TimeUnit.MILLISECONDS);
-
-        assertTrue(task1.compareTo(task2) < 0);
-        assertTrue(task2.compareTo(task1) > 0);
-        assertEquals(0, task1.compareTo(task1));
-
-        NettyMemoryPool.releaseBuffer(buf1);
-        NettyMemoryPool.releaseBuffer(buf2);
-    }
-
     @Test
     void testConfig() {
         // 测试获取配置
@@ -287,4 +238,130 @@ public class CaffeineOffHeapCacheTest {
             assertEquals("value" + i, cache.get("key" + i));
         }
     }
+
+    @Test
+    void testClear() {
+        // 测试清空缓存
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .localLimit(100)
+                .keyConvertor(Fastjson2KeyConvertor.INSTANCE)
+                .build();
+        CaffeineOffHeapCache<String, String> cache = new CaffeineOffHeapCache<>(config);
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+
+        cache.do_CLEAR();
+
+        assertNull(cache.get("key1"));
+        assertNull(cache.get("key2"));
+    }
+
+    @Test
+    void testHotObjectCache() {
+        // 测试热点对象缓存命中时不再解码
+        AtomicInteger decodeCount = new AtomicInteger();
+        CacheConfig<String, List<String>> config = new CacheConfigBuilder<String, List<String>>("testCache")
+                .localLimit(100)
+                .hotLimit(10)
+                .valueDecoder(bytes -> {
+                    decodeCount.incrementAndGet();
+                    return Kryo5ValueDecoder.INSTANCE.apply(bytes);
+                })
+                .keyConvertor(Fastjson2KeyConvertor.INSTANCE)
+                .build();
+        CaffeineOffHeapCache<String, List<String>> cache = new CaffeineOffHeapCache<>(config);
+        cache.put("key1", new ArrayList<>(Arrays.asList("a", "b")));
+
+        List<String> first = cache.get("key1");
+        List<String> second = cache.get("key1");
+        Map<String, List<String>> all = cache.getAll(new HashSet<>(Arrays.asList("key1")));
+
+        assertEquals(Arrays.asList("a", "b"), first);
+        assertSame(first, second);
+        assertSame(first, all.get("key1"));
+        assertEquals(1, decodeCount.get());
+    }
+
+    @Test
+    void testHotObjectCacheInvalidation() {
+        // 测试写入、删除和清空时失效热点对象
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .localLimit(100)
+                .hotLimit(10)
+                .keyConvertor(Fastjson2KeyConvertor.INSTANCE)
+                .build();
+        CaffeineOffHeapCache<String, String> cache = new CaffeineOffHeapCache<>(config);
+        cache.put("key1", "value1");
+        assertEquals("value1", cache.get("key1"));
+
+        cache.put("key1", "value2");
+        assertEquals("value2", cache.get("key1"));
+
+        Map<String, String> map = new HashMap<>();
+        map.put("key1", "value3");
+        cache.putAll(map);
+        assertEquals("value3", cache.get("key1"));
+
+        cache.remove("key1");
+        assertNull(cache.get("key1"));
+
+        cache.put("key2", "value2");
+        assertEquals("value2", cache.get("key2"));
+        cache.removeAll(new HashSet<>(Arrays.asList("key2")));
+        assertNull(cache.get("key2"));
+
+        cache.put("key3", "value3");
+        assertEquals("value3", cache.get("key3"));
+        cache.do_CLEAR();
+        assertNull(cache.get("key3"));
+    }
+
+    @Test
+    void testHotObjectCacheSkipsNullValue() {
+        // 测试空值对象不放入热点缓存
+        AtomicInteger decodeCount = new AtomicInteger();
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .localLimit(100)
+                .hotLimit(10)
+                .cacheNullValue("NULL")
+                .valueDecoder(bytes -> {
+                    decodeCount.incrementAndGet();
+                    return Kryo5ValueDecoder.INSTANCE.apply(bytes);
+                })
+                .keyConvertor(Fastjson2KeyConvertor.INSTANCE)
+                .build();
+        CaffeineOffHeapCache<String, String> cache = new CaffeineOffHeapCache<>(config);
+        cache.put("key1", "NULL");
+
+        assertEquals("NULL", cache.get("key1"));
+        assertEquals("NULL", cache.get("key1"));
+        assertEquals(2, decodeCount.get());
+    }
+
+    @Test
+    void testCloseReleasesBuffers() throws InterruptedException {
+        // 测试关闭时释放所有堆外缓冲区
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .localLimit(100)
+                .bufReleaseDelay(50L)
+                .keyConvertor(Fastjson2KeyConvertor.INSTANCE)
+                .build();
+        CaffeineOffHeapCache<String, String> cache = new CaffeineOffHeapCache<>(config);
+        cache.put("key1", "value1");
+        cache.put("key1", "value2");
+        cache.put("key2", "value3");
+
+        cache.close();
+        cache.put("key3", "value4");
+
+        assertNull(cache.get("key2"));
+        assertNull(cache.get("key3"));
+        assertFalse(cache.remove("key2"));
+        assertNull(cache.compute("key3", (key, old) -> "value5"));
+        assertEquals(3, cache.reclaimer.pending(cache));
+
+        Thread.sleep(50 + 4 * OffHeapReclaimer.DEFAULT_TICK_MILLIS);
+
+        assertEquals(0, cache.reclaimer.pending(cache));
+    }
 }
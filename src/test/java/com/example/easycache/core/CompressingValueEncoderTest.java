@@ -0,0 +1,175 @@
+package com.example.easycache.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CompressingValueEncoder 和 CompressingValueDecoder 单元测试
+ */
+public class CompressingValueEncoderTest {
+
+    private static Map<String, Object> largeValue() {
+        Map<String, Object> value = new HashMap<>();
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            items.add("{\"id\":" + i + ",\"name\":\"item\",\"status\":\"ACTIVE\"}");
+        }
+        value.put("items", items);
+        return value;
+    }
+
+    @Test
+    void testLz4RoundTrip() {
+        // 测试LZ4压缩往返
+        CompressingValueEncoder encoder = new CompressingValueEncoder(Kryo5ValueEncoder.INSTANCE, CompressionType.LZ4, null, null, null);
+        CompressingValueDecoder decoder = new CompressingValueDecoder(Kryo5ValueDecoder.INSTANCE, null);
+        Map<String, Object> value = largeValue();
+
+        byte[] raw = Kryo5ValueEncoder.INSTANCE.apply(value);
+        byte[] compressed = encoder.apply(value);
+
+        assertEquals(ValueCompressor.LZ4, compressed[0]);
+        assertTrue(compressed.length < raw.length / 2);
+        assertEquals(value, decoder.apply(compressed));
+    }
+
+    @Test
+    void testZstdRoundTrip() {
+        // 测试Zstd压缩往返
+        CompressingValueEncoder encoder = new CompressingValueEncoder(Kryo5ValueEncoder.INSTANCE, CompressionType.ZSTD, 5, null, null);
+        CompressingValueDecoder decoder = new CompressingValueDecoder(Kryo5ValueDecoder.INSTANCE, null);
+        Map<String, Object> value = largeValue();
+
+        byte[] compressed = encoder.apply(value);
+
+        assertEquals(ValueCompressor.ZSTD, compressed[0]);
+        assertTrue(compressed.length < Kryo5ValueEncoder.INSTANCE.apply(value).length / 2);
+        assertEquals(value, decoder.apply(compressed));
+    }
+
+    @Test
+    void testZstdDictionaryRoundTrip() {
+        // 测试使用字典的Zstd压缩往返
+        byte[] dictionary = "{\"id\":,\"name\":\"item\",\"status\":\"ACTIVE\"}".getBytes(StandardCharsets.UTF_8);
+        CompressingValueEncoder encoder = new CompressingValueEncoder(Kryo5ValueEncoder.INSTANCE, CompressionType.ZSTD, null, dictionary, 0);
+        CompressingValueDecoder decoder = new CompressingValueDecoder(Kryo5ValueDecoder.INSTANCE, dictionary);
+        Map<String, Object> value = largeValue();
+
+        byte[] compressed = encoder.apply(value);
+
+        assertEquals(ValueCompressor.ZSTD_DICT, compressed[0]);
+        assertEquals(value, decoder.apply(compressed));
+        // 没有字典的解码器不能读取
+        assertThrows(CacheEncodeException.class,
+                () -> new CompressingValueDecoder(Kryo5ValueDecoder.INSTANCE, null).apply(compressed));
+    }
+
+    @Test
+    void testBelowThresholdNotCompressed() {
+        // 测试小于阈值的值不压缩
+        CompressingValueEncoder encoder = new CompressingValueEncoder(Kryo5ValueEncoder.INSTANCE, CompressionType.LZ4, null, null, null);
+
+        assertArrayEquals(Kryo5ValueEncoder.INSTANCE.apply("small"), encoder.apply("small"));
+    }
+
+    @Test
+    void testIncompressibleNotCompressed() {
+        // 测试压缩后没有变小的值保持原样
+        CompressingValueEncoder encoder = new CompressingValueEncoder(Kryo5ValueEncoder.INSTANCE, CompressionType.LZ4, null, null, 0);
+        byte[] random = new byte[256];
+        new java.util.Random(1).nextBytes(random);
+
+        assertArrayEquals(Kryo5ValueEncoder.INSTANCE.apply(random), encoder.apply(random));
+    }
+
+    @Test
+    void testAmbiguousValueAlwaysCompressed() {
+        // 测试首字节与格式头相同的值总是压缩，解码时不会误判
+        byte[] raw = {ValueCompressor.LZ4, 1, 2, 3, 4, 5, 6};
+        CompressingValueEncoder encoder = new CompressingValueEncoder(v -> raw, CompressionType.LZ4, null, null, null);
+        CompressingValueDecoder decoder = new CompressingValueDecoder(bytes -> bytes, null);
+
+        byte[] encoded = encoder.apply("ignored");
+
+        assertEquals(ValueCompressor.LZ4, encoded[0]);
+        assertArrayEquals(raw, (byte[]) decoder.apply(encoded));
+    }
+
+    @Test
+    void testDecodeUncompressedValue() {
+        // 测试解码压缩前写入的未压缩值
+        CompressingValueDecoder decoder = new CompressingValueDecoder(Kryo5ValueDecoder.INSTANCE, null);
+
+        assertEquals("legacy", decoder.apply(Kryo5ValueEncoder.INSTANCE.apply("legacy")));
+        assertNull(decoder.apply(Kryo5ValueEncoder.INSTANCE.apply(null)));
+    }
+
+    @Test
+    void testDecodeByteBuffer() {
+        // 测试从堆外缓冲区解码压缩和未压缩的值
+        CompressingValueEncoder encoder = new CompressingValueEncoder(Kryo5ValueEncoder.INSTANCE, CompressionType.LZ4, null, null, null);
+        CompressingValueDecoder decoder = new CompressingValueDecoder(Kryo5ValueDecoder.INSTANCE, null);
+        Map<String, Object> value = largeValue();
+
+        for (Object expected : new Object[]{value, "small"}) {
+            byte[] bytes = encoder.apply(expected);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes).flip();
+            assertEquals(expected, decoder.decode(buffer));
+        }
+    }
+
+    @Test
+    void testBuilderWrapsCodec() {
+        // 测试配置构建器包装编码器和解码器
+        CacheConfig<String, Object> config = new CacheConfigBuilder<String, Object>("testCache")
+                .compressionType(CompressionType.ZSTD)
+                .compressionThreshold(64)
+                .build();
+        Map<String, Object> value = largeValue();
+
+        assertInstanceOf(CompressingValueEncoder.class, config.getValueEncoder());
+        assertInstanceOf(CompressingValueDecoder.class, config.getValueDecoder());
+        byte[] compressed = config.getValueEncoder().apply(value);
+        assertEquals(ValueCompressor.ZSTD, compressed[0]);
+
+        // 设置为NONE后不再压缩，但仍能读取已压缩的值
+        CacheConfig<String, Object> none = new CacheConfigBuilder<String, Object>("testCache")
+                .compressionType(CompressionType.NONE)
+                .build();
+        assertSame(Kryo5ValueEncoder.INSTANCE, none.getValueEncoder());
+        assertEquals(value, none.getValueDecoder().apply(compressed));
+
+        CacheConfig<String, Object> plain = new CacheConfigBuilder<String, Object>("testCache").build();
+        assertSame(Kryo5ValueDecoder.INSTANCE, plain.getValueDecoder());
+    }
+
+    @Test
+    void testOffHeapCachesWithCompression() {
+        // 测试堆外缓存使用压缩编码器
+        CacheConfig<String, Object> config = new CacheConfigBuilder<String, Object>("testCache")
+                .localLimit(10)
+                .compressionType(CompressionType.LZ4)
+                .keyConvertor(Fastjson2KeyConvertor.INSTANCE)
+                .build();
+        Map<String, Object> value = largeValue();
+
+        OHCCache<String, Object> ohcCache = new OHCCache<>(config);
+        ohcCache.put("key1", value);
+        assertEquals(value, ohcCache.get("key1"));
+
+        CaffeineOffHeapCache<String, Object> offHeapCache = new CaffeineOffHeapCache<>(config);
+        offHeapCache.put("key1", value);
+        offHeapCache.put("key2", "small");
+        assertEquals(value, offHeapCache.get("key1"));
+        assertEquals("small", offHeapCache.get("key2"));
+    }
+}
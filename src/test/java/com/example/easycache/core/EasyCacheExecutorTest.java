@@ -3,8 +3,11 @@ package com.example.easycache.core;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -193,4 +196,112 @@ public class EasyCacheExecutorTest {
             executor.execute(() -> {});
         });
     }
+
+    @Test
+    void testExecutorPerPurposeIsSingleton() {
+        // 测试每种用途的执行器是单例
+        InstrumentedExecutor executor1 = EasyCacheExecutor.executor("test-singleton");
+        InstrumentedExecutor executor2 = EasyCacheExecutor.executor("test-singleton");
+
+        assertSame(executor1, executor2);
+        assertNotSame(executor1, EasyCacheExecutor.executor("test-other"));
+        assertSame(executor1, EasyCacheExecutor.executors().get("test-singleton"));
+        assertEquals("test-singleton", executor1.getPurpose());
+    }
+
+    @Test
+    void testExecutorCountsTasks() throws InterruptedException {
+        // 测试执行器统计任务数
+        InstrumentedExecutor executor = EasyCacheExecutor.executor("test-metrics-" + System.nanoTime());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        assertEquals(1, executor.getActiveCount());
+
+        executor.execute(() -> {
+            done.countDown();
+            throw new RuntimeException("Test exception");
+        });
+        release.countDown();
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        Thread.sleep(50);
+
+        assertEquals(2, executor.getSubmittedCount());
+        assertEquals(2, executor.getCompletedCount());
+        assertEquals(1, executor.getFailedCount());
+        assertEquals(0, executor.getRejectedCount());
+        assertEquals(0, executor.getActiveCount());
+    }
+
+    @Test
+    void testExecutorRunsOnDedicatedThread() throws InterruptedException {
+        // 测试阻塞任务不在定时任务线程上执行
+        InstrumentedExecutor executor = EasyCacheExecutor.executor("test-thread");
+        String[] threadName = new String[1];
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            threadName[0] = Thread.currentThread().getName();
+            done.countDown();
+        });
+
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertTrue(threadName[0].startsWith("EasyCache-test-thread-"));
+        assertFalse(executor.isVirtual());
+    }
+
+    @Test
+    void testVirtualExecutorFallsBackWhenUnsupported() throws InterruptedException {
+        // 测试配置虚拟线程时，运行环境不支持则退化为平台线程
+        EasyCacheProperties properties = new EasyCacheProperties();
+        properties.setExecutorType(ExecutorType.VIRTUAL);
+        EasyCacheExecutor.configure(properties);
+        InstrumentedExecutor executor;
+        try {
+            executor = EasyCacheExecutor.executor("test-virtual-" + System.nanoTime());
+        } finally {
+            EasyCacheExecutor.configure(new EasyCacheProperties());
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(done::countDown);
+
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(EasyCacheExecutor.isVirtualThreadSupported(), executor.isVirtual());
+    }
+
+    @Test
+    void testScheduleBlockingSkipsOverlappingRuns() throws InterruptedException {
+        // 测试上一次执行未结束时跳过本次执行
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ScheduledFuture<?> future = EasyCacheExecutor.scheduleBlocking("test-schedule", () -> {
+            runs.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 0, 20, TimeUnit.MILLISECONDS);
+
+        Thread.sleep(200);
+        assertEquals(1, runs.get());
+
+        release.countDown();
+        Thread.sleep(100);
+        future.cancel(false);
+
+        assertTrue(runs.get() > 1);
+    }
 }
@@ -25,6 +25,55 @@ public class EasyCachePropertiesTest {
         assertEquals(10, properties.getConsumeCount());
         assertEquals(1000, properties.getCacheMessageSize());
         assertEquals(2000, properties.getBlockDuration());
+        assertFalse(properties.isParallelApply());
+        assertEquals(StreamPartitionType.NONE, properties.getStreamPartitionType());
+        assertEquals(4, properties.getStreamPartitions());
+        assertEquals(100, properties.getPollInterval());
+        assertEquals(1000, properties.getGapCheckInterval());
+        assertEquals(ExecutorType.PLATFORM, properties.getExecutorType());
+        assertEquals(2, properties.getSchedulerThreads());
+        assertEquals(64, properties.getMaxBlockingThreads());
+        assertEquals(1024, properties.getMultiGetParallelThreshold());
+    }
+
+    @Test
+    void testSetAndGetExecutor() {
+        // 测试设置和获取执行器配置
+        properties.setExecutorType(ExecutorType.VIRTUAL);
+        properties.setSchedulerThreads(1);
+        properties.setMaxBlockingThreads(16);
+
+        assertEquals(ExecutorType.VIRTUAL, properties.getExecutorType());
+        assertEquals(1, properties.getSchedulerThreads());
+        assertEquals(16, properties.getMaxBlockingThreads());
+    }
+
+    @Test
+    void testSetAndGetStreamPartition() {
+        // 测试设置和获取广播流分区配置
+        properties.setStreamPartitionType(StreamPartitionType.KEY_HASH);
+        properties.setStreamPartitions(8);
+        properties.setPollInterval(50);
+
+        assertEquals(StreamPartitionType.KEY_HASH, properties.getStreamPartitionType());
+        assertEquals(8, properties.getStreamPartitions());
+        assertEquals(50, properties.getPollInterval());
+    }
+
+    @Test
+    void testSetAndGetGapCheckInterval() {
+        // 测试设置和获取消费断档检查间隔
+        properties.setGapCheckInterval(500);
+
+        assertEquals(500, properties.getGapCheckInterval());
+    }
+
+    @Test
+    void testSetAndGetParallelApply() {
+        // 测试设置和获取并行应用开关
+        properties.setParallelApply(true);
+
+        assertTrue(properties.isParallelApply());
     }
 
     @Test
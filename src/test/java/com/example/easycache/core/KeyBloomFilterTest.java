@@ -0,0 +1,91 @@
+package com.example.easycache.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * KeyBloomFilter 布隆过滤器单元测试
+ */
+public class KeyBloomFilterTest {
+
+    @Test
+    void testNotReadyPassesAllKeys() {
+        // 测试重建前所有键都视为可能存在
+        KeyBloomFilter filter = new KeyBloomFilter(1000, 0.01);
+
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContain("k1"));
+    }
+
+    @Test
+    void testRebuild() {
+        // 测试重建后过滤不存在的键
+        KeyBloomFilter filter = new KeyBloomFilter(1000, 0.01);
+        filter.rebuild(Arrays.asList("k1", "k2"));
+
+        assertTrue(filter.isReady());
+        assertTrue(filter.mightContain("k1"));
+        assertTrue(filter.mightContain("k2"));
+        assertFalse(filter.mightContain("k3"));
+
+        filter.put("k3");
+        assertTrue(filter.mightContain("k3"));
+        assertEquals(3, filter.approximateKeyCount());
+    }
+
+    @Test
+    void testPutDuringRebuild() {
+        // 测试重建期间写入的键不会丢失
+        KeyBloomFilter filter = new KeyBloomFilter(1000, 0.01);
+        filter.rebuild(() -> new Iterator<String>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < 2;
+            }
+
+            @Override
+            public String next() {
+                if (index == 1) filter.put("written");
+                return "k" + index++;
+            }
+        });
+
+        assertTrue(filter.mightContain("k0"));
+        assertTrue(filter.mightContain("written"));
+    }
+
+    @Test
+    void testSnapshot() throws Exception {
+        // 测试从快照恢复
+        KeyBloomFilter filter = new KeyBloomFilter(1000, 0.01);
+        filter.rebuild(Arrays.asList("k1", "k2"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        filter.writeTo(out);
+
+        KeyBloomFilter restored = new KeyBloomFilter(1000, 0.01);
+        restored.readFrom(new ByteArrayInputStream(out.toByteArray()));
+
+        assertTrue(restored.isReady());
+        assertTrue(restored.mightContain("k1"));
+        assertFalse(restored.mightContain("k3"));
+    }
+
+    @Test
+    void testInvalidate() {
+        // 测试失效后回到未就绪状态
+        KeyBloomFilter filter = new KeyBloomFilter(1000, 0.01);
+        filter.rebuild(Arrays.asList("k1"));
+        filter.invalidate();
+
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContain("k3"));
+    }
+}
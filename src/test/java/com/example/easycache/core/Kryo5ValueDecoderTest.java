@@ -2,6 +2,7 @@ package com.example.easycache.core;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -295,4 +296,76 @@ public class Kryo5ValueDecoderTest {
         assertEquals(doubleValue, decoder.doApply(encoder.apply(doubleValue)));
         assertEquals(boolValue, decoder.doApply(encoder.apply(boolValue)));
     }
+
+    @Test
+    void testDecodeHeapByteBuffer() {
+        // 测试从堆内ByteBuffer的当前位置解码
+        Kryo5ValueEncoder encoder = Kryo5ValueEncoder.INSTANCE;
+
+        List<String> original = new ArrayList<>();
+        original.add("item1");
+        original.add("item2");
+        byte[] encoded = encoder.apply(original);
+        ByteBuffer buffer = ByteBuffer.allocate(encoded.length + 3);
+        buffer.put(new byte[]{1, 2, 3});
+        buffer.put(encoded);
+        buffer.flip();
+        buffer.position(3);
+
+        assertEquals(original, Kryo5ValueDecoder.INSTANCE.decode(buffer));
+    }
+
+    @Test
+    void testDecodeDirectByteBuffer() {
+        // 测试直接读取堆外ByteBuffer解码
+        Kryo5ValueEncoder encoder = Kryo5ValueEncoder.INSTANCE;
+
+        Map<String, Integer> original = new HashMap<>();
+        original.put("key1", 100);
+        byte[] encoded = encoder.apply(original);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(encoded.length);
+        buffer.put(encoded);
+        buffer.flip();
+
+        assertEquals(original, Kryo5ValueDecoder.INSTANCE.decode(buffer));
+    }
+
+    @Test
+    void testDecodeReusesPooledInput() {
+        // 测试复用的输入对象不会残留上一次解码的数据
+        Kryo5ValueDecoder decoder = Kryo5ValueDecoder.INSTANCE;
+        Kryo5ValueEncoder encoder = Kryo5ValueEncoder.INSTANCE;
+
+        for (int i = 0; i < 100; i++) {
+            String value = "value" + i;
+            assertEquals(value, decoder.doApply(encoder.apply(value)));
+            ByteBuffer buffer = ByteBuffer.wrap(encoder.apply(i));
+            assertEquals(i, decoder.decode(buffer));
+        }
+    }
+
+    @Test
+    void testDecodeWithContextClassLoaderChange() {
+        // 测试线程上下文类加载器变化后仍能正确解码
+        Kryo5ValueDecoder decoder = Kryo5ValueDecoder.INSTANCE;
+        Kryo5ValueEncoder encoder = Kryo5ValueEncoder.INSTANCE;
+        Thread thread = Thread.currentThread();
+        ClassLoader original = thread.getContextClassLoader();
+        try {
+            thread.setContextClassLoader(new ClassLoader(original) {
+            });
+            assertEquals("test", decoder.doApply(encoder.apply("test")));
+            thread.setContextClassLoader(null);
+            assertEquals("test", decoder.doApply(encoder.apply("test")));
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+    }
+
+    @Test
+    void testDecodeInvalidBytes() {
+        // 测试非法数据抛出编码异常
+        assertThrows(CacheEncodeException.class,
+                () -> Kryo5ValueDecoder.INSTANCE.doApply(new byte[]{(byte) 0xFF, (byte) 0xFF}));
+    }
 }
@@ -1,7 +1,9 @@
 package com.example.easycache.core;
 
+import io.netty.buffer.ByteBuf;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -196,4 +198,61 @@ public class Kryo5ValueEncoderTest {
         assertNotNull(result);
         assertTrue(result.length > 0);
     }
+
+    @Test
+    void testEncodeToDirectBuffer() {
+        // 测试编码到堆外缓冲区
+        Kryo5ValueEncoder encoder = Kryo5ValueEncoder.INSTANCE;
+        byte[] expected = encoder.apply("Hello, World!");
+
+        ByteBuf buf = encoder.encodeToDirectBuffer("Hello, World!");
+        try {
+            assertTrue(buf.isDirect());
+            assertEquals(expected.length, buf.readableBytes());
+            byte[] actual = new byte[buf.readableBytes()];
+            buf.readBytes(actual);
+            assertArrayEquals(expected, actual);
+        } finally {
+            NettyMemoryPool.releaseBuffer(buf);
+        }
+    }
+
+    @Test
+    void testEncodeToByteBuffer() {
+        // 测试编码到调用方提供的缓冲区
+        Kryo5ValueEncoder encoder = Kryo5ValueEncoder.INSTANCE;
+        byte[] expected = encoder.apply(12345L);
+        ByteBuffer dest = ByteBuffer.allocate(64);
+        dest.put((byte) 7);
+
+        int length = encoder.encodeTo(12345L, dest);
+
+        assertEquals(expected.length, length);
+        assertEquals(1 + length, dest.position());
+        byte[] actual = new byte[length];
+        dest.flip();
+        dest.get();
+        dest.get(actual);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    void testEncodeToByteBufferOverflow() {
+        // 测试目标缓冲区不足时抛出异常
+        ByteBuffer dest = ByteBuffer.allocate(2);
+
+        assertThrows(CacheEncodeException.class, () -> Kryo5ValueEncoder.INSTANCE.encodeTo("Hello, World!", dest));
+    }
+
+    @Test
+    void testEncodeAfterLargeValue() {
+        // 测试编码大对象后缓冲区仍可复用
+        Kryo5ValueEncoder encoder = Kryo5ValueEncoder.INSTANCE;
+        byte[] small = encoder.apply("small");
+        byte[] large = encoder.apply(new byte[1024 * 1024]);
+
+        assertTrue(large.length > 1024 * 1024);
+        assertArrayEquals(small, encoder.apply("small"));
+        assertEquals("small", Kryo5ValueDecoder.INSTANCE.apply(encoder.apply("small")));
+    }
 }
@@ -0,0 +1,180 @@
+package com.example.easycache.core;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * KryoClassRegistry 单元测试
+ * <p>注册表是全局共享的，每个测试使用独立的类和ID</p>
+ */
+public class KryoClassRegistryTest {
+
+    @Test
+    void testRegisterIncrementsVersion() {
+        // 测试新增注册时版本递增，重复注册时版本不变
+        int version = KryoClassRegistry.version();
+        boolean registered = KryoClassRegistry.registrations().containsKey(9001);
+        KryoClassRegistry.register(9001, VersionValue.class);
+        int expected = registered ? version : version + 1;
+
+        assertEquals(expected, KryoClassRegistry.version());
+        assertEquals(VersionValue.class, KryoClassRegistry.registrations().get(9001));
+
+        KryoClassRegistry.register(9001, VersionValue.class);
+        assertEquals(expected, KryoClassRegistry.version());
+    }
+
+    @Test
+    void testRegisterReservedId() {
+        // 测试保留ID不能注册
+        assertThrows(CacheException.class, () -> KryoClassRegistry.register(KryoClassRegistry.MIN_ID - 1, ReservedValue.class));
+        assertFalse(KryoClassRegistry.registrations().containsValue(ReservedValue.class));
+    }
+
+    @Test
+    void testRegisterConflicts() {
+        // 测试ID或类冲突时抛出异常
+        KryoClassRegistry.register(9002, ConflictValue.class);
+
+        assertThrows(CacheException.class, () -> KryoClassRegistry.register(9002, OtherConflictValue.class));
+        assertThrows(CacheException.class, () -> KryoClassRegistry.register(9003, ConflictValue.class));
+        assertFalse(KryoClassRegistry.registrations().containsKey(9003));
+    }
+
+    @Test
+    void testRegisteredClassEncodedWithoutName() {
+        // 测试注册后编码结果不包含类名且更小
+        RegisteredValue value = new RegisteredValue("test", 1);
+        // 使用未同步注册表的Kryo实例模拟注册前写入的值
+        Kryo kryo = new Kryo();
+        kryo.setRegistrationRequired(false);
+        kryo.setReferences(true);
+        Output output = new Output(256, -1);
+        kryo.writeClassAndObject(output, value);
+        byte[] byName = output.toBytes();
+        assertTrue(contains(byName, RegisteredValue.class.getName()));
+
+        KryoClassRegistry.register(9004, RegisteredValue.class);
+        byte[] byId = Kryo5ValueEncoder.INSTANCE.apply(value);
+
+        assertFalse(contains(byId, RegisteredValue.class.getName()));
+        assertTrue(byId.length < byName.length);
+        assertEquals(value, Kryo5ValueDecoder.INSTANCE.doApply(byId));
+        // 注册前按类名编码的值仍然可以解码
+        assertEquals(value, Kryo5ValueDecoder.INSTANCE.doApply(byName));
+    }
+
+    @Test
+    void testRegisteredClassWithKryoValueEncoder() {
+        // 测试Kryo编码器同样使用注册的ID
+        KryoClassRegistry.register(9005, KryoRegisteredValue.class);
+        KryoRegisteredValue value = new KryoRegisteredValue("test", 2);
+        byte[] bytes = KryoValueEncoder.INSTANCE.apply(value);
+
+        assertFalse(contains(bytes, KryoRegisteredValue.class.getName()));
+        assertEquals(value, KryoValueDecoder.INSTANCE.doApply(bytes));
+    }
+
+    @Test
+    void testRegisterFromBuilder() {
+        // 测试通过配置构建器注册
+        CacheConfig<String, BuilderValue> config = new CacheConfigBuilder<String, BuilderValue>("testCache")
+                .registerClass(9006, BuilderValue.class)
+                .build();
+
+        assertEquals(Collections.singletonMap(9006, BuilderValue.class), config.getRegisteredClasses());
+        assertEquals(BuilderValue.class, KryoClassRegistry.registrations().get(9006));
+        assertThrows(CacheException.class, () -> new CacheConfigBuilder<String, BuilderValue>("otherCache")
+                .registerClass(9006, OtherConflictValue.class)
+                .build());
+    }
+
+    @Test
+    void testInvalidBuilderDoesNotRegister() {
+        // 测试校验失败的配置不占用注册表中的类ID
+        assertThrows(CacheException.class, () -> new CacheConfigBuilder<String, InvalidBuilderValue>("testCache")
+                .registerClass(9007, InvalidBuilderValue.class)
+                .remoteNullValue(true)
+                .build());
+
+        assertNotEquals(InvalidBuilderValue.class, KryoClassRegistry.registrations().get(9007));
+        CacheConfig<String, FixedBuilderValue> config = new CacheConfigBuilder<String, FixedBuilderValue>("testCache")
+                .registerClass(9007, FixedBuilderValue.class)
+                .build();
+        assertEquals(FixedBuilderValue.class, KryoClassRegistry.registrations().get(9007));
+        assertEquals(Collections.singletonMap(9007, FixedBuilderValue.class), config.getRegisteredClasses());
+    }
+
+    private static boolean contains(byte[] bytes, String className) {
+        // Kryo写入ASCII字符串时会设置最后一个字符的最高位，因此不比较最后一个字符
+        String text = className.substring(0, className.length() - 1);
+        return new String(bytes, StandardCharsets.ISO_8859_1).contains(text);
+    }
+
+    static class VersionValue {
+    }
+
+    static class ReservedValue {
+    }
+
+    static class ConflictValue {
+    }
+
+    static class OtherConflictValue {
+    }
+
+    static class BuilderValue {
+    }
+
+    static class InvalidBuilderValue {
+    }
+
+    static class FixedBuilderValue {
+    }
+
+    static class RegisteredValue {
+        String name;
+        int count;
+
+        RegisteredValue() {
+        }
+
+        RegisteredValue(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof RegisteredValue)) return false;
+            RegisteredValue that = (RegisteredValue) o;
+            return count == that.count && Objects.equals(name, that.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, count);
+        }
+    }
+
+    static class KryoRegisteredValue extends RegisteredValue {
+        KryoRegisteredValue() {
+        }
+
+        KryoRegisteredValue(String name, int count) {
+            super(name, count);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof KryoRegisteredValue && super.equals(o);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.easycache.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LazyValueMap 延迟解码映射单元测试
+ */
+public class LazyValueMapTest {
+
+    private final AtomicInteger decodeCount = new AtomicInteger();
+
+    private final Function<byte[], Object> decoder = bytes -> {
+        decodeCount.incrementAndGet();
+        return Kryo5ValueDecoder.INSTANCE.apply(bytes);
+    };
+
+    private static byte[] encode(Object value) {
+        return Kryo5ValueEncoder.INSTANCE.apply(value);
+    }
+
+    @Test
+    void testDecodeOnFirstAccess() {
+        // 测试第一次访问时解码，之后使用缓存的结果
+        LazyValueMap<String, String> map = new LazyValueMap<>(decoder, null);
+        map.putEncoded("k1", encode("v1"));
+        map.putEncoded("k2", encode("v2"));
+
+        assertEquals(0, decodeCount.get());
+        assertFalse(map.isDecoded("k1"));
+        assertEquals("v1", map.get("k1"));
+        assertEquals("v1", map.get("k1"));
+        assertEquals(1, decodeCount.get());
+        assertTrue(map.isDecoded("k1"));
+        assertFalse(map.isDecoded("k2"));
+    }
+
+    @Test
+    void testPresenceChecksDoNotDecode() {
+        // 测试判断键是否存在和是否命中不触发解码
+        LazyValueMap<String, String> map = new LazyValueMap<>(decoder, null);
+        map.putEncoded("k1", encode("v1"));
+        map.putEncoded("k2", null);
+
+        assertTrue(map.containsKey("k1"));
+        assertTrue(map.containsKey("k2"));
+        assertFalse(map.containsKey("k3"));
+        assertFalse(map.isNull("k1"));
+        assertTrue(map.isNull("k2"));
+        assertEquals(2, map.size());
+        assertEquals(2, map.keySet().size());
+        assertNull(map.get("k2"));
+        assertEquals(0, decodeCount.get());
+    }
+
+    @Test
+    void testOnDecodeCallback() {
+        // 测试解码后回调，null值和重复访问不回调
+        Map<String, String> decoded = new HashMap<>();
+        LazyValueMap<String, String> map = new LazyValueMap<>(decoder, decoded::put);
+        map.putEncoded("k1", encode("v1"));
+        map.putEncoded("k2", encode(null));
+        map.put("k3", "v3");
+
+        map.get("k1");
+        map.get("k1");
+        map.get("k2");
+        map.get("k3");
+
+        assertEquals(1, decoded.size());
+        assertEquals("v1", decoded.get("k1"));
+    }
+
+    @Test
+    void testIterationDecodesAndMemoizes() {
+        // 测试遍历时解码并写回结果
+        LazyValueMap<String, Integer> map = new LazyValueMap<>(decoder, null);
+        for (int i = 0; i < 10; i++) {
+            map.putEncoded("k" + i, encode(i));
+        }
+
+        Map<String, Integer> copy = new HashMap<>(map);
+
+        assertEquals(10, copy.size());
+        assertEquals(5, copy.get("k5"));
+        assertEquals(10, decodeCount.get());
+        assertEquals(copy, map);
+        assertEquals(10, decodeCount.get());
+    }
+
+    @Test
+    void testPutAndRemove() {
+        // 测试覆盖和移除
+        LazyValueMap<String, String> map = new LazyValueMap<>(decoder, null);
+        map.putEncoded("k1", encode("v1"));
+
+        assertEquals("v1", map.put("k1", "v2"));
+        assertEquals("v2", map.get("k1"));
+        assertEquals("v2", map.remove("k1"));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void testReplaceDoesNotBackfill() {
+        // 测试覆盖和移除未访问的值时只解码旧值用于返回，不回调也不缓存解码结果
+        Map<String, String> decoded = new HashMap<>();
+        LazyValueMap<String, String> map = new LazyValueMap<>(decoder, decoded::put);
+        map.putEncoded("k1", encode("v1"));
+        map.putEncoded("k2", encode("v2"));
+        map.putEncoded("k3", encode("v3"));
+
+        assertEquals("v1", map.put("k1", "new"));
+        assertEquals("v2", map.remove("k2"));
+        Map.Entry<String, String> entry = map.entrySet().stream().filter(e -> e.getKey().equals("k3")).findFirst().get();
+        assertEquals("v3", entry.setValue("new3"));
+
+        assertTrue(decoded.isEmpty());
+        assertEquals("new", map.get("k1"));
+        assertFalse(map.containsKey("k2"));
+        assertEquals("new3", map.get("k3"));
+        assertTrue(decoded.isEmpty());
+    }
+}
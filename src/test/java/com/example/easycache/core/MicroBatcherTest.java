@@ -0,0 +1,107 @@
+package com.example.easycache.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MicroBatcher 微批处理器单元测试
+ */
+public class MicroBatcherTest {
+
+    private final List<Set<String>> batches = new CopyOnWriteArrayList<>();
+
+    private Map<String, String> upperCase(Set<String> keys) {
+        batches.add(keys);
+        Map<String, String> result = new HashMap<>();
+        for (String key : keys) {
+            if (!key.startsWith("miss")) result.put(key, key.toUpperCase());
+        }
+        return result;
+    }
+
+    @Test
+    void testSingleGet() {
+        // 测试没有并发时单独执行一次批量调用
+        MicroBatcher<String, String> batcher = new MicroBatcher<>(this::upperCase, 64, Duration.ZERO);
+
+        assertEquals("K1", batcher.get("k1"));
+        assertNull(batcher.get("miss1"));
+        assertEquals(2, batcher.getBatchCount());
+    }
+
+    @Test
+    void testConcurrentGetsAreBatched() throws Exception {
+        // 测试窗口内的并发请求合并为一次批量调用
+        MicroBatcher<String, String> batcher = new MicroBatcher<>(this::upperCase, 64, Duration.ofMillis(200));
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            String key = "k" + (i % 8);
+            futures.add(executor.submit(() -> {
+                start.await();
+                return batcher.get(key);
+            }));
+        }
+        start.countDown();
+        for (int i = 0; i < threads; i++) {
+            assertEquals("K" + (i % 8), futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertTrue(batcher.getBatchCount() < threads);
+        // 重复的键在一批中只查询一次
+        for (Set<String> batch : batches) {
+            assertTrue(batch.size() <= 8);
+        }
+    }
+
+    @Test
+    void testMaxBatchSize() throws Exception {
+        // 测试每批请求数不超过上限，达到上限时不等待窗口结束
+        MicroBatcher<String, String> batcher = new MicroBatcher<>(this::upperCase, 4, Duration.ofSeconds(10));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<String>> futures = new ArrayList<>();
+        long begin = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            String key = "k" + i;
+            futures.add(executor.submit(() -> batcher.get(key)));
+        }
+        for (int i = 0; i < threads; i++) {
+            assertEquals("K" + i, futures.get(i).get(15, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        for (Set<String> batch : batches) {
+            assertTrue(batch.size() <= 4);
+        }
+        assertTrue(System.nanoTime() - begin < TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    void testFailurePropagatesToAllCallers() {
+        // 测试批量调用失败时所有请求都抛出异常
+        MicroBatcher<String, String> batcher = new MicroBatcher<>(keys -> {
+            throw new IllegalStateException("batch failed");
+        }, 64, Duration.ZERO);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> batcher.get("k1"));
+        assertEquals("batch failed", e.getMessage());
+    }
+}
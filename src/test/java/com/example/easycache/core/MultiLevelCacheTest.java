@@ -0,0 +1,788 @@
+package com.example.easycache.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * MultiLevelCache 多级缓存单元测试
+ * <p>使用内存映射模拟Redis</p>
+ */
+public class MultiLevelCacheTest {
+
+    private Map<String, byte[]> redisStore;
+
+    private RedisTemplate<String, byte[]> redisTemplate;
+
+    private AtomicInteger decodeCount;
+
+    @BeforeEach
+    void setUp() {
+        redisStore = new HashMap<>();
+        redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, byte[]> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(anyString())).thenAnswer(invocation -> redisStore.get(invocation.<String>getArgument(0)));
+        when(valueOperations.multiGet(anyCollection())).thenAnswer(invocation -> invocation.<Collection<String>>getArgument(0)
+                .stream().map(redisStore::get).collect(Collectors.toList()));
+        decodeCount = new AtomicInteger();
+    }
+
+    private MultiLevelCache<String, String> createCache(CacheType cacheType, CacheLoader<String, String> loader) {
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .cacheType(cacheType)
+                .syncLocal(false)
+                .localLimit(100)
+                .keyConvertor((cacheName, key) -> key)
+                .valueDecoder(bytes -> {
+                    decodeCount.incrementAndGet();
+                    return Kryo5ValueDecoder.INSTANCE.apply(bytes);
+                })
+                .loader(loader)
+                .build();
+        return new MultiLevelCache<>(config, redisTemplate, null);
+    }
+
+    @Test
+    void testGetAllLazyFromRemote() {
+        // 测试远程缓存的值在访问时才解码
+        redisStore.put("k1", Kryo5ValueEncoder.INSTANCE.apply("v1"));
+        redisStore.put("k2", Kryo5ValueEncoder.INSTANCE.apply("v2"));
+        MultiLevelCache<String, String> cache = createCache(CacheType.REMOTE, null);
+
+        Map<String, String> result = cache.getAllLazy(new HashSet<>(Arrays.asList("k1", "k2", "k3")));
+
+        assertInstanceOf(LazyValueMap.class, result);
+        assertEquals(3, result.size());
+        assertTrue(((LazyValueMap<String, String>) result).isNull("k3"));
+        assertEquals(0, decodeCount.get());
+        assertEquals("v1", result.get("k1"));
+        assertEquals(1, decodeCount.get());
+    }
+
+    @Test
+    void testGetAllLazyBackfillsAccessedValues() {
+        // 测试本地缓存命中的值直接返回，远程值解码后才回填本地缓存
+        redisStore.put("k2", Kryo5ValueEncoder.INSTANCE.apply("v2"));
+        redisStore.put("k3", Kryo5ValueEncoder.INSTANCE.apply("v3"));
+        MultiLevelCache<String, String> cache = createCache(CacheType.BOTH, null);
+        cache.getLocalCache().do_PUT("k1", "v1");
+
+        Map<String, String> result = cache.getAllLazy(new HashSet<>(Arrays.asList("k1", "k2", "k3")));
+
+        assertEquals("v1", result.get("k1"));
+        assertNull(cache.getLocalCache().get("k2"));
+        assertEquals("v2", result.get("k2"));
+        assertEquals("v2", cache.getLocalCache().get("k2"));
+        assertNull(cache.getLocalCache().get("k3"));
+    }
+
+    @Test
+    void testGetAllLazyLoadsMissingKeys() {
+        // 测试远程缓存未命中的键从加载器加载
+        redisStore.put("k1", Kryo5ValueEncoder.INSTANCE.apply("v1"));
+        MultiLevelCache<String, String> cache = createCache(CacheType.REMOTE, new CacheLoader<String, String>() {
+            @Override
+            public String load(String key) {
+                return "loaded-" + key;
+            }
+        });
+
+        Map<String, String> result = cache.getAllLazy(new HashSet<>(Arrays.asList("k1", "k2")));
+
+        assertEquals("v1", result.get("k1"));
+        assertEquals("loaded-k2", result.get("k2"));
+    }
+
+    @Test
+    void testGetAllLazyAllLocalHits() {
+        // 测试全部命中本地缓存时不访问远程缓存
+        MultiLevelCache<String, String> cache = createCache(CacheType.BOTH, null);
+        cache.getLocalCache().do_PUT("k1", "v1");
+
+        Map<String, String> result = cache.getAllLazy(new HashSet<>(Arrays.asList("k1")));
+
+        assertEquals("v1", result.get("k1"));
+        assertEquals(0, decodeCount.get());
+    }
+
+    @Test
+    void testBackfillRacingInvalidation() throws Exception {
+        // 测试回填校验版本戳之后、写入本地缓存之前发生的失效不会被回填覆盖
+        redisStore.put("k1", Kryo5ValueEncoder.INSTANCE.apply("v1"));
+        MultiLevelCache<String, String> cache = createCache(CacheType.BOTH, null);
+        AbstractCache<String, String> local = spy(cache.getLocalCache());
+        CountDownLatch putting = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            putting.countDown();
+            invalidated.await(5, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(local).do_PUT(anyString(), any());
+        cache.localCache = local;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> future = executor.submit(() -> cache.get("k1"));
+            assertTrue(putting.await(5, TimeUnit.SECONDS));
+            cache.applyRemote(Collections.singletonMap("k1", System.currentTimeMillis()), Collections.emptyMap());
+            invalidated.countDown();
+
+            assertEquals("v1", future.get(5, TimeUnit.SECONDS));
+            assertNull(local.get("k1"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testBatchBackfillRacingInvalidation() throws Exception {
+        // 测试批量回填写入期间被失效的键会从本地缓存移除，其他键保留
+        redisStore.put("k1", Kryo5ValueEncoder.INSTANCE.apply("v1"));
+        redisStore.put("k2", Kryo5ValueEncoder.INSTANCE.apply("v2"));
+        MultiLevelCache<String, String> cache = createCache(CacheType.BOTH, null);
+        AbstractCache<String, String> local = spy(cache.getLocalCache());
+        CountDownLatch putting = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            putting.countDown();
+            invalidated.await(5, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(local).do_PUT_ALL(anyMap());
+        cache.localCache = local;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Map<String, String>> future = executor.submit(() -> cache.getAll(new HashSet<>(Arrays.asList("k1", "k2"))));
+            assertTrue(putting.await(5, TimeUnit.SECONDS));
+            cache.applyRemote(Collections.singletonMap("k1", System.currentTimeMillis()), Collections.emptyMap());
+            invalidated.countDown();
+
+            assertEquals("v1", future.get(5, TimeUnit.SECONDS).get("k1"));
+            assertNull(local.get("k1"));
+            assertEquals("v2", local.get("k2"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRemoteGetBatching() throws Exception {
+        // 测试开启批量后并发的单键读取合并为MGET
+        redisStore.put("k1", Kryo5ValueEncoder.INSTANCE.apply("v1"));
+        redisStore.put("k2", Kryo5ValueEncoder.INSTANCE.apply("v2"));
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .cacheType(CacheType.REMOTE)
+                .remoteBatchSize(64)
+                .remoteBatchWindow(Duration.ofMillis(50))
+                .keyConvertor((cacheName, key) -> key)
+                .build();
+        MultiLevelCache<String, String> cache = new MultiLevelCache<>(config, redisTemplate, null);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            String key = "k" + (i % 3 + 1);
+            futures.add(executor.submit(() -> cache.get(key)));
+        }
+
+        assertEquals("v1", futures.get(0).get(5, TimeUnit.SECONDS));
+        assertEquals("v2", futures.get(1).get(5, TimeUnit.SECONDS));
+        assertNull(futures.get(2).get(5, TimeUnit.SECONDS));
+        assertEquals("v1", futures.get(3).get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        verify(redisTemplate.opsForValue(), never()).get(anyString());
+        verify(redisTemplate.opsForValue(), atLeastOnce()).multiGet(anyCollection());
+    }
+
+    @Test
+    void testLoaderBatching() throws Exception {
+        // 测试开启批量后并发的单键未命中合并为loadAll
+        AtomicInteger loadCount = new AtomicInteger();
+        List<Set<String>> loadAllKeys = new CopyOnWriteArrayList<>();
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .cacheType(CacheType.LOCAL)
+                .syncLocal(false)
+                .localLimit(100)
+                .loaderBatchSize(64)
+                .loaderBatchWindow(Duration.ofMillis(100))
+                .keyConvertor((cacheName, key) -> key)
+                .loader(new CacheLoader<String, String>() {
+                    @Override
+                    public String load(String key) {
+                        loadCount.incrementAndGet();
+                        return "loaded-" + key;
+                    }
+
+                    @Override
+                    public Map<String, String> loadAll(Set<String> keys) {
+                        loadAllKeys.add(keys);
+                        Map<String, String> result = new HashMap<>();
+                        keys.stream().filter(key -> !key.startsWith("miss")).forEach(key -> result.put(key, "loaded-" + key));
+                        return result;
+                    }
+                })
+                .build();
+        MultiLevelCache<String, String> cache = new MultiLevelCache<>(config, redisTemplate, null);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            String key = i == 0 ? "miss" : "k" + i;
+            futures.add(executor.submit(() -> cache.get(key)));
+        }
+
+        assertNull(futures.get(0).get(5, TimeUnit.SECONDS));
+        for (int i = 1; i < threads; i++) {
+            assertEquals("loaded-k" + i, futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(0, loadCount.get());
+        assertTrue(loadAllKeys.size() < threads);
+        assertEquals("loaded-k1", cache.getLocalCache().get("k1"));
+    }
+
+    @Test
+    void testLoaderBatchingFailure() {
+        // 测试批量加载失败时抛出CacheInvokeException
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .cacheType(CacheType.LOCAL)
+                .syncLocal(false)
+                .localLimit(100)
+                .loaderBatchSize(64)
+                .keyConvertor((cacheName, key) -> key)
+                .loader(key -> {
+                    throw new IllegalStateException("db down");
+                })
+                .build();
+        MultiLevelCache<String, String> cache = new MultiLevelCache<>(config, redisTemplate, null);
+
+        CacheInvokeException e = assertThrows(CacheInvokeException.class, () -> cache.get("k1"));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    void testAsyncLoaderStaleFallback() {
+        // 测试异步加载超时时返回旧值，旧值不写回本地缓存
+        AtomicInteger calls = new AtomicInteger();
+        AsyncCacheLoader<String, String> loader = key -> calls.incrementAndGet() == 1
+                ? CompletableFuture.completedFuture("v1") : new CompletableFuture<>();
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .cacheType(CacheType.LOCAL)
+                .syncLocal(false)
+                .localLimit(100)
+                .keyConvertor((cacheName, key) -> key)
+                .loader(loader)
+                .loadTimeout(Duration.ofMillis(20))
+                .loadConcurrency(4)
+                .staleTtl(Duration.ofMinutes(1))
+                .build();
+        MultiLevelCache<String, String> cache = new MultiLevelCache<>(config, redisTemplate, null);
+
+        assertEquals("v1", cache.get("k1"));
+        cache.getLocalCache().remove("k1");
+        assertEquals("v1", cache.get("k1"));
+        assertNull(cache.getLocalCache().get("k1"));
+        assertThrows(CacheInvokeException.class, () -> cache.get("k2"));
+    }
+
+    @Test
+    void testBloomFilterSkipsAbsentKeys() {
+        // 测试布隆过滤器判断不存在的键不访问Redis和加载器，写入和加载的键加入过滤器
+        AtomicInteger loadCount = new AtomicInteger();
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .cacheType(CacheType.BOTH)
+                .syncLocal(true)
+                .localLimit(100)
+                .bloomFilterKeys(1000)
+                .keyConvertor((cacheName, key) -> key)
+                .loader(key -> {
+                    loadCount.incrementAndGet();
+                    return "loaded-" + key;
+                })
+                .build();
+        MultiLevelCache<String, String> cache = new MultiLevelCache<>(config, redisTemplate, mock(BroadcastManager.class));
+        redisStore.put("k1", Kryo5ValueEncoder.INSTANCE.apply("v1"));
+        cache.rebuildBloomFilter(Arrays.asList("k1"));
+
+        assertNull(cache.get("k2"));
+        assertEquals(0, loadCount.get());
+        verify(redisTemplate.opsForValue(), never()).get("k2");
+        assertEquals("v1", cache.get("k1"));
+
+        cache.put("k3", "v3");
+        assertTrue(cache.getBloomFilter().mightContain("k3"));
+        cache.getBloomFilter().invalidate();
+        assertEquals("loaded-k4", cache.get("k4"));
+        assertTrue(cache.getBloomFilter().mightContain("k4"));
+    }
+
+    @Test
+    void testBloomFilterRequiresSyncedLocalCache() {
+        // 测试收不到其他节点写入的缓存不能开启布隆过滤器
+        CacheConfigBuilder<String, String> remoteOnly = new CacheConfigBuilder<String, String>("testCache")
+                .cacheType(CacheType.REMOTE)
+                .syncLocal(true)
+                .bloomFilterKeys(1000);
+        assertThrows(CacheException.class, remoteOnly::build);
+        CacheConfigBuilder<String, String> notSynced = new CacheConfigBuilder<String, String>("testCache")
+                .cacheType(CacheType.BOTH)
+                .syncLocal(false)
+                .bloomFilterKeys(1000);
+        assertThrows(CacheException.class, notSynced::build);
+    }
+
+    @Test
+    void testRemoteNullValue() {
+        // 测试加载器返回null时远程缓存写入空值标记，其他节点读到后不再加载
+        ValueOperations<String, byte[]> valueOperations = redisTemplate.opsForValue();
+        doAnswer(invocation -> redisStore.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(valueOperations).set(anyString(), any(byte[].class), any(Duration.class));
+        AtomicInteger loadCount = new AtomicInteger();
+        CacheConfigBuilder<String, String> builder = new CacheConfigBuilder<String, String>("testCache")
+                .cacheType(CacheType.BOTH)
+                .syncLocal(false)
+                .localLimit(100)
+                .expire(Duration.ofMinutes(10))
+                .cacheNullValue("__NULL__")
+                .nullValueExpire(Duration.ofSeconds(30))
+                .remoteNullValue(true)
+                .keyConvertor((cacheName, key) -> key)
+                .loader(key -> {
+                    loadCount.incrementAndGet();
+                    return null;
+                });
+        MultiLevelCache<String, String> cache = new MultiLevelCache<>(builder.build(), redisTemplate, null);
+
+        assertNull(cache.get("k1"));
+        assertArrayEquals(new byte[]{NullValueEncoder.NULL_HEADER}, redisStore.get("k1"));
+        verify(valueOperations).set("k1", redisStore.get("k1"), Duration.ofSeconds(30));
+
+        MultiLevelCache<String, String> otherNode = new MultiLevelCache<>(builder.build(), redisTemplate, null);
+        assertEquals("__NULL__", otherNode.get("k1"));
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    void testWriteBehind() {
+        // 测试延迟写立即更新本地缓存，远程缓存在刷新时合并写入
+        ValueOperations<String, byte[]> valueOperations = redisTemplate.opsForValue();
+        doAnswer(invocation -> {
+            redisStore.putAll(invocation.getArgument(0));
+            return null;
+        }).when(valueOperations).multiSet(anyMap());
+        when(redisTemplate.delete(anyCollection())).thenAnswer(invocation -> {
+            invocation.<Collection<String>>getArgument(0).forEach(redisStore::remove);
+            return 1L;
+        });
+        redisStore.put("k2", Kryo5ValueEncoder.INSTANCE.apply("old"));
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .cacheType(CacheType.BOTH)
+                .syncLocal(false)
+                .localLimit(100)
+                .writeBehindCapacity(100)
+                .writeBehindDelay(Duration.ofMinutes(1))
+                .keyConvertor((cacheName, key) -> key)
+                .build();
+        MultiLevelCache<String, String> cache = new MultiLevelCache<>(config, redisTemplate, null);
+
+        cache.put("k1", "v1");
+        cache.put("k1", "v2");
+        cache.remove("k2");
+        assertEquals("v2", cache.get("k1"));
+        assertFalse(redisStore.containsKey("k1"));
+        assertEquals(2, cache.getPendingWriteCount());
+        // 待删除的键不读取远程缓存中的旧值
+        assertNull(cache.get("k2"));
+        cache.getLocalCache().remove("k1");
+        assertEquals("v2", cache.get("k1"));
+
+        cache.flushWrites();
+        assertEquals("v2", Kryo5ValueDecoder.INSTANCE.apply(redisStore.get("k1")));
+        assertFalse(redisStore.containsKey("k2"));
+        verify(valueOperations, never()).set(anyString(), any(byte[].class));
+
+        cache.put("k3", "v3");
+        cache.close();
+        assertEquals("v3", Kryo5ValueDecoder.INSTANCE.apply(redisStore.get("k3")));
+    }
+
+    @Test
+    void testWriteBehindPutAllNullValue() {
+        // 测试延迟写批量写入与同步写入相同，空值只在开启远程空值时以空值标记入队
+        for (boolean remoteNullValue : new boolean[]{false, true}) {
+            CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                    .cacheType(CacheType.BOTH)
+                    .syncLocal(false)
+                    .localLimit(100)
+                    .cacheNullValue("__NULL__")
+                    .remoteNullValue(remoteNullValue)
+                    .writeBehindCapacity(100)
+                    .writeBehindDelay(Duration.ofMinutes(1))
+                    .keyConvertor((cacheName, key) -> key)
+                    .build();
+            MultiLevelCache<String, String> cache = new MultiLevelCache<>(config, redisTemplate, null);
+            Map<String, String> map = new HashMap<>();
+            map.put("k1", "v1");
+            map.put("k2", null);
+
+            cache.do_PUT_ALL(map);
+
+            assertEquals(remoteNullValue ? 2 : 1, cache.getPendingWriteCount());
+            cache.getLocalCache().remove("k2");
+            assertEquals(remoteNullValue ? "__NULL__" : null, cache.get("k2"));
+        }
+    }
+
+    @Test
+    void testWriteBehindBatchGet() {
+        // 测试批量读取与单键读取相同，优先读取延迟写队列，待删除的键不读取远程缓存中的旧值也不加载
+        redisStore.put("k1", Kryo5ValueEncoder.INSTANCE.apply("old1"));
+        redisStore.put("k2", Kryo5ValueEncoder.INSTANCE.apply("old2"));
+        redisStore.put("k3", Kryo5ValueEncoder.INSTANCE.apply("v3"));
+        AtomicInteger loadCount = new AtomicInteger();
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .cacheType(CacheType.BOTH)
+                .syncLocal(false)
+                .localLimit(100)
+                .writeBehindCapacity(100)
+                .writeBehindDelay(Duration.ofMinutes(1))
+                .keyConvertor((cacheName, key) -> key)
+                .loader(new CacheLoader<String, String>() {
+                    @Override
+                    public String load(String key) {
+                        loadCount.incrementAndGet();
+                        return "loaded-" + key;
+                    }
+                })
+                .build();
+        MultiLevelCache<String, String> cache = new MultiLevelCache<>(config, redisTemplate, null);
+        cache.put("k1", "v1");
+        cache.remove("k2");
+        cache.getLocalCache().remove("k1");
+        Set<String> keys = new HashSet<>(Arrays.asList("k1", "k2", "k3"));
+
+        Map<String, String> result = cache.getAll(keys);
+        assertEquals("v1", result.get("k1"));
+        assertNull(result.get("k2"));
+        assertEquals("v3", result.get("k3"));
+        assertNull(cache.getLocalCache().get("k1"));
+        assertNull(cache.getLocalCache().get("k2"));
+
+        cache.getLocalCache().remove("k3");
+        Map<String, String> lazyResult = cache.getAllLazy(keys);
+        assertEquals("v1", lazyResult.get("k1"));
+        assertNull(lazyResult.get("k2"));
+        assertEquals("v3", lazyResult.get("k3"));
+
+        cache.getLocalCache().remove("k3");
+        MultiLevelCache.BatchGet<String, String> batch = new MultiLevelCache.BatchGet<>(cache, keys);
+        batch.lookupLocal();
+        assertEquals(Collections.singleton("k3"), batch.remoteKeys());
+        batch.applyRemote(Collections.singletonList(redisStore.get("k3")));
+        assertTrue(batch.missingKeys().isEmpty());
+        assertEquals("v1", batch.result().get("k1"));
+        assertFalse(batch.result().containsKey("k2"));
+        assertEquals("v3", batch.result().get("k3"));
+        assertNull(cache.getLocalCache().get("k2"));
+        assertEquals(0, loadCount.get());
+        cache.close();
+    }
+
+    /**
+     * 记录写入和删除的缓存写入器
+     */
+    private static class RecordingWriter implements CacheWriter<String, String> {
+        final Map<String, String> store = new ConcurrentHashMap<>();
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        volatile boolean fail;
+
+        @Override
+        public void write(String key, String value) {
+            if (fail) throw new IllegalStateException("db down");
+            store.put(key, value);
+        }
+
+        @Override
+        public void writeAll(Map<String, String> map) {
+            if (fail) throw new IllegalStateException("db down");
+            batchSizes.add(map.size());
+            store.putAll(map);
+        }
+
+        @Override
+        public void delete(String key) {
+            if (fail) throw new IllegalStateException("db down");
+            store.remove(key);
+        }
+    }
+
+    private MultiLevelCache<String, String> createWriterCache(RecordingWriter writer, Integer queueCapacity,
+                                                             CacheLoader<String, String> loader) {
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .cacheType(CacheType.LOCAL)
+                .syncLocal(false)
+                .localLimit(100)
+                .keyConvertor((cacheName, key) -> key)
+                .writer(writer)
+                .writerQueueCapacity(queueCapacity)
+                .writerDelay(Duration.ofMinutes(1))
+                .loader(loader)
+                .build();
+        return new MultiLevelCache<>(config, redisTemplate, null);
+    }
+
+    @Test
+    void testWriteThrough() {
+        // 测试同步写入数据源后更新缓存，写入失败时缓存不变，加载的值不写回数据源
+        RecordingWriter writer = new RecordingWriter();
+        MultiLevelCache<String, String> cache = createWriterCache(writer, null, key -> "loaded-" + key);
+
+        cache.put("k1", "v1");
+        assertEquals("v1", writer.store.get("k1"));
+        assertEquals("v1", cache.get("k1"));
+
+        writer.fail = true;
+        assertThrows(CacheInvokeException.class, () -> cache.put("k1", "v2"));
+        assertEquals("v1", cache.get("k1"));
+        assertThrows(CacheInvokeException.class, () -> cache.remove("k1"));
+        assertEquals("v1", cache.get("k1"));
+
+        writer.fail = false;
+        cache.remove("k1");
+        assertFalse(writer.store.containsKey("k1"));
+        assertEquals("loaded-k2", cache.get("k2"));
+        assertEquals("loaded-k3", cache.getAll(new HashSet<>(Arrays.asList("k3"))).get("k3"));
+        assertFalse(writer.store.containsKey("k2"));
+        assertFalse(writer.store.containsKey("k3"));
+    }
+
+    @Test
+    void testAsyncWriter() {
+        // 测试异步模式先更新缓存，数据源的写入按键合并后批量执行，失败时重试
+        RecordingWriter writer = new RecordingWriter();
+        MultiLevelCache<String, String> cache = createWriterCache(writer, 100, null);
+
+        writer.fail = true;
+        cache.put("k1", "v1");
+        Map<String, String> map = new HashMap<>();
+        map.put("k2", "v2");
+        map.put("k3", "v3");
+        cache.putAll(map);
+        cache.put("k1", "v1-new");
+        cache.remove("k3");
+        assertEquals("v1-new", cache.get("k1"));
+        assertTrue(writer.store.isEmpty());
+        assertEquals(3, cache.getPendingWriterCount());
+
+        cache.flushWrites();
+        assertEquals(3, cache.getPendingWriterCount());
+
+        writer.fail = false;
+        writer.store.put("k3", "old");
+        cache.flushWrites();
+        assertEquals(0, cache.getPendingWriterCount());
+        assertEquals("v1-new", writer.store.get("k1"));
+        assertEquals("v2", writer.store.get("k2"));
+        assertFalse(writer.store.containsKey("k3"));
+        assertEquals(Arrays.asList(2), writer.batchSizes);
+
+        cache.put("k4", "v4");
+        cache.close();
+        assertEquals("v4", writer.store.get("k4"));
+    }
+
+    @Test
+    void testComputeLocal() {
+        // 测试本地计算按当前值更新缓存和数据源，返回null时移除，结果不变时不写入，缓存未命中时从加载器读取当前值
+        RecordingWriter writer = new RecordingWriter();
+        AtomicInteger loadCount = new AtomicInteger();
+        MultiLevelCache<String, String> cache = createWriterCache(writer, null, key -> {
+            loadCount.incrementAndGet();
+            return key.startsWith("db") ? "loaded-" + key : null;
+        });
+
+        assertEquals("v1", cache.computeIfAbsent("k1", key -> "v1"));
+        assertEquals("v1", cache.computeIfAbsent("k1", key -> "other"));
+        assertEquals("v1", writer.store.get("k1"));
+        assertEquals("v1,v2", cache.merge("k1", "v2", (old, value) -> old + "," + value));
+        assertEquals("v1,v2", writer.store.get("k1"));
+        assertEquals("v3", cache.merge("k2", "v3", (old, value) -> old + "," + value));
+        assertEquals("v3", cache.compute("k2", (key, old) -> old));
+        assertNull(cache.compute("k2", (key, old) -> null));
+        assertFalse(writer.store.containsKey("k2"));
+        assertEquals(2, loadCount.get());
+
+        assertEquals("loaded-db1,v", cache.merge("db1", "v", (old, value) -> old + "," + value));
+        assertEquals("loaded-db1,v", writer.store.get("db1"));
+        assertEquals("loaded-db2", cache.computeIfAbsent("db2", key -> "other"));
+        assertFalse(writer.store.containsKey("db2"));
+
+        writer.fail = true;
+        assertThrows(CacheInvokeException.class, () -> cache.compute("k1", (key, old) -> "v4"));
+        assertEquals("v1,v2", cache.get("k1"));
+    }
+
+    /**
+     * 模拟SET NX和比较并交换脚本
+     */
+    private void mockCompareAndSet() {
+        ValueOperations<String, byte[]> valueOperations = redisTemplate.opsForValue();
+        when(valueOperations.setIfAbsent(anyString(), any(byte[].class))).thenAnswer(invocation ->
+                redisStore.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+        doAnswer(invocation -> {
+            Object[] args = invocation.getArguments();
+            String key = invocation.<List<String>>getArgument(3).get(0);
+            if (!Arrays.equals(redisStore.get(key), (byte[]) args[4])) return 0L;
+            if (args.length == 5) redisStore.remove(key);
+            else redisStore.put(key, (byte[]) args[5]);
+            return 1L;
+        }).when(redisTemplate).execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                anyList(), any(Object[].class));
+    }
+
+    @Test
+    void testComputeRemote() {
+        // 测试远程计算通过比较并交换写入Redis，其他节点并发修改时重新计算
+        mockCompareAndSet();
+        MultiLevelCache<String, String> cache = createCache(CacheType.BOTH, null);
+
+        assertEquals("v1", cache.computeIfAbsent("k1", key -> "v1"));
+        assertEquals("v1", Kryo5ValueDecoder.INSTANCE.apply(redisStore.get("k1")));
+        assertEquals("v1", cache.get("k1"));
+
+        AtomicInteger calls = new AtomicInteger();
+        String result = cache.merge("k1", "v2", (old, value) -> {
+            if (calls.incrementAndGet() == 1) redisStore.put("k1", Kryo5ValueEncoder.INSTANCE.apply("other"));
+            return old + "," + value;
+        });
+        assertEquals("other,v2", result);
+        assertEquals(2, calls.get());
+        assertEquals("other,v2", Kryo5ValueDecoder.INSTANCE.apply(redisStore.get("k1")));
+        assertEquals("other,v2", cache.get("k1"));
+
+        assertNull(cache.compute("k1", (key, old) -> null));
+        assertFalse(redisStore.containsKey("k1"));
+        assertNull(cache.get("k1"));
+
+        redisStore.put("k2", Kryo5ValueEncoder.INSTANCE.apply("v"));
+        assertThrows(CacheException.class, () -> cache.compute("k2", (key, old) -> {
+            redisStore.put("k2", Kryo5ValueEncoder.INSTANCE.apply(old + "!"));
+            return old + "?";
+        }));
+    }
+
+    @Test
+    void testComputeRemoteWriterFailureNotBroadcast() {
+        // 测试远程计算在更新本地缓存和广播前写入数据源，写入失败时删除远程缓存，其他节点不会收到带值的消息
+        mockCompareAndSet();
+        when(redisTemplate.delete(anyString())).thenAnswer(invocation -> redisStore.remove(invocation.<String>getArgument(0)) != null);
+        BroadcastManager broadcastManager = mock(BroadcastManager.class);
+        RecordingWriter writer = new RecordingWriter();
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .cacheType(CacheType.BOTH)
+                .syncLocal(true)
+                .syncValueMaxSize(1024)
+                .localLimit(100)
+                .keyConvertor((cacheName, key) -> key)
+                .writer(writer)
+                .build();
+        MultiLevelCache<String, String> cache = new MultiLevelCache<>(config, redisTemplate, broadcastManager);
+        List<CacheMessage> messages = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> messages.add(invocation.getArgument(0))).when(broadcastManager).publish(any(CacheMessage.class));
+        writer.fail = true;
+
+        assertThrows(CacheInvokeException.class, () -> cache.computeIfAbsent("k1", key -> "v1"));
+
+        assertFalse(redisStore.containsKey("k1"));
+        assertNull(cache.getLocalCache().get("k1"));
+        assertFalse(messages.isEmpty());
+        messages.forEach(message -> {
+            assertEquals(CacheMessage.TYPE_REMOVE, message.getType());
+            assertNull(message.getValues());
+        });
+
+        writer.fail = false;
+        messages.clear();
+        assertEquals("v1", cache.computeIfAbsent("k1", key -> "v1"));
+        assertEquals("v1", writer.store.get("k1"));
+        assertEquals(1, messages.size());
+        assertEquals(CacheMessage.TYPE_PUT, messages.get(0).getType());
+        assertNotNull(messages.get(0).getValues());
+    }
+
+    @Test
+    void testComputeRemoteLoadsMissingValue() {
+        // 测试远程缓存未命中时从加载器读取当前值再计算，不用null覆盖数据源
+        mockCompareAndSet();
+        RecordingWriter writer = new RecordingWriter();
+        writer.store.put("k1", "db");
+        AtomicInteger loadCount = new AtomicInteger();
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .cacheType(CacheType.BOTH)
+                .syncLocal(false)
+                .localLimit(100)
+                .keyConvertor((cacheName, key) -> key)
+                .writer(writer)
+                .loader(key -> {
+                    loadCount.incrementAndGet();
+                    return writer.store.get(key);
+                })
+                .build();
+        MultiLevelCache<String, String> cache = new MultiLevelCache<>(config, redisTemplate, null);
+
+        assertEquals("db,v", cache.merge("k1", "v", (old, value) -> old + "," + value));
+        assertEquals("db,v", writer.store.get("k1"));
+        assertEquals("db,v", Kryo5ValueDecoder.INSTANCE.apply(redisStore.get("k1")));
+        assertEquals(1, loadCount.get());
+
+        assertNull(cache.compute("k1", (key, old) -> {
+            assertEquals("db,v", old);
+            return null;
+        }));
+        assertEquals(1, loadCount.get());
+
+        writer.store.put("k2", "db2");
+        assertNull(cache.compute("k2", (key, old) -> {
+            assertEquals("db2", old);
+            return null;
+        }));
+        assertFalse(writer.store.containsKey("k2"));
+        assertEquals(2, loadCount.get());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.easycache.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NullValueEncoder 和 NullValueDecoder 单元测试
+ */
+public class NullValueEncoderTest {
+
+    private static final String NULL_VALUE = "__NULL__";
+
+    @Test
+    void testNullValueRoundTrip() {
+        // 测试空值对象编码为1字节的空值标记并还原
+        NullValueEncoder encoder = new NullValueEncoder(Kryo5ValueEncoder.INSTANCE, NULL_VALUE);
+        NullValueDecoder decoder = new NullValueDecoder(v -> fail("delegate should not be called"), NULL_VALUE);
+
+        byte[] bytes = encoder.apply(new String(NULL_VALUE));
+
+        assertArrayEquals(new byte[]{NullValueEncoder.NULL_HEADER}, bytes);
+        assertTrue(NullValueEncoder.isNullValue(bytes));
+        assertSame(NULL_VALUE, decoder.apply(bytes));
+    }
+
+    @Test
+    void testOtherValuesDelegated() {
+        // 测试其他值交给被包装的编解码器
+        NullValueEncoder encoder = new NullValueEncoder(Kryo5ValueEncoder.INSTANCE, NULL_VALUE);
+        NullValueDecoder decoder = new NullValueDecoder(Kryo5ValueDecoder.INSTANCE, NULL_VALUE);
+
+        byte[] bytes = encoder.apply("value");
+
+        assertFalse(NullValueEncoder.isNullValue(bytes));
+        assertEquals("value", decoder.apply(bytes));
+        assertFalse(NullValueEncoder.isNullValue(null));
+    }
+
+    @Test
+    void testDecodeByteBuffer() {
+        // 测试从ByteBuffer解码空值标记和其他值
+        NullValueEncoder encoder = new NullValueEncoder(Kryo5ValueEncoder.INSTANCE, NULL_VALUE);
+        NullValueDecoder decoder = new NullValueDecoder(Kryo5ValueDecoder.INSTANCE, NULL_VALUE);
+
+        assertSame(NULL_VALUE, decoder.decode(ByteBuffer.wrap(encoder.apply(NULL_VALUE))));
+        assertEquals("value", decoder.decode(ByteBuffer.wrap(encoder.apply("value"))));
+    }
+
+    @Test
+    void testBuilderWrapsCodec() {
+        // 测试开启后构建器在压缩之外包装空值编解码器
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .cacheNullValue(NULL_VALUE)
+                .compressionType(CompressionType.LZ4)
+                .remoteNullValue(true)
+                .build();
+
+        assertInstanceOf(NullValueEncoder.class, config.getValueEncoder());
+        assertInstanceOf(NullValueDecoder.class, config.getValueDecoder());
+        assertSame(NULL_VALUE, config.getValueDecoder().apply(config.getValueEncoder().apply(NULL_VALUE)));
+    }
+
+    @Test
+    void testBuilderRequiresNullValue() {
+        // 测试未配置空值对象时开启失败
+        CacheConfigBuilder<String, String> builder = new CacheConfigBuilder<String, String>("testCache").remoteNullValue(true);
+
+        assertThrows(CacheException.class, builder::build);
+    }
+}
@@ -4,10 +4,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -247,4 +251,121 @@ public class OHCCacheTest {
         assertNull(cache.get("key2"));
         assertEquals("value3", cache.get("key3"));
     }
+
+    @Test
+    void testClear() {
+        // 测试清空缓存
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .localLimit(10)
+                .keyConvertor(Fastjson2KeyConvertor.INSTANCE)
+                .build();
+        OHCCache<String, String> cache = new OHCCache<>(config);
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+
+        cache.do_CLEAR();
+
+        assertNull(cache.get("key1"));
+        assertNull(cache.get("key2"));
+    }
+
+    @Test
+    void testHotObjectCache() {
+        // 测试热点对象缓存命中时不再解码
+        AtomicInteger decodeCount = new AtomicInteger();
+        CacheConfig<String, List<String>> config = new CacheConfigBuilder<String, List<String>>("testCache")
+                .localLimit(1)
+                .hotLimit(10)
+                .valueDecoder(bytes -> {
+                    decodeCount.incrementAndGet();
+                    return Kryo5ValueDecoder.INSTANCE.apply(bytes);
+                })
+                .keyConvertor(Fastjson2KeyConvertor.INSTANCE)
+                .build();
+        OHCCache<String, List<String>> cache = new OHCCache<>(config);
+        cache.put("key1", new ArrayList<>(Arrays.asList("a", "b")));
+
+        List<String> first = cache.get("key1");
+        List<String> second = cache.get("key1");
+        Map<String, List<String>> all = cache.getAll(new HashSet<>(Arrays.asList("key1")));
+
+        assertEquals(Arrays.asList("a", "b"), first);
+        assertSame(first, second);
+        assertSame(first, all.get("key1"));
+        assertEquals(1, decodeCount.get());
+    }
+
+    @Test
+    void testHotObjectCacheInvalidation() {
+        // 测试写入、删除和清空时失效热点对象
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .localLimit(1)
+                .hotLimit(10)
+                .keyConvertor(Fastjson2KeyConvertor.INSTANCE)
+                .build();
+        OHCCache<String, String> cache = new OHCCache<>(config);
+        cache.put("key1", "value1");
+        assertEquals("value1", cache.get("key1"));
+
+        cache.put("key1", "value2");
+        assertEquals("value2", cache.get("key1"));
+
+        Map<String, String> map = new HashMap<>();
+        map.put("key1", "value3");
+        cache.putAll(map);
+        assertEquals("value3", cache.get("key1"));
+
+        cache.remove("key1");
+        assertNull(cache.get("key1"));
+
+        cache.put("key2", "value2");
+        assertEquals("value2", cache.get("key2"));
+        cache.removeAll(new HashSet<>(Arrays.asList("key2")));
+        assertNull(cache.get("key2"));
+
+        cache.put("key3", "value3");
+        assertEquals("value3", cache.get("key3"));
+        cache.do_CLEAR();
+        assertNull(cache.get("key3"));
+    }
+
+    @Test
+    void testHotObjectCacheSkipsNullValue() {
+        // 测试空值对象不放入热点缓存
+        AtomicInteger decodeCount = new AtomicInteger();
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("testCache")
+                .localLimit(1)
+                .hotLimit(10)
+                .cacheNullValue("NULL")
+                .valueDecoder(bytes -> {
+                    decodeCount.incrementAndGet();
+                    return Kryo5ValueDecoder.INSTANCE.apply(bytes);
+                })
+                .keyConvertor(Fastjson2KeyConvertor.INSTANCE)
+                .build();
+        OHCCache<String, String> cache = new OHCCache<>(config);
+        cache.put("key1", "NULL");
+
+        assertEquals("NULL", cache.get("key1"));
+        assertEquals("NULL", cache.get("key1"));
+        assertEquals(2, decodeCount.get());
+    }
+
+    @Test
+    void testClose() {
+        // 测试关闭后读取返回null，写入被忽略，重复关闭不产生影响
+        cache.put("key1", "value1");
+
+        cache.close();
+        cache.close();
+        cache.put("key2", "value2");
+
+        assertNull(cache.get("key1"));
+        assertNull(cache.get("key2"));
+        assertFalse(cache.remove("key1"));
+        cache.removeAll(new HashSet<>(Arrays.asList("key1", "key2")));
+        assertTrue(cache.getAll(new HashSet<>(Arrays.asList("key1", "key2"))).isEmpty());
+        assertNull(cache.computeIfAbsent("key3", key -> "value3"));
+        assertNull(cache.merge("key1", "value", (old, value) -> old + value));
+    }
 }
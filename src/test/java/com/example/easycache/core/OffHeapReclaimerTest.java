@@ -0,0 +1,157 @@
+package com.example.easycache.core;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OffHeapReclaimer 堆外缓冲区延迟释放器单元测试
+ */
+public class OffHeapReclaimerTest {
+
+    private AtomicLong clock;
+
+    private OffHeapReclaimer reclaimer;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong();
+        // 刻度10毫秒，8个槽，一圈80毫秒
+        reclaimer = new OffHeapReclaimer(10, 8, clock::get);
+    }
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    void testReleaseAfterDelay() {
+        // 测试缓冲区在延迟到期后释放
+        ByteBuf buf = NettyMemoryPool.allocateDirectBuffer(64);
+        reclaimer.release(buf, 25, this);
+
+        advance(20);
+        assertEquals(0, reclaimer.tick());
+        assertEquals(1, buf.refCnt());
+        assertEquals(1, reclaimer.pending());
+
+        advance(10);
+        assertEquals(1, reclaimer.tick());
+        assertEquals(0, buf.refCnt());
+        assertEquals(0, reclaimer.pending());
+    }
+
+    @Test
+    void testDrainReleasesPendingBuffers() {
+        // 测试关闭时不等待延迟到期，立即释放所有缓冲区
+        ByteBuf buf1 = NettyMemoryPool.allocateDirectBuffer(64);
+        ByteBuf buf2 = NettyMemoryPool.allocateDirectBuffer(64);
+        reclaimer.release(buf1, 25, this);
+        reclaimer.release(buf2, 1000, this);
+
+        assertEquals(2, reclaimer.drain());
+        assertEquals(0, buf1.refCnt());
+        assertEquals(0, buf2.refCnt());
+        assertEquals(0, reclaimer.pending());
+        advance(1000);
+        assertEquals(0, reclaimer.tick());
+    }
+
+    @Test
+    void testExecutorShutdownDrainsSharedReclaimer() {
+        // 测试执行器关闭后刻度任务停止，共享实例中的缓冲区立即释放
+        ByteBuf buf = NettyMemoryPool.allocateDirectBuffer(64);
+        OffHeapReclaimer.shared().release(buf, TimeUnit.MINUTES.toMillis(10), this);
+        assertEquals(1, buf.refCnt());
+
+        EasyCacheExecutor.shutdown();
+
+        assertEquals(0, buf.refCnt());
+        assertEquals(0, OffHeapReclaimer.shared().pending(this));
+    }
+
+    @Test
+    void testReleaseImmediatelyWithoutDelay() {
+        // 测试延迟不大于0时立即释放
+        ByteBuf buf = NettyMemoryPool.allocateDirectBuffer(64);
+        reclaimer.release(buf, 0, this);
+
+        assertEquals(0, buf.refCnt());
+        assertEquals(0, reclaimer.pending());
+    }
+
+    @Test
+    void testDelayLongerThanWheel() {
+        // 测试延迟超过一圈时等到期后才释放
+        ByteBuf buf = NettyMemoryPool.allocateDirectBuffer(64);
+        reclaimer.release(buf, 200, this);
+
+        for (int i = 0; i < 19; i++) {
+            advance(10);
+            reclaimer.tick();
+        }
+        assertEquals(1, buf.refCnt());
+
+        advance(10);
+        reclaimer.tick();
+        assertEquals(0, buf.refCnt());
+    }
+
+    @Test
+    void testBatchReleaseAcrossOwners() {
+        // 测试一个刻度批量释放多个缓存的缓冲区
+        Object ownerA = new Object();
+        Object ownerB = new Object();
+        List<ByteBuf> bufs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ByteBuf buf = NettyMemoryPool.allocateDirectBuffer(16);
+            bufs.add(buf);
+            reclaimer.release(buf, 15, i % 2 == 0 ? ownerA : ownerB);
+        }
+        assertEquals(50, reclaimer.pending(ownerA));
+        assertEquals(50, reclaimer.pending(ownerB));
+
+        advance(20);
+
+        assertEquals(100, reclaimer.tick());
+        assertEquals(0, reclaimer.pending(ownerA));
+        for (ByteBuf buf : bufs) {
+            assertEquals(0, buf.refCnt());
+        }
+    }
+
+    @Test
+    void testCatchUpAfterLongPause() {
+        // 测试刻度任务落后超过一圈时一次处理所有到期的缓冲区
+        ByteBuf buf1 = NettyMemoryPool.allocateDirectBuffer(64);
+        ByteBuf buf2 = NettyMemoryPool.allocateDirectBuffer(64);
+        reclaimer.release(buf1, 10, this);
+        reclaimer.release(buf2, 50, this);
+
+        advance(1000);
+
+        assertEquals(2, reclaimer.tick());
+        assertEquals(0, buf1.refCnt());
+        assertEquals(0, buf2.refCnt());
+    }
+
+    @Test
+    void testSharedReclaimerRunsOnDefaultExecutor() throws InterruptedException {
+        // 测试共享实例由默认执行器触发刻度
+        OffHeapReclaimer shared = OffHeapReclaimer.shared();
+        ByteBuf buf = NettyMemoryPool.allocateDirectBuffer(64);
+        shared.release(buf, 10, this);
+
+        Thread.sleep(10 + 4 * OffHeapReclaimer.DEFAULT_TICK_MILLIS);
+
+        assertEquals(0, buf.refCnt());
+        assertSame(shared, OffHeapReclaimer.shared());
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.easycache.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * SimpleCacheManager 缓存管理器单元测试
+ * <p>使用内存映射模拟Redis，测试跨缓存批量获取</p>
+ */
+public class SimpleCacheManagerTest {
+
+    private Map<String, byte[]> redisStore;
+
+    private RedisTemplate<String, byte[]> redisTemplate;
+
+    private AtomicInteger pipelineCount;
+
+    private SimpleCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        redisStore = new HashMap<>();
+        pipelineCount = new AtomicInteger();
+        redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, byte[]> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(anyString())).thenAnswer(invocation -> redisStore.get(invocation.<String>getArgument(0)));
+        when(valueOperations.multiGet(anyCollection())).thenAnswer(invocation -> invocation.<Collection<String>>getArgument(0)
+                .stream().map(redisStore::get).collect(Collectors.toList()));
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            pipelineCount.incrementAndGet();
+            // 记录管道中的命令，按顺序返回结果
+            List<Object> results = new ArrayList<>();
+            RedisOperations<String, byte[]> operations = mock(RedisOperations.class);
+            ValueOperations<String, byte[]> pipelineValueOperations = mock(ValueOperations.class);
+            when(operations.opsForValue()).thenReturn(pipelineValueOperations);
+            when(pipelineValueOperations.multiGet(anyCollection())).thenAnswer(call -> {
+                results.add(call.<Collection<String>>getArgument(0).stream().map(redisStore::get).collect(Collectors.toList()));
+                return null;
+            });
+            invocation.<SessionCallback<Object>>getArgument(0).execute(operations);
+            return results;
+        });
+        cacheManager = new SimpleCacheManager(redisTemplate);
+    }
+
+    private Cache<String, String> createCache(String name, CacheType cacheType, CacheLoader<String, String> loader) {
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>(name)
+                .cacheType(cacheType)
+                .syncLocal(false)
+                .localLimit(100)
+                .keyConvertor((cacheName, key) -> cacheName + ":" + key)
+                .loader(loader)
+                .build();
+        return cacheManager.getOrCreateCache(config);
+    }
+
+    private Set<String> keys(String... keys) {
+        return new HashSet<>(Arrays.asList(keys));
+    }
+
+    @Test
+    void testMultiGetReturnsTypedResultsInRequestOrder() {
+        // 测试每个请求返回一个按键对应的结果，顺序与请求一致
+        Cache<String, String> cacheA = createCache("cacheA", CacheType.BOTH, null);
+        createCache("cacheB", CacheType.REMOTE, null);
+        cacheA.put("k1", "a1");
+        redisStore.put("cacheA:k2", Kryo5ValueEncoder.INSTANCE.apply("a2"));
+        redisStore.put("cacheB:k1", Kryo5ValueEncoder.INSTANCE.apply("b1"));
+
+        List<BatchResponse<?, ?>> responses = cacheManager.multiGet(Arrays.asList(
+                new BatchRequest<String, String>("cacheB", keys("k1", "k2")),
+                new BatchRequest<String, String>("cacheA", keys("k1", "k2", "k3"))));
+
+        assertEquals(2, responses.size());
+        BatchResponse<String, String> responseB = (BatchResponse<String, String>) responses.get(0);
+        BatchResponse<String, String> responseA = (BatchResponse<String, String>) responses.get(1);
+        assertEquals("cacheB", responseB.getCacheName());
+        assertEquals(Map.of("k1", "b1"), responseB.getResult());
+        assertEquals("cacheA", responseA.getCacheName());
+        assertEquals(Map.of("k1", "a1", "k2", "a2"), responseA.getResult());
+        assertEquals(1, pipelineCount.get());
+        // 远程读取到的值回填本地缓存
+        assertEquals("a2", ((MultiLevelCache<String, String>) cacheA).getLocalCache().get("k2"));
+    }
+
+    @Test
+    void testMultiGetSkipsRemoteWhenLocalHits() {
+        // 测试本地缓存全部命中时不访问远程缓存
+        Cache<String, String> cache = createCache("cacheA", CacheType.LOCAL, null);
+        cache.put("k1", "v1");
+
+        List<BatchResponse<?, ?>> responses = cacheManager.multiGet(Arrays.asList(
+                new BatchRequest<String, String>("cacheA", keys("k1"))));
+
+        assertEquals(Map.of("k1", "v1"), responses.get(0).getResult());
+        assertEquals(0, pipelineCount.get());
+    }
+
+    @Test
+    void testMultiGetRunsLoadersConcurrently() {
+        // 测试不同缓存的加载器并发执行
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CacheLoader<String, String> loader = new CacheLoader<String, String>() {
+            @Override
+            public String load(String key) throws Throwable {
+                bothStarted.countDown();
+                // 两个加载器都开始后才返回，串行执行时会超时
+                assertTrue(bothStarted.await(2, TimeUnit.SECONDS));
+                return "loaded-" + key;
+            }
+        };
+        createCache("cacheA", CacheType.REMOTE, loader);
+        createCache("cacheB", CacheType.REMOTE, loader);
+
+        List<BatchResponse<?, ?>> responses = cacheManager.multiGet(Arrays.asList(
+                new BatchRequest<String, String>("cacheA", keys("k1")),
+                new BatchRequest<String, String>("cacheB", keys("k2"))));
+
+        assertEquals(Map.of("k1", "loaded-k1"), responses.get(0).getResult());
+        assertEquals(Map.of("k2", "loaded-k2"), responses.get(1).getResult());
+        assertEquals(1, pipelineCount.get());
+    }
+
+    @Test
+    void testMultiGetPropagatesLoaderFailure() {
+        // 测试加载失败时抛出异常
+        createCache("cacheA", CacheType.REMOTE, key -> "loaded-" + key);
+        createCache("cacheB", CacheType.REMOTE, key -> {
+            throw new IllegalStateException("load failed");
+        });
+
+        assertThrows(CacheInvokeException.class, () -> cacheManager.multiGet(Arrays.asList(
+                new BatchRequest<String, String>("cacheA", keys("k1")),
+                new BatchRequest<String, String>("cacheB", keys("k2")))));
+    }
+
+    @Test
+    void testMultiGetUnknownCache() {
+        // 测试缓存不存在时抛出异常
+        assertThrows(CacheException.class, () -> cacheManager.multiGet(Arrays.asList(
+                new BatchRequest<String, String>("unknown", keys("k1")))));
+    }
+
+    @Test
+    void testMultiGetParallelLookupAndDecode() {
+        // 测试键数量达到阈值时在解码线程池上并行读取本地缓存和解码远程值
+        Set<String> decodeThreads = ConcurrentHashMap.newKeySet();
+        CacheConfig<String, String> config = new CacheConfigBuilder<String, String>("cacheA")
+                .cacheType(CacheType.BOTH)
+                .syncLocal(false)
+                .localLimit(10000)
+                .valueDecoder(bytes -> {
+                    decodeThreads.add(Thread.currentThread().getName());
+                    return Kryo5ValueDecoder.INSTANCE.apply(bytes);
+                })
+                .keyConvertor((cacheName, key) -> cacheName + ":" + key)
+                .build();
+        MultiLevelCache<String, String> cacheA = (MultiLevelCache<String, String>) cacheManager.getOrCreateCache(config);
+        createCache("cacheB", CacheType.REMOTE, null);
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            keys.add("k" + i);
+            if (i % 2 == 0) {
+                cacheA.getLocalCache().do_PUT("cacheA:k" + i, "a" + i);
+            } else {
+                redisStore.put("cacheA:k" + i, Kryo5ValueEncoder.INSTANCE.apply("a" + i));
+            }
+            redisStore.put("cacheB:k" + i, Kryo5ValueEncoder.INSTANCE.apply("b" + i));
+        }
+        cacheManager.setParallelThreshold(100);
+
+        List<BatchResponse<?, ?>> responses = cacheManager.multiGet(Arrays.asList(
+                new BatchRequest<String, String>("cacheA", keys),
+                new BatchRequest<String, String>("cacheB", keys)));
+
+        Map<?, ?> resultA = responses.get(0).getResult();
+        Map<?, ?> resultB = responses.get(1).getResult();
+        assertEquals(1000, resultA.size());
+        assertEquals(1000, resultB.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("a" + i, resultA.get("k" + i));
+            assertEquals("b" + i, resultB.get("k" + i));
+        }
+        assertEquals(1, pipelineCount.get());
+        assertTrue(decodeThreads.stream().anyMatch(name -> name.startsWith("EasyCache-decode-"))
+                || EasyCacheExecutor.decodePool().getParallelism() == 1);
+        // 远程值回填本地缓存
+        assertEquals("a1", cacheA.getLocalCache().get("k1"));
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.easycache.core;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TaggedKryoValueEncoder 和 TaggedKryoValueDecoder 单元测试
+ */
+public class TaggedKryoValueEncoderTest {
+
+    @Test
+    void testTaggedRoundTrip() {
+        // 测试标签字段类的编码解码往返
+        UserV2 value = new UserV2("test", 3, "test@example.com");
+
+        byte[] bytes = TaggedKryoValueEncoder.INSTANCE.apply(value);
+
+        assertEquals(value, TaggedKryoValueDecoder.INSTANCE.apply(bytes));
+    }
+
+    @Test
+    void testUntaggedRoundTrip() {
+        // 测试没有标签字段的类和集合类型的往返
+        Map<String, Object> value = new HashMap<>();
+        List<String> items = new ArrayList<>();
+        items.add("item1");
+        value.put("items", items);
+        value.put("plain", new Plain("name", 1));
+
+        byte[] bytes = TaggedKryoValueEncoder.INSTANCE.apply(value);
+
+        assertEquals(value, TaggedKryoValueDecoder.INSTANCE.apply(bytes));
+        assertNull(TaggedKryoValueDecoder.INSTANCE.apply(TaggedKryoValueEncoder.INSTANCE.apply(null)));
+    }
+
+    @Test
+    void testDecodeByteBuffer() {
+        // 测试从堆外缓冲区解码
+        UserV1 value = new UserV1("test", 1);
+        byte[] bytes = TaggedKryoValueEncoder.INSTANCE.apply(value);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+
+        assertEquals(value, TaggedKryoValueDecoder.INSTANCE.decode(buffer));
+    }
+
+    @Test
+    void testNewVersionReadsOldValue() {
+        // 测试新版本读取旧版本写入的值，新增字段保持默认值
+        byte[] bytes = write(UserV1.class, new UserV1("test", 1));
+
+        UserV2 value = (UserV2) read(UserV2.class, bytes);
+
+        assertEquals("test", value.name);
+        assertEquals(1, value.count);
+        assertNull(value.email);
+    }
+
+    @Test
+    void testOldVersionReadsNewValue() {
+        // 测试旧版本读取新版本写入的值，跳过不认识的标签
+        byte[] bytes = write(UserV2.class, new UserV2("test", 2, "test@example.com"));
+
+        UserV1 value = (UserV1) read(UserV1.class, bytes);
+
+        assertEquals(new UserV1("test", 2), value);
+    }
+
+    @Test
+    void testSmallerThanCompatibleFieldSerializer() {
+        // 测试标签编码比兼容字段编码更小
+        UserV2 value = new UserV2("test", 2, "test@example.com");
+
+        assertTrue(TaggedKryoValueEncoder.INSTANCE.apply(value).length < KryoValueEncoder.INSTANCE.apply(value).length);
+    }
+
+    /**
+     * 使用相同的类ID模拟同一个类的不同版本
+     */
+    private static Kryo kryo(Class<?> type) {
+        Kryo kryo = new Kryo();
+        kryo.setRegistrationRequired(false);
+        kryo.setReferences(true);
+        TaggedKryoValueEncoder.configure(kryo);
+        kryo.register(type, 1000);
+        return kryo;
+    }
+
+    private static byte[] write(Class<?> type, Object value) {
+        Output output = new Output(256, -1);
+        kryo(type).writeClassAndObject(output, value);
+        return output.toBytes();
+    }
+
+    private static Object read(Class<?> type, byte[] bytes) {
+        return kryo(type).readClassAndObject(new Input(bytes));
+    }
+
+    static class UserV1 {
+        @Tag(1)
+        String name;
+        @Tag(2)
+        int count;
+
+        UserV1() {
+        }
+
+        UserV1(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof UserV1)) return false;
+            UserV1 that = (UserV1) o;
+            return count == that.count && Objects.equals(name, that.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, count);
+        }
+    }
+
+    static class UserV2 {
+        @Tag(1)
+        String name;
+        @Tag(2)
+        int count;
+        @Tag(3)
+        String email;
+
+        UserV2() {
+        }
+
+        UserV2(String name, int count, String email) {
+            this.name = name;
+            this.count = count;
+            this.email = email;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof UserV2)) return false;
+            UserV2 that = (UserV2) o;
+            return count == that.count && Objects.equals(name, that.name) && Objects.equals(email, that.email);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, count, email);
+        }
+    }
+
+    static class Plain {
+        String name;
+        int count;
+
+        Plain() {
+        }
+
+        Plain(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Plain)) return false;
+            Plain that = (Plain) o;
+            return count == that.count && Objects.equals(name, that.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, count);
+        }
+    }
+}
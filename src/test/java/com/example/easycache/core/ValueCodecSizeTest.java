@@ -0,0 +1,81 @@
+package com.example.easycache.core;
+
+import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 值编码器编码大小对比单元测试
+ * <p>对比兼容字段编码（KryoValueEncoder）、默认字段编码（Kryo5ValueEncoder）和标签字段编码（TaggedKryoValueEncoder）。
+ * 只断言稳定的大小关系，编解码耗时与运行环境有关，不在单元测试中比较</p>
+ */
+public class ValueCodecSizeTest {
+
+    @Test
+    void testSingleObjectSize() {
+        // 测试单个对象：默认字段编码不写入字段信息最小，标签编码只写数字标签，比写入字段名的兼容字段编码小
+        assertSizeOrder(order().items.get(0));
+    }
+
+    @Test
+    void testObjectGraphSize() {
+        // 测试对象图：大小关系与单个对象相同，解码后内容一致
+        Order order = order();
+        assertSizeOrder(order);
+
+        Order decoded = (Order) TaggedKryoValueDecoder.INSTANCE.apply(TaggedKryoValueEncoder.INSTANCE.apply(order));
+        assertEquals(order.id, decoded.id);
+        assertEquals(order.customer, decoded.customer);
+        assertEquals(10, decoded.items.size());
+        assertEquals("sku-9", decoded.items.get(9).sku);
+    }
+
+    private static void assertSizeOrder(Object value) {
+        int compatible = KryoValueEncoder.INSTANCE.apply(value).length;
+        int field = Kryo5ValueEncoder.INSTANCE.apply(value).length;
+        int tagged = TaggedKryoValueEncoder.INSTANCE.apply(value).length;
+
+        assertTrue(field < tagged, "field=" + field + " tagged=" + tagged);
+        assertTrue(tagged < compatible, "tagged=" + tagged + " compatible=" + compatible);
+    }
+
+    private static Order order() {
+        Order order = new Order();
+        order.id = 1234567L;
+        order.customer = "customer-0001";
+        order.status = "PAID";
+        order.items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Item item = new Item();
+            item.sku = "sku-" + i;
+            item.quantity = i + 1;
+            item.price = 9.99 * (i + 1);
+            order.items.add(item);
+        }
+        return order;
+    }
+
+    static class Order {
+        @Tag(1)
+        long id;
+        @Tag(2)
+        String customer;
+        @Tag(3)
+        String status;
+        @Tag(4)
+        List<Item> items;
+    }
+
+    static class Item {
+        @Tag(1)
+        String sku;
+        @Tag(2)
+        int quantity;
+        @Tag(3)
+        double price;
+    }
+}
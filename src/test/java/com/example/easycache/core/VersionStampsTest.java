@@ -0,0 +1,91 @@
+package com.example.easycache.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * VersionStamps 版本戳单元测试
+ */
+public class VersionStampsTest {
+
+    @Test
+    void testNextVersionIsMonotonic() {
+        // 测试版本单调递增
+        VersionStamps versionStamps = new VersionStamps();
+        long previous = versionStamps.nextVersion();
+        for (int i = 0; i < 10000; i++) {
+            long current = versionStamps.nextVersion();
+            assertTrue(current > previous);
+            previous = current;
+        }
+    }
+
+    @Test
+    void testValidateWithoutInvalidation() {
+        // 测试未失效时版本戳有效
+        VersionStamps versionStamps = new VersionStamps();
+        long stamp = versionStamps.stamp("key1");
+
+        assertTrue(versionStamps.validate("key1", stamp));
+    }
+
+    @Test
+    void testInvalidateRejectsStaleBackfill() {
+        // 测试失效后之前获取的版本戳无效
+        VersionStamps versionStamps = new VersionStamps();
+        long stamp = versionStamps.stamp("key1");
+
+        versionStamps.invalidate("key1");
+
+        assertFalse(versionStamps.validate("key1", stamp));
+    }
+
+    @Test
+    void testInvalidateWithOlderVersionStillAdvances() {
+        // 测试以较旧的远程版本失效时版本戳仍然前进
+        VersionStamps versionStamps = new VersionStamps();
+        versionStamps.invalidate("key1");
+        long stamp = versionStamps.stamp("key1");
+
+        long result = versionStamps.invalidate("key1", 1L);
+
+        assertTrue(result > stamp);
+        assertFalse(versionStamps.validate("key1", stamp));
+    }
+
+    @Test
+    void testRemoteVersionAdvancesClock() {
+        // 测试远程版本推动本地时钟
+        VersionStamps versionStamps = new VersionStamps();
+        long remoteVersion = versionStamps.nextVersion() + (1L << 30);
+
+        versionStamps.invalidate("key1", remoteVersion);
+
+        assertTrue(versionStamps.nextVersion() > remoteVersion);
+    }
+
+    @Test
+    void testIsNewer() {
+        // 测试版本新旧判断
+        VersionStamps versionStamps = new VersionStamps();
+        long version = versionStamps.invalidate("key1");
+
+        assertFalse(versionStamps.isNewer("key1", version - 1));
+        assertFalse(versionStamps.isNewer("key1", version));
+        assertTrue(versionStamps.isNewer("key1", versionStamps.nextVersion()));
+    }
+
+    @Test
+    void testInvalidateAll() {
+        // 测试失效所有键
+        VersionStamps versionStamps = new VersionStamps(16);
+        long stamp1 = versionStamps.stamp("key1");
+        long stamp2 = versionStamps.stamp("key2");
+
+        versionStamps.invalidateAll();
+
+        assertFalse(versionStamps.validate("key1", stamp1));
+        assertFalse(versionStamps.validate("key2", stamp2));
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.easycache.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WriteBehindQueue 延迟写队列单元测试
+ */
+public class WriteBehindQueueTest {
+
+    private final List<Map<String, Object>> batches = new CopyOnWriteArrayList<>();
+
+    private WriteBehindQueue<String, String> createQueue(int capacity, int batchSize) {
+        return new WriteBehindQueue<>("test", capacity, batchSize, Duration.ofMinutes(1), Duration.ofSeconds(5), batch -> batches.add(new LinkedHashMap<>(batch)));
+    }
+
+    @Test
+    void testCoalescePerKey() {
+        // 测试同一个键只保留最后一次操作，按首次入队的顺序刷新
+        WriteBehindQueue<String, String> queue = createQueue(100, 100);
+        queue.put("k1", "v1");
+        queue.put("k2", "v2");
+        queue.put("k1", "v1-new");
+        queue.remove("k2");
+
+        assertEquals(2, queue.size());
+        assertEquals("v1-new", queue.pending("k1"));
+        assertSame(WriteBehindQueue.REMOVED, queue.pending("k2"));
+        assertEquals(2, queue.flush());
+
+        assertEquals(1, batches.size());
+        assertEquals(Arrays.asList("k1", "k2"), new ArrayList<>(batches.get(0).keySet()));
+        assertEquals("v1-new", batches.get(0).get("k1"));
+        assertNull(queue.pending("k1"));
+        assertEquals(2, queue.getFlushedCount());
+        queue.close();
+    }
+
+    @Test
+    void testBatchSize() {
+        // 测试每批不超过批量上限，刷新全部时分多批
+        WriteBehindQueue<String, String> queue = createQueue(100, 2);
+        for (int i = 0; i < 5; i++) {
+            queue.put("k" + i, "v" + i);
+        }
+        queue.flushAll();
+
+        assertEquals(0, queue.size());
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 2));
+        assertEquals(5, batches.stream().mapToInt(Map::size).sum());
+        queue.close();
+    }
+
+    @Test
+    void testFailedBatchRequeued() {
+        // 测试刷新失败的批次放回队列，更新的操作优先
+        AtomicBoolean fail = new AtomicBoolean(true);
+        WriteBehindQueue<String, String>[] holder = new WriteBehindQueue[1];
+        WriteBehindQueue<String, String> queue = new WriteBehindQueue<>("test", 100, 100, Duration.ofMinutes(1), Duration.ofSeconds(5), batch -> {
+            if (fail.get()) {
+                holder[0].put("k1", "v1-new");
+                throw new IllegalStateException("redis down");
+            }
+            batches.add(new LinkedHashMap<>(batch));
+        });
+        holder[0] = queue;
+        queue.put("k1", "v1");
+        queue.put("k2", "v2");
+
+        assertEquals(0, queue.flush());
+        assertEquals(1, queue.getFailedCount());
+        assertEquals("v1-new", queue.pending("k1"));
+        assertEquals("v2", queue.pending("k2"));
+
+        fail.set(false);
+        queue.flushAll();
+        assertEquals("v1-new", batches.get(0).get("k1"));
+        assertEquals("v2", batches.get(0).get("k2"));
+        queue.close();
+    }
+
+    @Test
+    void testBackpressure() throws Exception {
+        // 测试容量已满时写入线程等待刷新腾出空间，更新已有的键不等待
+        CountDownLatch flushStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        WriteBehindQueue<String, String> queue = new WriteBehindQueue<>("test", 2, 100, Duration.ofMinutes(1), Duration.ofSeconds(5), batch -> {
+            flushStarted.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batches.add(new LinkedHashMap<>(batch));
+        });
+        queue.put("k1", "v1");
+        queue.put("k2", "v2");
+        queue.put("k1", "v1-new");
+        assertEquals(2, queue.size());
+
+        Thread writer = new Thread(() -> queue.put("k3", "v3"));
+        writer.start();
+        assertTrue(flushStarted.await(5, TimeUnit.SECONDS));
+        // 刷新仍被阻塞时写入线程已经入队，刷新中的批次仍可读取
+        writer.join(5000);
+        assertFalse(writer.isAlive());
+        assertEquals("v3", queue.pending("k3"));
+        assertEquals("v1-new", queue.pending("k1"));
+        release.countDown();
+        queue.close();
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void testBackpressureTimeout() throws Exception {
+        // 测试刷新持续失败时写入线程超过等待时间后抛出异常，失败后的退避时间内不反复刷新
+        AtomicInteger flushes = new AtomicInteger();
+        WriteBehindQueue<String, String> queue = new WriteBehindQueue<>("test", 1, 100, Duration.ofMinutes(1), Duration.ofMillis(200), batch -> {
+            flushes.incrementAndGet();
+            throw new IllegalStateException("redis down");
+        });
+        queue.put("k1", "v1");
+
+        long start = System.nanoTime();
+        assertThrows(CacheException.class, () -> queue.put("k2", "v2"));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+        assertTrue(flushes.get() <= 2, "flushes: " + flushes.get());
+        assertNull(queue.pending("k2"));
+        assertEquals("v1", queue.pending("k1"));
+        // 更新已在队列中的键不等待
+        queue.put("k1", "v1-new");
+        assertEquals("v1-new", queue.pending("k1"));
+        queue.close();
+    }
+
+    @Test
+    void testInFlightBatchVisible() throws Exception {
+        // 测试刷新中的批次在刷新完成前仍可读取，完成后不再返回
+        CountDownLatch flushStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        WriteBehindQueue<String, String> queue = new WriteBehindQueue<>("test", 100, 100, Duration.ofMinutes(1), Duration.ofSeconds(5), batch -> {
+            flushStarted.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batches.add(new LinkedHashMap<>(batch));
+        });
+        queue.put("k1", "v1");
+        queue.remove("k2");
+        Thread flusher = new Thread(queue::flush);
+        flusher.start();
+        assertTrue(flushStarted.await(5, TimeUnit.SECONDS));
+
+        assertEquals(0, queue.size());
+        assertEquals("v1", queue.pending("k1"));
+        assertSame(WriteBehindQueue.REMOVED, queue.pending("k2"));
+        queue.put("k1", "v1-new");
+        assertEquals("v1-new", queue.pending("k1"));
+
+        release.countDown();
+        flusher.join(5000);
+        assertEquals("v1-new", queue.pending("k1"));
+        assertNull(queue.pending("k2"));
+        queue.close();
+    }
+
+    @Test
+    void testCloseFlushesPending() {
+        // 测试关闭时刷新所有操作，关闭后的操作直接刷新
+        WriteBehindQueue<String, String> queue = createQueue(100, 100);
+        queue.put("k1", "v1");
+        queue.close();
+
+        assertEquals(1, batches.size());
+        queue.put("k2", "v2");
+        assertEquals(2, batches.size());
+        assertEquals(0, queue.size());
+    }
+}